@@ -0,0 +1,97 @@
+package obscurum.benchmarks;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+import obscurum.creatures.Creature;
+import obscurum.creatures.ai.CreatureAI;
+import obscurum.creatures.util.FieldOfView;
+import obscurum.environment.Level;
+import obscurum.factories.CreatureFactory;
+import obscurum.util.Rng;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long creatures take to work out what they can see, both when
+ * their field of view has to be computed and when it is already up to date.
+ * @author Alex Ghita
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FieldOfViewBenchmark {
+    private static final int TARGETS = 1024;
+
+    @Param({"91x31", "256x256", "1024x1024"})
+    public String size;
+    private Level level;
+    private Creature creature;
+    private Point[] origins;
+    private Point[] targets;
+    private FieldOfView fieldOfView;
+    private long[] seenPoints;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Scenarios.parseSize(size);
+        level = Scenarios.cave(dimensions[0], dimensions[1], Scenarios.SEED);
+
+        Rng previous = Rng.bind(level.getRandom());
+        try {
+            creature = new CreatureFactory(level).newGoblin(1);
+            creature.getAI().setKnowledgeType(CreatureAI.SIMPLE);
+            origins = new Point[]{level.getRandomEmptyLocation(),
+                    level.getRandomEmptyLocation()};
+            targets = new Point[TARGETS];
+            int lineOfSight = creature.getAttributes()[Creature.LINE_OF_SIGHT];
+            Point location = creature.getLocation();
+            Rng random = level.getRandom();
+            for (int i = 0; i < TARGETS; i++) {
+                targets[i] = new Point(location.x - lineOfSight +
+                        random.nextInt(2 * lineOfSight + 1), location.y -
+                        lineOfSight + random.nextInt(2 * lineOfSight + 1));
+            }
+        } finally {
+            Rng.bind(previous);
+        }
+        fieldOfView = new FieldOfView(FieldOfView.SHADOWCASTING);
+        seenPoints = new long[creature.getAI().getMaxSeenPoints()];
+        next = 0;
+    }
+
+    /**
+     * Computes a creature's field of view from scratch, within its line of
+     * sight.
+     */
+    @Benchmark
+    public boolean computeLineOfSight() {
+        Point origin = origins[next++ & 1];
+        fieldOfView.compute(level, origin.x, origin.y,
+                creature.getAttributes()[Creature.LINE_OF_SIGHT]);
+        return fieldOfView.isVisible(origin.x, origin.y);
+    }
+
+    /**
+     * Computes a field of view from scratch, without any limit, e.g. the
+     * player's.
+     */
+    @Benchmark
+    public boolean computeUnlimited() {
+        Point origin = origins[next++ & 1];
+        fieldOfView.compute(level, origin.x, origin.y, -1);
+        return fieldOfView.isVisible(origin.x, origin.y);
+    }
+
+    @Benchmark
+    public boolean canSee() {
+        return creature.getAI().canSee(targets[next++ & (TARGETS - 1)]);
+    }
+
+    @Benchmark
+    public int getSeenPoints() {
+        return creature.getAI().getSeenPoints(seenPoints);
+    }
+}
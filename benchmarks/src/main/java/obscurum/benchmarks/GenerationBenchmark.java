@@ -0,0 +1,40 @@
+package obscurum.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import obscurum.environment.Level;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to build a level, from the size used by the game
+ * up to 1024x1024.
+ * @author Alex Ghita
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GenerationBenchmark {
+    @Param({"91x31", "256x256", "1024x1024"})
+    public String size;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Scenarios.parseSize(size);
+        width = dimensions[0];
+        height = dimensions[1];
+    }
+
+    @Benchmark
+    public Level dungeon() {
+        return Scenarios.dungeon(width, height, Scenarios.SEED);
+    }
+
+    @Benchmark
+    public Level cave() {
+        return Scenarios.cave(width, height, Scenarios.SEED);
+    }
+}
@@ -0,0 +1,79 @@
+package obscurum.benchmarks;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+import obscurum.creatures.Player;
+import obscurum.environment.Level;
+import obscurum.factories.CreatureFactory;
+import obscurum.util.Rng;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the level operations that run every turn, including a whole turn
+ * of the level's creatures as the number of creatures grows.
+ * @author Alex Ghita
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx3g"})
+public class LevelBenchmark {
+    @State(Scope.Benchmark)
+    public static class EmptyLevel {
+        @Param({"91x31", "256x256", "1024x1024"})
+        public String size;
+        private Level level;
+
+        @Setup
+        public void setUp() {
+            int[] dimensions = Scenarios.parseSize(size);
+            level = Scenarios.cave(dimensions[0], dimensions[1], Scenarios.SEED);
+        }
+    }
+
+    /**
+     * A level with a player in god mode, so that the game never ends, and the
+     * given number of goblins and zombies.
+     */
+    @State(Scope.Benchmark)
+    public static class PopulatedLevel {
+        @Param({"91x31", "256x256", "1024x1024"})
+        public String size;
+        @Param({"10", "100", "1000"})
+        public int creatures;
+        private Level level;
+
+        @Setup
+        public void setUp() {
+            int[] dimensions = Scenarios.parseSize(size);
+            level = Scenarios.cave(dimensions[0], dimensions[1], Scenarios.SEED);
+
+            Rng previous = Rng.bind(level.getRandom());
+            try {
+                CreatureFactory factory = new CreatureFactory(level);
+                Player player = factory.newPlayer();
+                player.setToGodMode();
+                for (int i = 0; i < creatures; i++) {
+                    if (i % 2 == 0) {
+                        factory.newGoblin(1);
+                    } else {
+                        factory.newZombie(1);
+                    }
+                }
+            } finally {
+                Rng.bind(previous);
+            }
+        }
+    }
+
+    @Benchmark
+    public Point getRandomEmptyLocation(EmptyLevel state) {
+        return state.level.getRandomEmptyLocation();
+    }
+
+    @Benchmark
+    public void updateCreatures(PopulatedLevel state) {
+        state.level.updateCreatures();
+    }
+}
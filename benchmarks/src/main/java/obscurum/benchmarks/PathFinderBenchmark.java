@@ -0,0 +1,70 @@
+package obscurum.benchmarks;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+import obscurum.creatures.util.PathFinder;
+import obscurum.environment.Level;
+import obscurum.util.Rng;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to find a shortest path between two random
+ * tiles, as creatures do when chasing a target with getShortestPathTo().
+ * @author Alex Ghita
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PathFinderBenchmark {
+    private static final int PAIRS = 256;
+
+    @Param({"91x31", "256x256", "1024x1024"})
+    public String size;
+    @Param({"dungeon", "cave"})
+    public String type;
+    private Level level;
+    private Point[] starts;
+    private Point[] targets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Scenarios.parseSize(size);
+        level = type.equals("dungeon") ?
+                Scenarios.dungeon(dimensions[0], dimensions[1], Scenarios.SEED) :
+                Scenarios.cave(dimensions[0], dimensions[1], Scenarios.SEED);
+
+        Rng previous = Rng.bind(level.getRandom());
+        try {
+            starts = new Point[PAIRS];
+            targets = new Point[PAIRS];
+            for (int i = 0; i < PAIRS; i++) {
+                starts[i] = level.getRandomEmptyLocation();
+                targets[i] = level.getRandomEmptyLocation();
+            }
+        } finally {
+            Rng.bind(previous);
+        }
+        next = 0;
+    }
+
+    /**
+     * Finds the next path. Ties between equally short paths are broken from
+     * the stream bound to the thread, as they are when a creature acts.
+     * @return
+     */
+    @Benchmark
+    public int find() {
+        int i = next++ & (PAIRS - 1);
+        Rng previous = Rng.bind(level.getRandom());
+        try {
+            return PathFinder.get().find(level, starts[i].x, starts[i].y,
+                    targets[i].x, targets[i].y).length();
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package obscurum.benchmarks;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import obscurum.Main;
+import obscurum.display.terminal.AsciiPanel;
+import obscurum.engine.GameEngine;
+import obscurum.screens.PlayScreen;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to paint a frame of the game, i.e. the play
+ * screen of a fixed-seed game, into an offscreen image.
+ * @author Alex Ghita
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private AsciiPanel terminal;
+    private PlayScreen screen;
+    private BufferedImage image;
+    private Graphics graphics;
+
+    @Setup
+    public void setUp() throws IOException {
+        terminal = Main.constructTerminal();
+        terminal.setSize(terminal.getPreferredSize());
+        screen = new PlayScreen(GameEngine.newGame(3, Scenarios.SEED));
+        screen.displayOutput(terminal);
+        image = new BufferedImage(terminal.getWidth(), terminal.getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        graphics = image.getGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    /**
+     * Paints a frame which has already been written to the terminal and
+     * painted, i.e. in which no cell has changed.
+     */
+    @Benchmark
+    public BufferedImage paint() {
+        terminal.paint(graphics);
+        return image;
+    }
+
+    /**
+     * Clears the terminal, writes the play screen to it and paints it, as the
+     * game does after every key press.
+     */
+    @Benchmark
+    public BufferedImage displayAndPaint() {
+        terminal.clear();
+        screen.displayOutput(terminal);
+        terminal.paint(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,67 @@
+package obscurum.benchmarks;
+
+import obscurum.environment.Level;
+import obscurum.environment.background.Floor;
+import obscurum.environment.builders.CaveBuilder;
+import obscurum.environment.builders.DungeonBuilder;
+import obscurum.environment.foreground.Wall;
+import obscurum.util.Rng;
+
+/**
+ * This builds the fixed-seed levels the benchmarks run on, so that every run
+ * measures the same scenarios.
+ * @author Alex Ghita
+ */
+final class Scenarios {
+    static final long SEED = 43;
+
+    private Scenarios() {}
+
+    /**
+     * Parses a level size.
+     * @param size the size, written as width x height, e.g. 91x31
+     * @return the width and the height
+     */
+    static int[] parseSize(String size) {
+        String[] parts = size.split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Size " + size +
+                    " must be written as width x height.");
+        }
+        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /**
+     * Builds a dungeon with the game's parameters.
+     * @param width
+     * @param height
+     * @param seed
+     * @return
+     */
+    static Level dungeon(int width, int height, long seed) {
+        Rng previous = Rng.bind(new Rng(seed));
+        try {
+            return new DungeonBuilder(width, height, new Wall(), new Floor(), false,
+                    false).build(5000, 5, 13, 0.1, -1);
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+
+    /**
+     * Builds a cave with the game's parameters.
+     * @param width
+     * @param height
+     * @param seed
+     * @return
+     */
+    static Level cave(int width, int height, long seed) {
+        Rng previous = Rng.bind(new Rng(seed));
+        try {
+            return new CaveBuilder(width, height, new Wall(), new Floor(), false,
+                    false).build();
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+}
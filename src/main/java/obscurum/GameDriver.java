@@ -1,43 +1,83 @@
 package obscurum;
 
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import obscurum.display.terminal.AsciiPanel;
 import obscurum.screens.MainMenuScreen;
 import obscurum.screens.Screen;
 
+/**
+ * The game's window. Key presses are queued for a game loop thread, which
+ * lets the current screen respond to them, so a slow turn never holds up the
+ * event thread. Frames are rendered on the event thread at most once per
+ * display refresh, and only the latest state is rendered, so frames for
+ * states that were overtaken before the next refresh are dropped.
+ */
 public class GameDriver extends JFrame implements KeyListener {
+    // Key presses beyond this many waiting to be handled are dropped, e.g.
+    // the repeats of a held key while a slow turn runs, so the game never
+    // falls more than a few key presses behind.
+    private static final int MAX_QUEUED_KEYS = 4;
+    private static final int DEFAULT_REFRESH_RATE = 60;
     private final AsciiPanel terminal;
     private Screen screen;
+    private final BlockingQueue<KeyEvent> keys;
+    // Held while the screen responds to a key or is rendered.
+    private final ReentrantLock stateLock;
+    private final AtomicBoolean framePending;
+    private final Thread gameLoop;
+    private final Timer renderTimer;
 
     public GameDriver(AsciiPanel terminal, Screen screen) {
         super("Obscurum");
         this.terminal = terminal;
         this.screen = screen;
+        this.keys = new ArrayBlockingQueue<>(MAX_QUEUED_KEYS);
+        this.stateLock = new ReentrantLock();
+        this.framePending = new AtomicBoolean(true);
 
         add(this.terminal);
         pack();
         setResizable(false);
         addKeyListener(this);
-        repaint();
+
+        gameLoop = new Thread(this::runGameLoop, "Game loop");
+        gameLoop.setDaemon(true);
+        gameLoop.start();
+        renderTimer = new Timer(1000 / getRefreshRate(), e -> renderFrame());
+        renderTimer.start();
     }
 
+    /**
+     * Asks for the latest state to be rendered at the next display refresh.
+     */
     @Override
     public void repaint() {
-        terminal.clear();
-        screen.displayOutput(terminal);
-        super.repaint();
+        if (framePending != null) {
+            framePending.set(true);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        renderTimer.stop();
+        gameLoop.interrupt();
+        super.dispose();
     }
 
     @Override
     public void keyPressed(KeyEvent e) {
-        if (e.getKeyCode() == KeyEvent.VK_Q && screen instanceof MainMenuScreen) {
-            this.dispose();
-        }
-        screen = screen.respondToUserInput(e);
-        repaint();
+        keys.offer(e);
     }
 
     @Override
@@ -45,4 +85,53 @@ public class GameDriver extends JFrame implements KeyListener {
 
     @Override
     public void keyTyped(KeyEvent e) {}
+
+    private void runGameLoop() {
+        try {
+            while (true) {
+                KeyEvent e = keys.take();
+                stateLock.lock();
+                try {
+                    if (e.getKeyCode() == KeyEvent.VK_Q && screen instanceof MainMenuScreen) {
+                        SwingUtilities.invokeLater(this::dispose);
+                        return;
+                    }
+                    screen = screen.respondToUserInput(e);
+                } finally {
+                    stateLock.unlock();
+                }
+                framePending.set(true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Renders the latest state, if it has changed since the last frame. If the
+     * game loop is in the middle of a turn, the frame is left for the next
+     * refresh rather than waiting for the turn to end.
+     */
+    private void renderFrame() {
+        if (!framePending.get() || !stateLock.tryLock()) {
+            return;
+        }
+        try {
+            framePending.set(false);
+            terminal.clear();
+            screen.displayOutput(terminal);
+        } finally {
+            stateLock.unlock();
+        }
+        terminal.repaintChanged();
+    }
+
+    private static int getRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return DEFAULT_REFRESH_RATE;
+        }
+        int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode()
+                .getRefreshRate();
+        return rate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_REFRESH_RATE : rate;
+    }
 }
@@ -3,6 +3,7 @@ package obscurum;
 import obscurum.display.DisplayColour;
 import obscurum.display.terminal.AsciiPanel;
 import obscurum.screens.StartScreen;
+import obscurum.util.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,13 +28,21 @@ public class Main {
     public static final int SCREEN_HEIGHT_IN_CHARACTERS = 29;
 
     public static void main(String[] args) throws IOException {
+        if (Metrics.ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> log.info("Phase timings:{}{}", System.lineSeparator(), Metrics.getSummary())));
+        }
         AsciiPanel terminal = constructTerminal();
         GameDriver driver = new GameDriver(terminal, new StartScreen());
         driver.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         driver.setVisible(true);
     }
 
-    private static AsciiPanel constructTerminal() throws IOException {
+    /**
+     * Builds the terminal the game is displayed on, sized to fit the screen.
+     * @return
+     * @throws IOException if the glyphs cannot be loaded
+     */
+    public static AsciiPanel constructTerminal() throws IOException {
         List<BufferedImage> glyphs = loadGlyphs();
         Dimension panelSize = new Dimension(GLYPH_WIDTH_IN_PIXELS * SCREEN_WIDTH_IN_CHARACTERS, GLYPH_HEIGHT_IN_PIXELS * SCREEN_HEIGHT_IN_CHARACTERS);
         return new AsciiPanel(SCREEN_WIDTH_IN_CHARACTERS, SCREEN_HEIGHT_IN_CHARACTERS, glyphs, panelSize, DisplayColour.BLACK, DisplayColour.WHITE);
@@ -10,16 +10,16 @@ import obscurum.creatures.ai.CorpseAI;
 import obscurum.creatures.ai.CreatureAI;
 import obscurum.creatures.util.EquipmentList;
 import obscurum.creatures.util.Line;
+import obscurum.environment.Exploration;
 import obscurum.environment.Level;
-import obscurum.environment.background.BackgroundTile;
-import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
 import obscurum.items.Equipment;
 import obscurum.items.Inventory;
 import obscurum.items.weapons.Weapon;
 import obscurum.placeholders.NullCreature;
 import obscurum.placeholders.NullEquipment;
-import obscurum.placeholders.NullLevel;
+import obscurum.util.Rng;
+import obscurum.util.Scheduler;
 
 /**
  * This models a creature, i.e. a foreground tile that can interact with other
@@ -47,18 +47,31 @@ public abstract class Creature extends ForegroundTile {
   public static final int MAX_INVENTORY_SIZE = 54;
   public static final int MAX_DODGE_CHANCE = 30;
   public static final int COMBAT_COOLDOWN = 20;
+  // A creature's speed is how many actions it takes, in percent, in the time a
+  // creature of normal speed takes one.
+  public static final int NORMAL_SPEED = 100;
+  // How many turns a corpse lasts, and how many once it has been emptied.
+  public static final int CORPSE_DECAY_TURNS = 50;
+  public static final int LOOTED_CORPSE_DECAY_TURNS = 10;
   protected boolean alive;
   protected Level level;
   protected Point location;
   protected Inventory inventory;
   protected CreatureAI ai;
-  protected HashMap<Level, Level> exploration;
+  protected HashMap<Level, Exploration> exploration;
   protected int[] baseAttributes;
   protected int[] attributes;
   protected int mana;
   protected int baseMana;
   protected int maxMana;
-  protected int combatCooldown;
+  // The action count at which the creature leaves combat.
+  protected long combatCooldownEnd;
+  protected int speed;
+  protected long actionCount;
+  protected final Scheduler.Event turnEvent;
+  // The creature's own stream, split from the one current when it was made,
+  // so that its choices do not depend on when other creatures make theirs.
+  protected final Rng random;
   protected int attackRange;
   protected Creature target;
   protected ArrayList<Spell> spells;
@@ -127,10 +140,9 @@ public abstract class Creature extends ForegroundTile {
     this.level.setForegroundTile(this.location, this);
 
     // Add the exploration level corresponding to the creature's level.
-    exploration = new HashMap<Level, Level>();
-    exploration.put(this.level, new Level(
-        new ForegroundTile[this.level.getWidth()][this.level.getHeight()],
-        new BackgroundTile[this.level.getWidth()][this.level.getHeight()]));
+    exploration = new HashMap<Level, Exploration>();
+    exploration.put(this.level, new Exploration(this.level.getWidth(),
+        this.level.getHeight()));
 
     baseAttributes = new int[NUM_OF_ATTRIBUTES];
     attributes = new int[NUM_OF_ATTRIBUTES];
@@ -151,10 +163,14 @@ public abstract class Creature extends ForegroundTile {
     this.mana = this.maxMana;
     this.attackRange = attackRange;
 
-    combatCooldown = 0;
+    combatCooldownEnd = 0;
+    speed = NORMAL_SPEED;
+    actionCount = 0;
+    turnEvent = new Scheduler.Event(this::act);
+    random = Rng.current().split();
 
     if (!name.equals("Null Creature")) {
-      target = new NullCreature();
+      target = NullCreature.INSTANCE;
     }
     spells = new ArrayList<Spell>();
     equipment = new EquipmentList();
@@ -182,8 +198,55 @@ public abstract class Creature extends ForegroundTile {
     return timesAttacked;
   }
 
+  /**
+   * Gets the number of the creature's actions left until it leaves combat.
+   * @return
+   */
   public int getCombatCooldown() {
-    return combatCooldown;
+    return (int)Math.max(0, combatCooldownEnd - actionCount);
+  }
+
+  public int getSpeed() {
+    return speed;
+  }
+
+  public void setSpeed(int speed) {
+    // Check for illegal arguments.
+    if (speed < 1) {
+      throw new IllegalArgumentException("Speed " + speed +
+          " must be at least 1.");
+    }
+
+    this.speed = speed;
+  }
+
+  /**
+   * Gets the number of actions the creature has taken so far, which is the
+   * clock its cooldowns are measured against.
+   * @return
+   */
+  public long getActionCount() {
+    return actionCount;
+  }
+
+  /**
+   * Gets the time the creature waits between actions, at its current speed.
+   * @return the delay in scheduler ticks
+   */
+  public long getActionDelay() {
+    return Math.max(1, (long)Level.TURN_LENGTH * NORMAL_SPEED / speed);
+  }
+
+  public Rng getRandom() {
+    return random;
+  }
+
+  /**
+   * Gets the event which wakes the creature up on its level's scheduler.
+   * @return
+   */
+  public Scheduler.Event getTurnEvent() {
+    return turnEvent;
   }
 
   public int getMana() {
@@ -210,6 +273,16 @@ public abstract class Creature extends ForegroundTile {
     return target;
   }
 
+  /**
+   * Creatures have their own health, location and inventory, so they are never
+   * shared between board cells.
+   * @return
+   */
+  @Override
+  public boolean isShareable() {
+    return false;
+  }
+
   /**
    * Gets the creature's status.
    * @return
@@ -251,11 +324,10 @@ public abstract class Creature extends ForegroundTile {
   }
 
   /**
-   * Gets a level that represents the level in which the creature is located,
-   * as explored by it.
+   * Gets what the creature has explored of the level in which it is located.
    * @return
    */
-  public Level getExploration() {
+  public Exploration getExploration() {
     return exploration.get(level);
   }
 
@@ -318,8 +390,8 @@ public abstract class Creature extends ForegroundTile {
    * Sets the exploration of the current level.
    * @param newExploration
    */
-  public void setExploration(Level newExploration) {
-    if (newExploration == null || newExploration instanceof NullLevel) {
+  public void setExploration(Exploration newExploration) {
+    if (newExploration == null) {
       throw new IllegalArgumentException(
           "New exploration level cannot be null");
     }
@@ -341,18 +413,17 @@ public abstract class Creature extends ForegroundTile {
    */
   public void addExploration(Level level) {
     if (!exploration.containsKey(level)) {
-      exploration.put(level, new Level(
-          new ForegroundTile[level.getWidth()][level.getHeight()],
-          new BackgroundTile[level.getWidth()][level.getHeight()]));
+      exploration.put(level,
+          new Exploration(level.getWidth(), level.getHeight()));
     }
   }
 
-  public void decrementCombatCooldown() {
-    combatCooldown = Math.max(0, combatCooldown - 1);
+  public void clearCombatCooldown() {
+    combatCooldownEnd = 0;
   }
 
   public void resetCombatCooldown() {
-    combatCooldown = COMBAT_COOLDOWN;
+    combatCooldownEnd = actionCount + COMBAT_COOLDOWN;
   }
 
   public void regenerate() {
@@ -376,8 +447,7 @@ public abstract class Creature extends ForegroundTile {
    * @param location
    */
   public void move(Point location) {
-    level.setForegroundTile(this.location, new EmptyTile());
-    level.setForegroundTile(location, this);
+    level.move(this, location.x, location.y);
     this.location = location;
   }
 
@@ -387,7 +457,7 @@ public abstract class Creature extends ForegroundTile {
    * @param y
    */
   public void moveBy(int x, int y) {
-    moveBy(new Point(x, y));
+    ai.onEnter(new Point(location.x + x, location.y + y));
   }
 
   /**
@@ -395,7 +465,7 @@ public abstract class Creature extends ForegroundTile {
    * @param p
    */
   public void moveBy(Point p) {
-    ai.onEnter(new Point(p.x + location.x, p.y + location.y));
+    moveBy(p.x, p.y);
   }
 
   public void setHealth(int health) {
@@ -405,6 +475,35 @@ public abstract class Creature extends ForegroundTile {
     }
   }
 
+  /**
+   * Runs when the creature is due on its level's scheduler. A living creature
+   * joins the creatures taking their turns at this time, while a corpse that
+   * is due has finished decaying and is removed from the level.
+   */
+  protected void act() {
+    if (!alive) {
+      level.remove(this);
+      return;
+    }
+    level.queueTurn(this);
+  }
+
+  /**
+   * Takes the creature's action, which its AI should have decided on by now,
+   * and waits for its next one. Nothing happens if the creature was killed
+   * by another which acted before it.
+   */
+  public void takeTurn() {
+    if (!alive) {
+      return;
+    }
+    update();
+    actionCount++;
+    if (alive) {
+      level.getScheduler().schedule(turnEvent, getActionDelay());
+    }
+  }
+
   /**
    * Triggers the creature's AI response to the passing of another game turn.
    */
@@ -415,15 +514,9 @@ public abstract class Creature extends ForegroundTile {
         turnsAlive++;
       }
       if (!name.equals("Player")) {
-        ArrayList<Point> seenPoints = ai.getSeenPoints();
-        for (Point p : seenPoints) {
-          // Check if it's the player.
-          if (level.getForegroundTile(p).getName().equals("Player")) {
-            if (turnsAliveNearPlayer < Integer.MAX_VALUE) {
-              turnsAliveNearPlayer++;
-            }
-            break;
-          }
+        if (!(ai.findPlayer() instanceof NullCreature) &&
+            turnsAliveNearPlayer < Integer.MAX_VALUE) {
+          turnsAliveNearPlayer++;
         }
       }
     }
@@ -431,8 +524,8 @@ public abstract class Creature extends ForegroundTile {
 
   /**
    * Kills the creature. This changes its glyph to the standard corpse glyph,
-   * '%', changes its AI to one that does nothing and also generates its
-   * lootable inventory.
+   * '%', changes its AI to one that does nothing, generates its lootable
+   * inventory and sets the corpse to decay, sooner if it has nothing to loot.
    */
   public void die() {
     alive = false;
@@ -442,6 +535,10 @@ public abstract class Creature extends ForegroundTile {
     ai = new CorpseAI(this);
     inventory = new Inventory(attributes[INVENTORY_SIZE], this);
     generateInventory();
+    clearCombatCooldown();
+    level.getScheduler().schedule(turnEvent, (long)Level.TURN_LENGTH *
+        (inventory.countFilledSlots() == 0 ? LOOTED_CORPSE_DECAY_TURNS :
+        CORPSE_DECAY_TURNS));
   }
 
   public boolean canCastSpell(int spellIndex) {
@@ -472,12 +569,11 @@ public abstract class Creature extends ForegroundTile {
     }
 
     int damage = 0;
-    boolean dodged = Math.random() <
+    boolean dodged = random.nextDouble() <
         (double)target.getAttributes()[Creature.DODGE_CHANCE] / 100.0 ?
         true : false;
     if (!dodged) {
-      if (equipment.getEquipment(Equipment.WEAPON).isOfType(
-          new NullEquipment())) {
+      if (equipment.getEquipment(Equipment.WEAPON) instanceof NullEquipment) {
         damage = attributes[Creature.ATTACK_POWER] / 2;
       } else {
         damage = ((Weapon)equipment.getEquipment(Equipment.WEAPON)).dealDamage()
@@ -510,7 +606,7 @@ public abstract class Creature extends ForegroundTile {
       }
     }
 
-    if (target.getTarget().isOfType(new NullCreature()) &&
+    if (target.getTarget() instanceof NullCreature &&
         target.getAI().canSee(this.getLocation())) {
       target.setTarget(this);
     }
@@ -523,6 +619,7 @@ public abstract class Creature extends ForegroundTile {
         return;
       }
     }
+    spell.setCaster(this);
     spells.add(spell);
   }
 
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import obscurum.items.Inventory;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models a loot table, i.e. what items a creature can drop at death, and
@@ -19,12 +20,12 @@ public class LootTable {
   }
 
   public void fillInventory(Inventory inv) {
-    fillInventory(inv, (int)(Math.random() * (inv.getSize() + 1)));
+    fillInventory(inv, Rng.current().nextInt(inv.getSize() + 1));
   }
 
   public void fillInventory(Inventory inv, int numOfSlots) {
     for (int i = 0; i < numOfSlots; i++) {
-      double chance = Math.random();
+      double chance = Rng.current().nextDouble();
       double cumulatedChance = 0;
       for (LootTableEntry entry : options) {
         cumulatedChance += entry.getChance();
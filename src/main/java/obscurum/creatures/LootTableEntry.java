@@ -2,6 +2,7 @@ package obscurum.creatures;
 
 import java.lang.Math;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models an entry in a loot table, i.e. a tuple consisting of an item,
@@ -36,7 +37,7 @@ public class LootTableEntry {
   }
 
   public int getRandomAmount() {
-    return minAmount + (int)(Math.random() * (maxAmount - minAmount + 1));
+    return minAmount + Rng.current().nextInt(maxAmount - minAmount + 1);
   }
 
   public boolean isUniqueSpawn() {
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import obscurum.display.DisplayColour;
+import obscurum.engine.GameEngine;
 import obscurum.environment.Level;
 import obscurum.items.ConsumableItem;
 import obscurum.items.Equipment;
@@ -36,6 +37,7 @@ public class Player extends Creature {
   private int currentLevel;
   private boolean spawnedExit;
   private boolean godMode;
+  private GameEngine engine;
 
   /**
    * The class constructor. Unlike other creatures, the inventory is generated
@@ -49,6 +51,9 @@ public class Player extends Creature {
         lineOfSight, inventorySize, MAX_RANGE, health, mana, armour, strength,
         agility, stamina, spirit, intellect);
     inSubScreen = false;
+    // Set by the play screen as it scrolls, but needed to place sub screens
+    // even when no screen displays the game.
+    screenLocation = new Point();
     combatLog = new ArrayList<String>();
     experience = 0;
     experienceToLevel = 10;
@@ -119,6 +124,15 @@ public class Player extends Creature {
     return world;
   }
 
+  /**
+   * Gets the engine running the player's game, through which screens carry
+   * out the player's actions.
+   * @return
+   */
+  public GameEngine getEngine() {
+    return engine;
+  }
+
   public SubScreen getSubScreen() {
     return subScreen;
   }
@@ -135,6 +149,10 @@ public class Player extends Creature {
     this.inSubScreen = inSubScreen;
   }
 
+  public void setEngine(GameEngine engine) {
+    this.engine = engine;
+  }
+
   public void setSubScreen(SubScreen subScreen) {
     this.subScreen = subScreen;
   }
@@ -235,7 +253,7 @@ public class Player extends Creature {
     Item newItem = slot.getItem();
 
     slot.clear();
-    if (!oldItem.isOfType(new NullEquipment())) {
+    if (!(oldItem instanceof NullEquipment)) {
       unequip(slotIndex);
     }
     equipment.setEquipment(newItem, slotIndex);
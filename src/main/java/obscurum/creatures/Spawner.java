@@ -12,6 +12,7 @@ import obscurum.display.Display;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.factories.CreatureFactory;
+import obscurum.util.Metrics;
 
 /**
  * This models a spawner, i.e. an invulnerable creature that constantly creates
@@ -19,11 +20,12 @@ import obscurum.factories.CreatureFactory;
  * @author Alex Ghita
  */
 public class Spawner extends Creature {
+  // The number of turns between spawns.
+  public static final int SPAWN_INTERVAL = 10;
   private ArrayList<String> creatures;
   private ArrayList<Creature> spawnedCreatures;
   private int creaturePowerLevel;
   private int maxCreatureCount;
-  private int spawnCounter;
   private CreatureFactory factory;
   private HashMap<String, AIStatistics> stats;
 
@@ -39,7 +41,6 @@ public class Spawner extends Creature {
     this.factory = factory;
     ai = new IdleAI(this, CreatureAI.OMNISCIENT);
     spawnedCreatures = new ArrayList<Creature>();
-    spawnCounter = 0;
 
     stats = new HashMap<String, AIStatistics>();
     String[] aiNames = {"Aggressive", "Hit And Run", "Idle", "Passive",
@@ -50,12 +51,25 @@ public class Spawner extends Creature {
     }
   }
 
-  public void update() {
-    if (spawnCounter == 0 && spawnedCreatures.size() < maxCreatureCount) {
-      spawnCreature();
-    }
-    spawnCounter = (spawnCounter + 1) % 10;
+  /**
+   * Runs when the spawner is due on its level's scheduler, which is once
+   * every SPAWN_INTERVAL turns.
+   */
+  @Override
+  protected void act() {
+    long start = Metrics.start();
+    update();
+    Metrics.end(Metrics.SPAWN, start);
+    level.getScheduler().schedule(turnEvent,
+        (long)Level.TURN_LENGTH * SPAWN_INTERVAL);
+  }
 
+  /**
+   * Records the statistics of the spawned creatures that have died, then
+   * spawns a new one if there is room.
+   */
+  @Override
+  public void update() {
     for (int i = spawnedCreatures.size() - 1; i >= 0; i--) {
       if (!spawnedCreatures.get(i).isAlive()) {
         Creature c = spawnedCreatures.get(i);
@@ -70,6 +84,9 @@ public class Spawner extends Creature {
         spawnedCreatures.remove(i);
       }
     }
+    if (spawnedCreatures.size() < maxCreatureCount) {
+      spawnCreature();
+    }
   }
 
   private void spawnCreature() {
@@ -95,16 +112,17 @@ public class Spawner extends Creature {
 
     for (int x = -2; x <= 2; x++) {
       for (int y = -2; y <= 2; y++) {
-        Point test = new Point(location.x + x, location.y + y);
-        if (!level.isInBounds(test) ||
-            !level.isForegroundOfType(test, new EmptyTile())) {
+        int testX = location.x + x;
+        int testY = location.y + y;
+        if (!level.isInBounds(testX, testY) ||
+            !level.isForegroundOfType(testX, testY, EmptyTile.class)) {
           continue;
         }
-        locations.add(test);
+        locations.add(new Point(testX, testY));
       }
     }
-    String creature = creatures.get((int)(Math.random() * creatures.size()));
-    Point spawnPoint = locations.get((int)(Math.random() * locations.size()));
+    String creature = creatures.get(random.nextInt(creatures.size()));
+    Point spawnPoint = locations.get(random.nextInt(locations.size()));
     Creature c;
 
     switch (creature) {
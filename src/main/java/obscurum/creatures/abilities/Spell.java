@@ -17,7 +17,9 @@ public abstract class Spell {
   protected int manaCost;
   protected int maxRange;
   protected int cooldown;
-  protected int currentCooldown;
+  // The caster's action count at which the spell can be cast again.
+  protected long readyAt;
+  protected Creature caster;
   protected int spellType;
 
   public Spell(String name, int level, int maxLevel, int manaCost,
@@ -28,7 +30,8 @@ public abstract class Spell {
     this.manaCost = manaCost;
     this.maxRange = maxRange;
     this.cooldown = cooldown;
-    this.currentCooldown = 0;
+    this.readyAt = 0;
+    this.caster = null;
     this.spellType = spellType;
   }
 
@@ -52,8 +55,25 @@ public abstract class Spell {
     return cooldown;
   }
 
+  /**
+   * Gets the number of its caster's actions left until the spell can be cast
+   * again.
+   * @return
+   */
   public int getCurrentCooldown() {
-    return currentCooldown;
+    if (caster == null) {
+      return 0;
+    }
+    return (int)Math.max(0, readyAt - caster.getActionCount());
+  }
+
+  /**
+   * Sets the creature that knows the spell, whose actions its cooldown is
+   * counted in.
+   * @param caster
+   */
+  public void setCaster(Creature caster) {
+    this.caster = caster;
   }
 
   public int getSpellType() {
@@ -73,7 +93,7 @@ public abstract class Spell {
   }
 
   public boolean inCooldown() {
-    if (currentCooldown > 0) {
+    if (getCurrentCooldown() > 0) {
       return true;
     }
     return false;
@@ -83,14 +103,10 @@ public abstract class Spell {
     return level == maxLevel;
   }
 
-  public void refresh() {
-    if (currentCooldown > 0) {
-      currentCooldown--;
-    }
-  }
-
   public void cast(Creature c, int casterSpellPower) {
-    currentCooldown = cooldown;
+    if (caster != null) {
+      readyAt = caster.getActionCount() + cooldown;
+    }
     affect(c, casterSpellPower);
     combatLogMessage = "You've cast " + name + " on " + c.getName() + ". " +
         getEffectMessage(c);
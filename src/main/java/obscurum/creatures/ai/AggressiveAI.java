@@ -9,6 +9,7 @@ import obscurum.creatures.ai.CreatureAI;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
+import obscurum.placeholders.NullCreature;
 
 /**
  * This models an AI which chases the player whenever in sight.
@@ -25,50 +26,34 @@ public class AggressiveAI extends CreatureAI{
 
   @Override
   public void onEnter(Point p) {
-    if (creature.getLevel().isForegroundOfType(p, new EmptyTile())) {
+    if (creature.getLevel().isForegroundOfType(p, EmptyTile.class)) {
       creature.move(p);
     }
   }
 
   @Override
-  public void onUpdate() {
-    super.onUpdate();
+  protected void onDecide() {
+    Creature player = findPlayer();
+    boolean foundPlayer = !(player instanceof NullCreature);
 
-    ArrayList<Point> seenPoints = getSeenPoints();
-    boolean foundPlayer = false;
-
-    for (Point p : seenPoints) {
-      // Check if it's the player.
-      if (creature.getLevel().getForegroundTile(p).getName().equals(
-          "Player")) {
-        creature.setTarget((Creature)
-            (creature.getLevel().getForegroundTile(p)));
-        foundPlayer = true;
-        break;
-      }
+    if (foundPlayer) {
+      creature.setTarget(player);
     }
     if (foundPlayer) {
       Point targetLocation = creature.getTarget().getLocation();
       // Check if the player is in the creature's attack range.
       if (canSee(targetLocation, creature.getAttackRange())) {
-        creature.attackTarget();
+        intendAttack();
       // Only trace the player every other turn.
-      } else if (!tracedLastTime || Math.random() > 0.5) {
+      } else if (!tracedLastTime || creature.getRandom().nextDouble() > 0.5) {
         tracedLastTime = true;
 
-        ArrayList<Point> steps = getShortestPathTo(targetLocation);
-
-        if (steps.size() > 1) {
-          Point nextStep = steps.get(steps.size() - 2);
-          creature.moveBy(nextStep.x - creature.getLocation().x,
-              nextStep.y - creature.getLocation().y);
-        }
+        intendStepDownhill(creature.getLevel().getDistancesToPlayer());
       } else {
         tracedLastTime = false;
-        // moveInRandomDirection();
       }
     } else {
-      moveInRandomDirection();
+      intendRandomStep();
     }
   }
 }
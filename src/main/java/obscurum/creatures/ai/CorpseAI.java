@@ -6,35 +6,44 @@ import obscurum.creatures.Creature;
 import obscurum.creatures.ai.CreatureAI;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.ForegroundTile;
+import obscurum.util.Scheduler;
 
 /**
  * This models the behaviour of dead creatures.
  * @author Alex Ghita
  */
 public class CorpseAI extends CreatureAI {
-  private int turnsLeft;
-
   public CorpseAI(Creature creature) {
     super("Corpse", creature, CreatureAI.SIMPLE,
         new ArrayList<ForegroundTile>());
-    turnsLeft = 50;
   }
 
+  /**
+   * Gets the number of turns left until the corpse decays.
+   * @return
+   */
   public int getTurnsLeft() {
-    return turnsLeft;
+    Scheduler.Event decay = creature.getTurnEvent();
+    if (!decay.isScheduled()) {
+      return 0;
+    }
+    long ticksLeft = decay.getTime() -
+        creature.getLevel().getScheduler().getTime();
+    return (int)((ticksLeft + Level.TURN_LENGTH - 1) / Level.TURN_LENGTH);
   }
 
-  @Override
-  public void onEnter(Point p) {}
-
-  @Override
-  public void onUpdate() {
-    while (creature.getCombatCooldown() > 0) {
-      creature.decrementCombatCooldown();
-    }
-    if (creature.getInventory().countFilledSlots() == 0) {
-      turnsLeft = Math.min(10, turnsLeft);
+  /**
+   * Shortens the time left until the corpse decays once it has been emptied.
+   */
+  public void onLooted() {
+    if (creature.getInventory().countFilledSlots() > 0 ||
+        getTurnsLeft() <= Creature.LOOTED_CORPSE_DECAY_TURNS) {
+      return;
     }
-    turnsLeft--;
+    creature.getLevel().getScheduler().schedule(creature.getTurnEvent(),
+        (long)Level.TURN_LENGTH * Creature.LOOTED_CORPSE_DECAY_TURNS);
   }
+
+  @Override
+  public void onEnter(Point p) {}
 }
@@ -2,19 +2,17 @@ package obscurum.creatures.ai;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.PriorityQueue;
 import obscurum.creatures.Creature;
-import obscurum.creatures.util.Line;
-import obscurum.creatures.abilities.Spell;
+import obscurum.creatures.util.DistanceMap;
+import obscurum.creatures.util.FieldOfView;
+import obscurum.creatures.util.PathFinder;
 import obscurum.display.Display;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
 import obscurum.placeholders.NullCreature;
-import obscurum.util.PathTileData;
-import obscurum.util.PriorityComparator;
+import obscurum.util.Metrics;
+import obscurum.util.Rng;
 
 /**
  * This models a creature's behaviour.
@@ -24,10 +22,22 @@ public abstract class CreatureAI {
   public static final int SIMPLE = 0;
   public static final int LEARNING = 1;
   public static final int OMNISCIENT = 2;
+  // What a creature can decide to do on its next update.
+  public static final int WAIT = 0;
+  public static final int MOVE = 1;
+  public static final int ATTACK = 2;
+  public static final int TELEPORT = 3;
   protected String name;
   protected Creature creature;
   protected int knowledgeType;
   protected ArrayList<ForegroundTile> transparentTiles;
+  // What the creature sees within its line of sight, and without any limit.
+  private final FieldOfView fieldOfView;
+  private FieldOfView unlimitedFieldOfView;
+  // The action decided on for the next update, and the tile it is aimed at.
+  private int intent;
+  private long intentLocation;
+  private boolean decided;
 
   /**
    * Class constructor specifying the creature to which this AI is assigned to.
@@ -52,6 +62,9 @@ public abstract class CreatureAI {
     this.creature = creature;
     this.knowledgeType = knowledgeType;
     this.transparentTiles = transparentTiles;
+    this.fieldOfView = new FieldOfView(FieldOfView.SHADOWCASTING);
+    this.intent = WAIT;
+    this.decided = false;
     this.creature.setAI(this);
 
     // Uncomment to have enemies coloured by their AI. Used for debugging.
@@ -86,98 +99,264 @@ public abstract class CreatureAI {
     this.knowledgeType = knowledgeType;
   }
 
+  public int getFieldOfViewMode() {
+    return fieldOfView.getMode();
+  }
+
+  /**
+   * Sets how the creature's field of view is computed. For the player, this
+   * also sets how its level's shared view of the player is computed.
+   * @param mode FieldOfView.SHADOWCASTING or FieldOfView.BRESENHAM
+   */
+  public void setFieldOfViewMode(int mode) {
+    fieldOfView.setMode(mode);
+    if (unlimitedFieldOfView != null) {
+      unlimitedFieldOfView.setMode(mode);
+    }
+  }
+
   public boolean canSee(Point target) {
-    return canSee(target, creature.getAttributes()[Creature.LINE_OF_SIGHT]);
+    return canSee(target.x, target.y);
+  }
+
+  public boolean canSee(int x, int y) {
+    return canSee(x, y, creature.getAttributes()[Creature.LINE_OF_SIGHT]);
   }
 
-  // Search in a square around the creature which tiles can be seen.
-  public ArrayList<Point> getSeenPoints() {
-    ArrayList<Point> seenPoints = new ArrayList<Point>();
+  /**
+   * Gets how many locations getSeenPoints() may store, i.e. how large a
+   * buffer it needs.
+   * @return
+   */
+  public int getMaxSeenPoints() {
     if (knowledgeType == OMNISCIENT) {
-      for (int x = 0; x < creature.getLevel().getWidth(); x++) {
-        for (int y = 0; y < creature.getLevel().getHeight(); y++) {
-          seenPoints.add(new Point(x, y));
+      return creature.getLevel().getWidth() * creature.getLevel().getHeight();
+    }
+    int side = 2 * creature.getAttributes()[Creature.LINE_OF_SIGHT] + 1;
+    return side * side;
+  }
+
+  /**
+   * Searches a square around the creature for the tiles it can see, or the
+   * whole level if it is omniscient, and stores their packed locations in
+   * the given buffer.
+   * @param seenPoints a buffer with room for at least getMaxSeenPoints()
+   *        locations
+   * @return the number of locations stored
+   */
+  public int getSeenPoints(long[] seenPoints) {
+    // Check for illegal arguments.
+    if (seenPoints == null || seenPoints.length < getMaxSeenPoints()) {
+      throw new IllegalArgumentException("Seen points buffer must have room " +
+          "for " + getMaxSeenPoints() + " locations.");
+    }
+
+    Level level = creature.getLevel();
+    int count = 0;
+    if (knowledgeType == OMNISCIENT) {
+      for (int x = 0; x < level.getWidth(); x++) {
+        for (int y = 0; y < level.getHeight(); y++) {
+          seenPoints[count++] = Level.pack(x, y);
         }
       }
-      return seenPoints;
+      return count;
     }
     int lineOfSight = creature.getAttributes()[Creature.LINE_OF_SIGHT];
     Point source = creature.getLocation();
-    Point topLeft = new Point(source.x - lineOfSight, source.y - lineOfSight);
-    Point bottomRight = new Point(source.x + lineOfSight,
-        source.y + lineOfSight);
-
-    for (int x = topLeft.x; x <= bottomRight.x; x++) {
-      for (int y = topLeft.y; y <= bottomRight.y; y++) {
-        if (x < 0 || x >= creature.getLevel().getWidth() ||
-            y < 0 || y >= creature.getLevel().getHeight()) {
+
+    for (int x = source.x - lineOfSight; x <= source.x + lineOfSight; x++) {
+      for (int y = source.y - lineOfSight; y <= source.y + lineOfSight; y++) {
+        if (!level.isInBounds(x, y)) {
           continue;
         }
-        if (canSee(new Point(x, y))) {
-          seenPoints.add(new Point(x, y));
+        if (canSee(x, y)) {
+          seenPoints[count++] = Level.pack(x, y);
         }
       }
     }
-    return seenPoints;
+    return count;
+  }
+
+  /**
+   * Checks whether the creature can see the player, or knows where it is if
+   * it is omniscient.
+   * @return the player, or a null creature if the player cannot be seen
+   */
+  public Creature findPlayer() {
+    Creature player = creature.getLevel().getPlayer();
+    if (player instanceof NullCreature ||
+        knowledgeType != OMNISCIENT && !canSee(player.getLocation())) {
+      return NullCreature.INSTANCE;
+    }
+    return player;
   }
 
-  // -1 = infinite
   public boolean canSee(Point target, int maxDistance) {
+    return canSee(target.x, target.y, maxDistance);
+  }
+
+  // -1 = infinite
+  public boolean canSee(int x, int y, int maxDistance) {
     Point source = creature.getLocation();
-    int distance = (source.x - target.x) * (source.x - target.x) +
-        (source.y - target.y) * (source.y - target.y);
-    Line sightRay;
-    ArrayList<Point> linePoints;
+    int distance = (source.x - x) * (source.x - x) +
+        (source.y - y) * (source.y - y);
 
     if (distance > maxDistance * maxDistance && maxDistance != -1) {
       return false;
     }
-    sightRay = new Line(creature.getLocation(), target);
-    sightRay.plotLine();
-    linePoints = sightRay.getPoints();
-    for (Point p : linePoints) {
-      if (creature.getLevel().getForegroundTile(p).isOpaque() &&
-          !p.equals(target) && !p.equals(source)) {
-        return false;
-      }
+    if (!isVisible(x, y, maxDistance)) {
+      return false;
     }
     if (knowledgeType == LEARNING) {
-      ForegroundTile fg = creature.getLevel().getForegroundTile(target);
+      ForegroundTile fg = creature.getLevel().getForegroundTile(x, y);
       fg = fg instanceof Creature && !fg.getName().equals("Treasure Chest") &&
-          !fg.getName().equals("Spawner") ? new EmptyTile() : fg;
-      creature.getExploration().setTile(target, fg,
-          creature.getLevel().getBackgroundTile(target));
+          !fg.getName().equals("Spawner") ? EmptyTile.INSTANCE : fg;
+      creature.getExploration().setTile(x, y, fg,
+          creature.getLevel().getBackgroundTile(x, y));
     }
     return true;
   }
 
   /**
-   * Decides what the creature should do each turn.
+   * Checks whether nothing blocks the creature's sight of the given
+   * coordinates. Whenever the player is involved, either as the one looking
+   * or as the one looked at, the answer is read from the level's shared
+   * player field of view instead of the creature's own, which is computed in
+   * the player's mode.
+   * @param x
+   * @param y
+   * @param maxDistance
+   * @return
+   */
+  private boolean isVisible(int x, int y, int maxDistance) {
+    Level level = creature.getLevel();
+    Creature player = level.getPlayer();
+
+    if (player == creature) {
+      return level.isVisibleToPlayer(x, y);
+    }
+    if (!(player instanceof NullCreature) && player.getLocation().x == x &&
+        player.getLocation().y == y) {
+      return level.isVisibleToPlayer(creature.getLocation());
+    }
+    return getFieldOfView(maxDistance).isVisible(x, y);
+  }
+
+  /**
+   * Gets an up to date field of view which covers the given distance. Sight
+   * within the creature's line of sight is kept separately from unlimited
+   * sight, so that alternating between the two does not recompute either.
+   * @param maxDistance
+   * @return
+   */
+  private FieldOfView getFieldOfView(int maxDistance) {
+    Level level = creature.getLevel();
+    Point source = creature.getLocation();
+    int lineOfSight = creature.getAttributes()[Creature.LINE_OF_SIGHT];
+
+    if (maxDistance != -1 && maxDistance <= lineOfSight) {
+      fieldOfView.compute(level, source.x, source.y, lineOfSight);
+      return fieldOfView;
+    }
+    if (unlimitedFieldOfView == null) {
+      unlimitedFieldOfView = new FieldOfView(fieldOfView.getMode(), true);
+    }
+    unlimitedFieldOfView.compute(level, source.x, source.y, -1);
+    return unlimitedFieldOfView;
+  }
+
+  /**
+   * Works out what the creature will do on its next update, without changing
+   * the level or any other creature. Only the creature's own target and the
+   * AI's own state may change, so creatures that are due at the same time
+   * can decide concurrently while the level stands still. Anything random
+   * draws from the creature's own stream meanwhile.
+   */
+  public final void decide() {
+    long start = Metrics.start();
+    Rng previous = Rng.bind(creature.getRandom());
+    try {
+      intent = WAIT;
+      if (!canSee(creature.getTarget().getLocation())) {
+        creature.setTarget(NullCreature.INSTANCE);
+      }
+      onDecide();
+      decided = true;
+    } finally {
+      Rng.bind(previous);
+      Metrics.end(Metrics.DECISION, getClass(), start);
+    }
+  }
+
+  /**
+   * Decides what the creature should do each turn, through the intend
+   * methods. The creature waits unless told otherwise.
+   */
+  protected void onDecide() {}
+
+  /**
+   * Carries out what the creature has decided to do this turn, deciding
+   * first if it has not done so yet. Creatures that decided at the same time
+   * act one after another, so a move or teleport onto a tile taken in the
+   * meantime is dropped, and so is an attack on a target that has died.
    */
   public void onUpdate() {
+    if (!decided) {
+      decide();
+    }
+    decided = false;
     creature.setAttackTrajectory(null);
     if (creature.getCombatCooldown() == 0) {
       creature.regenerate();
-    } else {
-      creature.decrementCombatCooldown();
-    }
-    for (Spell s : creature.getSpells()) {
-      s.refresh();
     }
-    if (!canSee(creature.getTarget().getLocation())) {
-      creature.setTarget(new NullCreature());
+
+    Level level = creature.getLevel();
+    Point location = creature.getLocation();
+    int x = Level.unpackX(intentLocation);
+    int y = Level.unpackY(intentLocation);
+    switch (intent) {
+      case MOVE:
+        creature.moveBy(x - location.x, y - location.y);
+        break;
+      case TELEPORT:
+        if (level.isInBounds(x, y) &&
+            level.isForegroundOfType(x, y, EmptyTile.class)) {
+          creature.move(x, y);
+        }
+        break;
+      case ATTACK:
+        if (creature.getTarget().isAlive()) {
+          creature.attackTarget();
+        }
+        break;
+      default:
+        break;
     }
   }
 
-  public void moveInRandomDirection() {
+  protected void intendMove(int x, int y) {
+    intent = MOVE;
+    intentLocation = Level.pack(x, y);
+  }
+
+  protected void intendTeleport(int x, int y) {
+    intent = TELEPORT;
+    intentLocation = Level.pack(x, y);
+  }
+
+  protected void intendAttack() {
+    intent = ATTACK;
+  }
+
+  protected void intendRandomStep() {
     int x;
     int y;
 
     do {
-      x = 1 - (int)(Math.random() * 3);
-      y = 1 - (int)(Math.random() * 3);
+      x = 1 - creature.getRandom().nextInt(3);
+      y = 1 - creature.getRandom().nextInt(3);
     } while (x == 0 && y == 0 || x != 0 && y != 0);
-    creature.moveBy(x, y);
+    intendMove(creature.getLocation().x + x, creature.getLocation().y + y);
   }
 
   /**
@@ -187,85 +366,29 @@ public abstract class CreatureAI {
    */
   public abstract void onEnter(Point p);
 
-  protected ArrayList<Point> getShortestPathTo(Point targetLocation) {
-    ArrayList<Point> path = new ArrayList<Point>();
-    Level level = creature.getLevel();
-    Point startLocation = creature.getLocation();
-    Comparator<PathTileData> comparator = new PriorityComparator();
-    PriorityQueue<PathTileData> frontier = new PriorityQueue<PathTileData>(
-        level.getWidth() * level.getHeight(), comparator);
-    int[][] costs = new int[level.getWidth()][level.getHeight()];
-
-    frontier.add(new PathTileData(startLocation, 0));
-    costs[startLocation.x][startLocation.y] = 1;
-
-    PathTileData currentSquare;
-    Point currentLocation;
-    Point testLocation;
-    while (!frontier.isEmpty()) {
-      currentSquare = frontier.remove();
-      currentLocation = currentSquare.getLocation();
-
-      if (currentLocation.equals(targetLocation)) {
-        break;
-      }
-
-      for (int x = -1; x <= 1; x++) {
-        for (int y = -1; y <= 1; y++) {
-          if (x != 0 && y != 0 || x == 0 && y == 0) {
-            continue;
-          }
-
-          testLocation = new Point(currentLocation.x + x,
-              currentLocation.y + y);
-
-          if (!level.isInBounds(testLocation) ||
-              !level.isForegroundOfType(testLocation, new EmptyTile()) &&
-              !(level.getForegroundTile(testLocation) instanceof Creature)) {
-            continue;
-          }
-
-          if (costs[testLocation.x][testLocation.y] == 0 ||
-              costs[testLocation.x][testLocation.y] >
-              costs[currentLocation.x][currentLocation.y] + 1) {
-            costs[testLocation.x][testLocation.y] =
-                costs[currentLocation.x][currentLocation.y] + 1;
-            int priority = costs[testLocation.x][testLocation.y] +
-                Math.abs(testLocation.x - targetLocation.x) +
-                Math.abs(testLocation.y - targetLocation.y);
-            frontier.add(new PathTileData(testLocation, priority));
-          }
-        }
-      }
-    }
+  /**
+   * Decides to move the creature onto its neighbouring tile with the lowest
+   * value on the given distance map, if that is lower than the value of its
+   * own tile.
+   * @param map
+   */
+  protected void intendStepDownhill(DistanceMap map) {
+    Point location = creature.getLocation();
+    long step = map.getNextStep(location.x, location.y);
 
-    // Retrace path.
-    currentLocation = targetLocation;
-    path.add(currentLocation);
-
-    while (costs[currentLocation.x][currentLocation.y] > 1) {
-      ArrayList<Point> nextPoints = new ArrayList<Point>();
-      for (int x = -1; x <= 1; x++) {
-        for (int y = -1; y <= 1; y++) {
-          if (x != 0 && y != 0 || x == 0 && y == 0) {
-            continue;
-          }
-          testLocation = new Point(currentLocation.x + x,
-              currentLocation.y + y);
-          if (!level.isInBounds(testLocation)) {
-            continue;
-          }
-          if (costs[testLocation.x][testLocation.y] ==
-              costs[currentLocation.x][currentLocation.y] - 1) {
-            nextPoints.add(testLocation);
-          }
-        }
-      }
-      currentLocation = nextPoints.get(
-          (int)(Math.random() * nextPoints.size()));
-      path.add(currentLocation);
+    if (step != Level.pack(location.x, location.y)) {
+      intendMove(Level.unpackX(step), Level.unpackY(step));
     }
+  }
 
-    return path;
+  /**
+   * Finds a shortest path from the creature to the given location.
+   * @param targetLocation
+   * @return the steps of the path, which are only valid until the next search
+   */
+  protected PathFinder.Path getShortestPathTo(Point targetLocation) {
+    Point location = creature.getLocation();
+    return PathFinder.get().find(creature.getLevel(), location.x, location.y,
+        targetLocation.x, targetLocation.y);
   }
 }
@@ -9,6 +9,7 @@ import obscurum.creatures.ai.CreatureAI;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
+import obscurum.placeholders.NullCreature;
 
 /**
  * This models an AI which runs away for a few turns after attacking its
@@ -30,80 +31,52 @@ public class HitAndRunAI extends CreatureAI{
 
   @Override
   public void onEnter(Point p) {
-    if (creature.getLevel().isForegroundOfType(p, new EmptyTile())) {
+    if (creature.getLevel().isForegroundOfType(p, EmptyTile.class)) {
       creature.move(p);
     }
   }
 
   @Override
-  public void onUpdate() {
-    super.onUpdate();
+  protected void onDecide() {
+    Creature player = findPlayer();
+    boolean foundPlayer = !(player instanceof NullCreature);
 
-    ArrayList<Point> seenPoints = getSeenPoints();
-    boolean foundPlayer = false;
-
-    for (Point p : seenPoints) {
-      // Check if it's the player.
-      if (creature.getLevel().getForegroundTile(p).getName().equals(
-          "Player")) {
-        creature.setTarget((Creature)
-            (creature.getLevel().getForegroundTile(p)));
-        foundPlayer = true;
-        break;
-      }
+    if (foundPlayer) {
+      creature.setTarget(player);
     }
     if (foundPlayer) {
       Point targetLocation = creature.getTarget().getLocation();
 
       if (hitMode == 0 || creature.getHealth() < previousHealth) {
         if (canSee(targetLocation, creature.getAttackRange())) {
-          creature.attackTarget();
+          intendAttack();
           hitMode = 1;
         } else {
-          ArrayList<Point> steps = getShortestPathTo(targetLocation);
-
-          if (steps.size() > 1) {
-            Point nextStep = steps.get(steps.size() - 2);
-            creature.moveBy(nextStep.x - creature.getLocation().x,
-                nextStep.y - creature.getLocation().y);
-          }
+          intendStepDownhill(creature.getLevel().getDistancesToPlayer());
         }
       } else {
-        ArrayList<Point> steps = getShortestPathTo(targetLocation);
-
-        if (steps.size() > 1) {
-          Point nextStep = steps.get(steps.size() - 2);
-          ArrayList<Point> options = new ArrayList<Point>();
+        // Run away, but only onto empty tiles, so as not to attack anything.
+        Level level = creature.getLevel();
+        Point location = creature.getLocation();
+        long step = level.getFleeMapFromPlayer().getNextStep(location.x,
+            location.y);
 
-          for (int x = -1; x <= 1; x++) {
-            for (int y = -1; y <= 1; y++) {
-              if (x != 0 && y != 0 || x == 0 && y == 0) {
-                continue;
-              }
-              Point test = new Point(creature.getLocation().x + x,
-                  creature.getLocation().y + y);
-              if (!creature.getLevel().isInBounds(test) ||
-                  test.equals(nextStep) ||
-                  !creature.getLevel().isForegroundOfType(test,
-                  new EmptyTile())) {
-                continue;
-              }
-              options.add(test);
-            }
-          }
-          if (!options.isEmpty()) {
-            nextStep = options.get((int)(Math.random() * options.size()));
-
-            creature.moveBy(nextStep.x - creature.getLocation().x,
-                nextStep.y - creature.getLocation().y);
-          }
+        if (step != Level.pack(location.x, location.y) &&
+            level.isForegroundOfType(Level.unpackX(step), Level.unpackY(step),
+            EmptyTile.class)) {
+          intendMove(Level.unpackX(step), Level.unpackY(step));
         }
         hitMode = (hitMode + 1) % 4;
       }
     } else {
-      moveInRandomDirection();
+      intendRandomStep();
       hitMode = 0;
     }
+  }
+
+  @Override
+  public void onUpdate() {
+    super.onUpdate();
     previousHealth = creature.getHealth();
   }
 }
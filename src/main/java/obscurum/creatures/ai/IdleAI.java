@@ -20,9 +20,4 @@ public class IdleAI extends CreatureAI{
 
   @Override
   public void onEnter(Point p) {}
-
-  @Override
-  public void onUpdate() {
-    super.onUpdate();
-  }
 }
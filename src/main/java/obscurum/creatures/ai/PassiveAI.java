@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import obscurum.creatures.Creature;
 import obscurum.creatures.Player;
 import obscurum.creatures.ai.CreatureAI;
+import obscurum.creatures.util.PathFinder;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
@@ -22,43 +23,41 @@ public class PassiveAI extends CreatureAI{
 
   @Override
   public void onEnter(Point p) {
-    if (creature.getLevel().isForegroundOfType(p, new EmptyTile())) {
+    if (creature.getLevel().isForegroundOfType(p, EmptyTile.class)) {
       creature.move(p);
     }
   }
 
   @Override
-  public void onUpdate() {
-    super.onUpdate();
+  protected void onDecide() {
     Creature target = creature.getTarget();
     Level level = creature.getLevel();
 
     for (int x = -1; x <= 1; x++) {
       for (int y = -1 ; y <= 1; y++) {
-        Point test = new Point(creature.getLocation().x + x,
-            creature.getLocation().y + y);
-        if (!level.isInBounds(test) ||
-            !level.getForegroundTile(test).getName().equals("Player")) {
+        int testX = creature.getLocation().x + x;
+        int testY = creature.getLocation().y + y;
+        if (!level.isInBounds(testX, testY) ||
+            !level.getForegroundTile(testX, testY).getName().equals("Player")) {
           continue;
         }
-        creature.setTarget((Creature)(level.getForegroundTile(test)));
+        creature.setTarget((Creature)(level.getForegroundTile(testX, testY)));
       }
     }
 
     if (target.getName().equals("Player")) {
       if (canSee(target.getLocation(), creature.getAttackRange())) {
-        creature.attackTarget();
+        intendAttack();
       } else {
-        ArrayList<Point> steps = getShortestPathTo(target.getLocation());
+        PathFinder.Path steps = getShortestPathTo(target.getLocation());
 
-        if (steps.size() > 1) {
-          Point nextStep = steps.get(steps.size() - 2);
-          creature.moveBy(nextStep.x - creature.getLocation().x,
-              nextStep.y - creature.getLocation().y);
+        if (steps.hasNext()) {
+          long nextStep = steps.nextLong();
+          intendMove(Level.unpackX(nextStep), Level.unpackY(nextStep));
         }
       }
     } else {
-      moveInRandomDirection();
+      intendRandomStep();
     }
   }
 }
@@ -29,18 +29,9 @@ public class PlayerAI extends CreatureAI {
 
   @Override
   public void onEnter(Point p) {
-    if (creature.getLevel().isForegroundOfType(p, new EmptyTile())) {
-      if (creature.getLevel().isBackgroundOfType(p, new DownwardLadder())) {
-        ((Player)creature).setCurrentLevel(((Player)creature).getCurrentLevel()
-            + 1);
-        switchLevels(creature.getLevel(), creature.getLevel().getNext(),
-            creature.getLevel().getNext().getPreviousLocation());
-      } else if (creature.getLevel().isBackgroundOfType(p,
-          new UpwardLadder())) {
-        ((Player)creature).setCurrentLevel(((Player)creature).getCurrentLevel()
-            - 1);
-        switchLevels(creature.getLevel(), creature.getLevel().getPrevious(),
-            creature.getLevel().getPrevious().getNextLocation());
+    if (creature.getLevel().isForegroundOfType(p, EmptyTile.class)) {
+      if (isLadder(p)) {
+        useLadder(p);
       } else if (creature.getLevel().isBackgroundOfType(p, new ExitPortal())) {
         creature.move(p);
         ((Player)creature).setWin();
@@ -64,6 +55,40 @@ public class PlayerAI extends CreatureAI {
     }
   }
 
+  /**
+   * Checks whether there is a ladder at the given location.
+   * @param p
+   * @return
+   */
+  public boolean isLadder(Point p) {
+    return creature.getLevel().isBackgroundOfType(p, DownwardLadder.class) ||
+        creature.getLevel().isBackgroundOfType(p, UpwardLadder.class);
+  }
+
+  /**
+   * Takes the ladder at the given location to the level below or above.
+   * @param p
+   */
+  public void useLadder(Point p) {
+    // Check for illegal arguments.
+    if (!isLadder(p)) {
+      throw new IllegalArgumentException("Location (" + p.x + ", " + p.y +
+          ") must hold a ladder.");
+    }
+
+    if (creature.getLevel().isBackgroundOfType(p, DownwardLadder.class)) {
+      ((Player)creature).setCurrentLevel(((Player)creature).getCurrentLevel()
+          + 1);
+      switchLevels(creature.getLevel(), creature.getLevel().getNext(),
+          creature.getLevel().getNext().getPreviousLocation());
+    } else {
+      ((Player)creature).setCurrentLevel(((Player)creature).getCurrentLevel()
+          - 1);
+      switchLevels(creature.getLevel(), creature.getLevel().getPrevious(),
+          creature.getLevel().getPrevious().getNextLocation());
+    }
+  }
+
   public void aim(int maxRange) {
     ((Player)creature).setSubScreen(
         new RangedAttackAimScreen(((Player)creature).getWorld(),
@@ -89,7 +114,7 @@ public class PlayerAI extends CreatureAI {
    */
   private void switchLevels(Level current, Level next, Point p) {
     creature.getLevel().setForegroundTile(creature.getLocation(),
-        new EmptyTile());
+        EmptyTile.INSTANCE);
     creature.getLevel().remove(creature);
     creature.setLevel(next);
     creature.addExploration(next);
@@ -19,14 +19,13 @@ public class RandomWalkAI extends CreatureAI{
 
   @Override
   public void onEnter(Point p) {
-    if (creature.getLevel().isForegroundOfType(p, new EmptyTile())) {
+    if (creature.getLevel().isForegroundOfType(p, EmptyTile.class)) {
       creature.move(p);
     }
   }
 
   @Override
-  public void onUpdate() {
-    super.onUpdate();
-    moveInRandomDirection();
+  protected void onDecide() {
+    intendRandomStep();
   }
 }
@@ -9,6 +9,7 @@ import obscurum.creatures.ai.CreatureAI;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
+import obscurum.placeholders.NullCreature;
 
 /**
  * This models an AI which teleports near the target if it's out of its attack
@@ -18,71 +19,67 @@ import obscurum.environment.foreground.ForegroundTile;
 public class TeleportAI extends CreatureAI{
   private int teleportCounter;
   private Point oldLocation;
+  // Packed locations around the target, reused between turns.
+  private final long[] teleportPoints;
 
   public TeleportAI(Creature creature, int knowledgeType,
       ArrayList<ForegroundTile> transparentTiles) {
     super("Teleport", creature, knowledgeType, transparentTiles);
     teleportCounter = 0;
     oldLocation = creature.getLocation();
+    teleportPoints = new long[4];
   }
 
   @Override
   public void onEnter(Point p) {
-    if (creature.getLevel().isForegroundOfType(p, new EmptyTile())) {
+    if (creature.getLevel().isForegroundOfType(p, EmptyTile.class)) {
       creature.move(p);
     }
   }
 
   @Override
-  public void onUpdate() {
-    super.onUpdate();
+  protected void onDecide() {
+    Creature player = findPlayer();
+    boolean foundPlayer = !(player instanceof NullCreature);
 
-    ArrayList<Point> seenPoints = getSeenPoints();
-    boolean foundPlayer = false;
-
-    for (Point p : seenPoints) {
-      // Check if it's the player.
-      if (creature.getLevel().getForegroundTile(p).getName().equals(
-          "Player")) {
-        creature.setTarget((Creature)
-            (creature.getLevel().getForegroundTile(p)));
-        foundPlayer = true;
-        break;
-      }
+    if (foundPlayer) {
+      creature.setTarget(player);
     }
     if (foundPlayer && teleportCounter == 0) {
       Point targetLocation = creature.getTarget().getLocation();
       // Check if the player is in the creature's attack range.
       if (canSee(targetLocation, creature.getAttackRange())) {
-        creature.attackTarget();
+        intendAttack();
         teleportCounter = 1;
       } else {
-        ArrayList<Point> teleportPoints = new ArrayList<Point>();
+        int teleportPointCount = 0;
 
         for (int x = -1; x <= 1; x++) {
           for (int y = -1; y <= 1; y++) {
             if (x != 0 && y != 0 || x == 0 && y == 0) {
               continue;
             }
-            Point test = new Point(creature.getTarget().getLocation().x + x,
-                creature.getTarget().getLocation().y + y);
-            if (!creature.getLevel().isInBounds(test) || !creature.getLevel().
-                isForegroundOfType(test, new EmptyTile())) {
+            int testX = targetLocation.x + x;
+            int testY = targetLocation.y + y;
+            if (!creature.getLevel().isInBounds(testX, testY) || !creature.
+                getLevel().isForegroundOfType(testX, testY, EmptyTile.class)) {
               continue;
             }
-            teleportPoints.add(test);
+            teleportPoints[teleportPointCount++] = Level.pack(testX, testY);
           }
         }
-        if (teleportPoints.isEmpty()) {
-          moveInRandomDirection();
+        if (teleportPointCount == 0) {
+          intendRandomStep();
         } else {
+          long teleportPoint = teleportPoints[creature.getRandom().nextInt(
+              teleportPointCount)];
           oldLocation = creature.getLocation();
-          creature.move(teleportPoints.get((int)(Math.random() *
-              teleportPoints.size())));
+          intendTeleport(Level.unpackX(teleportPoint),
+              Level.unpackY(teleportPoint));
         }
       }
     } else {
-      moveInRandomDirection();
+      intendRandomStep();
       teleportCounter = (teleportCounter + 1) % 6;
     }
   }
@@ -0,0 +1,233 @@
+package obscurum.creatures.util;
+
+import java.util.Arrays;
+import obscurum.environment.Level;
+import obscurum.util.IntMinHeap;
+import obscurum.util.Rng;
+
+/**
+ * This stores, for every walkable tile of a level, a value which creatures
+ * can follow downhill one step at a time, also known as a Dijkstra map.
+ * A chasing map holds each tile's walking distance to a goal, so stepping to
+ * the lowest neighbour follows a shortest path to it. A fleeing map is made
+ * from a chasing map by scaling its values past -1 and letting them settle
+ * again, so that stepping downhill leads away from the goal while still
+ * preferring escape routes over dead ends.
+ * A map is only rebuilt when its goal moves or the level's walkable tiles
+ * change, so every creature following it in a turn shares one computation.
+ * @author Alex Ghita
+ */
+public class DistanceMap {
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+  // Fleeing values are in tenths of a step, and start from the chasing
+  // distances times -1.2, so that running further is worth a small detour.
+  private static final int FLEE_STEP = 10;
+  private static final int FLEE_SCALE = -12;
+  private static final int[] STEP_X = {-1, 0, 0, 1};
+  private static final int[] STEP_Y = {0, -1, 1, 0};
+  private Level level;
+  private int goalX;
+  private int goalY;
+  private int revision;
+  // Incremented on every rebuild, so that fleeing maps can tell when the
+  // chasing map they were made from has changed.
+  private int version;
+  private DistanceMap source;
+  private int sourceVersion;
+  // A tile's value only counts if its stamp matches the current generation.
+  private int[] values;
+  private int[] stamps;
+  private int generation;
+  private int[] queue;
+  private IntMinHeap frontier;
+
+  public DistanceMap() {
+    values = new int[0];
+    stamps = new int[0];
+    queue = new int[0];
+    generation = 0;
+    version = 0;
+  }
+
+  /**
+   * Makes this a chasing map towards the given goal, unless it already is one
+   * and the level's walkable tiles have not changed since.
+   * @param level
+   * @param x
+   * @param y
+   */
+  public void computeChase(Level level, int x, int y) {
+    if (source == null && level == this.level && x == goalX && y == goalY &&
+        level.getWalkableRevision() == revision) {
+      return;
+    }
+    this.level = level;
+    this.goalX = x;
+    this.goalY = y;
+    this.revision = level.getWalkableRevision();
+    this.source = null;
+    startBuild();
+
+    if (!level.isInBounds(x, y)) {
+      return;
+    }
+    int height = level.getHeight();
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = x * height + y;
+    set(x * height + y, 0);
+    // Every step costs the same, so a breadth first search settles each tile
+    // the first time it is reached.
+    while (head < tail) {
+      int current = queue[head++];
+      int currentX = current / height;
+      int currentY = current % height;
+
+      for (int i = 0; i < STEP_X.length; i++) {
+        int testX = currentX + STEP_X[i];
+        int testY = currentY + STEP_Y[i];
+        int next = testX * height + testY;
+
+        if (!level.isWalkable(testX, testY) || isSet(next)) {
+          continue;
+        }
+        set(next, values[current] + 1);
+        queue[tail++] = next;
+      }
+    }
+  }
+
+  /**
+   * Makes this a fleeing map from the goal of the given chasing map, unless it
+   * already is one and the chasing map has not changed since.
+   * @param chase
+   */
+  public void computeFlee(DistanceMap chase) {
+    // Check for illegal arguments.
+    if (chase == null || chase.source != null) {
+      throw new IllegalArgumentException("A fleeing map must be made from " +
+          "a chasing map.");
+    }
+
+    if (source == chase && sourceVersion == chase.version) {
+      return;
+    }
+    this.level = chase.level;
+    this.source = chase;
+    this.sourceVersion = chase.version;
+    startBuild();
+    if (level == null) {
+      return;
+    }
+    if (frontier == null) {
+      frontier = new IntMinHeap(64);
+    }
+    frontier.clear();
+
+    int height = level.getHeight();
+    for (int cell = 0; cell < stamps.length; cell++) {
+      if (chase.isSet(cell)) {
+        set(cell, chase.values[cell] * FLEE_SCALE);
+        frontier.add(cell, values[cell]);
+      }
+    }
+    while (!frontier.isEmpty()) {
+      int value = frontier.peekPriority();
+      int current = frontier.remove();
+      if (value > values[current]) {
+        continue;
+      }
+      int currentX = current / height;
+      int currentY = current % height;
+
+      for (int i = 0; i < STEP_X.length; i++) {
+        int testX = currentX + STEP_X[i];
+        int testY = currentY + STEP_Y[i];
+        int next = testX * height + testY;
+
+        if (!level.isInBounds(testX, testY) || !isSet(next) ||
+            values[next] <= value + FLEE_STEP) {
+          continue;
+        }
+        values[next] = value + FLEE_STEP;
+        frontier.add(next, values[next]);
+      }
+    }
+  }
+
+  /**
+   * Gets the value of the tile at the given coordinates.
+   * @param x
+   * @param y
+   * @return the value, or UNREACHABLE if the tile cannot be walked to
+   */
+  public int getValue(int x, int y) {
+    if (level == null || !level.isInBounds(x, y)) {
+      return UNREACHABLE;
+    }
+    int cell = x * level.getHeight() + y;
+    return isSet(cell) ? values[cell] : UNREACHABLE;
+  }
+
+  /**
+   * Picks the neighbour of the given tile with the lowest value, at random if
+   * several are tied, drawing from the calling thread's stream.
+   * @param x
+   * @param y
+   * @return the neighbour's packed location, or the given one if no
+   *     neighbour has a lower value
+   */
+  public long getNextStep(int x, int y) {
+    long step = Level.pack(x, y);
+    int lowest = getValue(x, y);
+    int choices = 0;
+    Rng rng = Rng.current();
+
+    for (int i = 0; i < STEP_X.length; i++) {
+      int testX = x + STEP_X[i];
+      int testY = y + STEP_Y[i];
+      int value = getValue(testX, testY);
+
+      if (value == UNREACHABLE || value > lowest ||
+          value == lowest && choices == 0) {
+        continue;
+      }
+      if (value < lowest) {
+        lowest = value;
+        choices = 0;
+      }
+      // Keep each tied neighbour with equal chance without listing them.
+      if (rng.nextDouble() * ++choices < 1) {
+        step = Level.pack(testX, testY);
+      }
+    }
+    return step;
+  }
+
+  /**
+   * Prepares the buffers for a rebuild over the current level.
+   */
+  private void startBuild() {
+    version++;
+    int cellCount = level == null ? 0 : level.getWidth() * level.getHeight();
+    if (stamps.length != cellCount) {
+      values = new int[cellCount];
+      stamps = new int[cellCount];
+      queue = new int[cellCount];
+      generation = 0;
+    }
+    if (++generation == 0) {
+      Arrays.fill(stamps, 0);
+      generation = 1;
+    }
+  }
+
+  private boolean isSet(int cell) {
+    return stamps[cell] == generation;
+  }
+
+  private void set(int cell, int value) {
+    stamps[cell] = generation;
+    values[cell] = value;
+  }
+}
@@ -0,0 +1,304 @@
+package obscurum.creatures.util;
+
+import java.util.Arrays;
+import obscurum.environment.Level;
+import obscurum.util.Metrics;
+
+/**
+ * This computes which tiles of a level can be seen from a given location, and
+ * keeps the result until the location, the sight radius or the level's opaque
+ * tiles change.
+ * The default mode uses symmetric shadowcasting, which visits each visible
+ * tile once, so a whole field of view costs as much as a single tile check
+ * used to. It is symmetric, i.e. a tile can see another one exactly when the
+ * other one can see it back. The Bresenham mode reproduces the older per-tile
+ * sight ray checks, so that the two can be compared.
+ * Based on Albert Ford's description of symmetric shadowcasting at
+ * https://www.albertford.com/shadowcasting/.
+ * @author Alex Ghita
+ */
+public class FieldOfView {
+  public static final int SHADOWCASTING = 0;
+  public static final int BRESENHAM = 1;
+  // Transforms from quadrant coordinates (depth, column) to level offsets, in
+  // the order north, east, south, west.
+  private static final int[] DEPTH_X = {0, 1, 0, -1};
+  private static final int[] DEPTH_Y = {-1, 0, 1, 0};
+  private static final int[] COLUMN_X = {1, 0, 1, 0};
+  private static final int[] COLUMN_Y = {0, 1, 0, 1};
+  // Scratch stamps shared by the fields of view computed on the same thread
+  // without any limit, for those which do not keep their own.
+  private static final ThreadLocal<Stamps> SHARED_STAMPS =
+      ThreadLocal.withInitial(Stamps::new);
+  private int mode;
+  private Level level;
+  private int originX;
+  private int originY;
+  private int radius;
+  private int revision;
+  private final boolean sharesUnlimitedStamps;
+  private final Stamps ownStamps;
+  // Where the last result is kept, and the generation it was stamped with.
+  private Stamps stamps;
+  private int generation;
+  // The part of the level covered by the stamps, i.e. the square within the
+  // sight radius, or the whole level for unlimited sight.
+  private int windowX;
+  private int windowY;
+  private int windowWidth;
+  private int windowHeight;
+
+  /**
+   * Class constructor specifying the mode. The field of view keeps its own
+   * stamps, so its result can be read from any thread.
+   * @param mode SHADOWCASTING or BRESENHAM
+   */
+  public FieldOfView(int mode) {
+    this(mode, false);
+  }
+
+  /**
+   * Class constructor specifying the mode and where unlimited sight is
+   * stamped. Stamps for a limited sight radius only cover the square around
+   * the origin, but unlimited sight needs one per tile of the level. Fields
+   * of view which share them use one array per thread instead of their own,
+   * so their result must be read on the thread that computed it, before any
+   * other shared field of view is computed there.
+   * @param mode SHADOWCASTING or BRESENHAM
+   * @param sharesUnlimitedStamps
+   */
+  public FieldOfView(int mode, boolean sharesUnlimitedStamps) {
+    setMode(mode);
+    this.sharesUnlimitedStamps = sharesUnlimitedStamps;
+    ownStamps = new Stamps();
+    stamps = ownStamps;
+    generation = 0;
+  }
+
+  public int getMode() {
+    return mode;
+  }
+
+  public void setMode(int mode) {
+    // Check for illegal arguments.
+    if (mode != SHADOWCASTING && mode != BRESENHAM) {
+      throw new IllegalArgumentException("Mode " + mode + " must be " +
+          SHADOWCASTING + " or " + BRESENHAM + ".");
+    }
+
+    if (this.mode != mode) {
+      this.mode = mode;
+      level = null;
+    }
+  }
+
+  /**
+   * Computes the tiles visible from the given location, unless the last
+   * computation was for the same location and radius and no tile of the
+   * level has changed its opacity since.
+   * @param level
+   * @param x
+   * @param y
+   * @param radius the sight radius, or -1 for unlimited sight
+   */
+  public void compute(Level level, int x, int y, int radius) {
+    Stamps target = radius == -1 && sharesUnlimitedStamps ?
+        SHARED_STAMPS.get() : ownStamps;
+    if (level == this.level && x == originX && y == originY &&
+        radius == this.radius && level.getOpacityRevision() == revision &&
+        stamps == target && target.isCurrent(this, generation)) {
+      return;
+    }
+    long start = Metrics.start();
+    this.level = level;
+    this.originX = x;
+    this.originY = y;
+    this.radius = radius;
+    this.revision = level.getOpacityRevision();
+    if (radius == -1) {
+      windowX = 0;
+      windowY = 0;
+      windowWidth = level.getWidth();
+      windowHeight = level.getHeight();
+    } else {
+      windowX = x - radius;
+      windowY = y - radius;
+      windowWidth = 2 * radius + 1;
+      windowHeight = 2 * radius + 1;
+    }
+    stamps = target;
+    generation = target.next(this, windowWidth * windowHeight);
+
+    if (!level.isInBounds(x, y)) {
+      return;
+    }
+    reveal(x, y);
+    if (mode == BRESENHAM) {
+      computeBresenham();
+    } else {
+      for (int quadrant = 0; quadrant < 4; quadrant++) {
+        scan(quadrant, 1, -1, 1, 1, 1);
+      }
+    }
+    Metrics.end(Metrics.FIELD_OF_VIEW, start);
+  }
+
+  /**
+   * Checks whether the tile at the given coordinates was visible in the last
+   * computation.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean isVisible(int x, int y) {
+    return level != null && level.isInBounds(x, y) && x >= windowX &&
+        x < windowX + windowWidth && y >= windowY &&
+        y < windowY + windowHeight && stamps.isCurrent(this, generation) &&
+        stamps.get(index(x, y)) == generation;
+  }
+
+  /**
+   * Scans one row of a quadrant, and recursively the rows behind it. Slopes
+   * are kept as fractions so that no rounding errors creep in.
+   * @param quadrant
+   * @param depth the distance of the row from the origin
+   * @param startNumerator
+   * @param startDenominator
+   * @param endNumerator
+   * @param endDenominator
+   */
+  private void scan(int quadrant, int depth, int startNumerator,
+      int startDenominator, int endNumerator, int endDenominator) {
+    if (radius != -1 && depth > radius) {
+      return;
+    }
+    // Round the row's start up and its end down, with ties towards the row.
+    int minColumn = Math.floorDiv(2 * depth * startNumerator +
+        startDenominator, 2 * startDenominator);
+    int maxColumn = -Math.floorDiv(endDenominator - 2 * depth * endNumerator,
+        2 * endDenominator);
+    int previous = -1; // -1 = none, 0 = floor, 1 = wall
+
+    for (int column = minColumn; column <= maxColumn; column++) {
+      int x = originX + DEPTH_X[quadrant] * depth + COLUMN_X[quadrant] * column;
+      int y = originY + DEPTH_Y[quadrant] * depth + COLUMN_Y[quadrant] * column;
+      int current = level.isOpaque(x, y) ? 1 : 0;
+
+      if (current == 1 || column * startDenominator >= depth * startNumerator &&
+          column * endDenominator <= depth * endNumerator) {
+        reveal(x, y);
+      }
+      if (previous == 1 && current == 0) {
+        startNumerator = 2 * column - 1;
+        startDenominator = 2 * depth;
+      }
+      if (previous == 0 && current == 1) {
+        scan(quadrant, depth + 1, startNumerator, startDenominator,
+            2 * column - 1, 2 * depth);
+      }
+      previous = current;
+    }
+    if (previous == 0) {
+      scan(quadrant, depth + 1, startNumerator, startDenominator, endNumerator,
+          endDenominator);
+    }
+  }
+
+  /**
+   * Checks every tile in range with a sight ray, like creatures used to.
+   */
+  private void computeBresenham() {
+    int minX = 0;
+    int minY = 0;
+    int maxX = level.getWidth() - 1;
+    int maxY = level.getHeight() - 1;
+
+    if (radius != -1) {
+      minX = Math.max(minX, originX - radius);
+      minY = Math.max(minY, originY - radius);
+      maxX = Math.min(maxX, originX + radius);
+      maxY = Math.min(maxY, originY + radius);
+    }
+    for (int x = minX; x <= maxX; x++) {
+      for (int y = minY; y <= maxY; y++) {
+        if (Line.isClear(level, originX, originY, x, y)) {
+          reveal(x, y);
+        }
+      }
+    }
+  }
+
+  /**
+   * Marks the tile at the given coordinates as visible, if it is in bounds
+   * and within the sight radius.
+   * @param x
+   * @param y
+   */
+  private void reveal(int x, int y) {
+    int dx = x - originX;
+    int dy = y - originY;
+    if (!level.isInBounds(x, y) ||
+        radius != -1 && dx * dx + dy * dy > radius * radius) {
+      return;
+    }
+    stamps.set(index(x, y), generation);
+  }
+
+  /**
+   * Gets the index of the stamp of the tile at the given coordinates.
+   * @param x
+   * @param y
+   * @return
+   */
+  private int index(int x, int y) {
+    return (x - windowX) * windowHeight + y - windowY;
+  }
+
+  /**
+   * This holds the stamps of a field of view. A tile is visible if its stamp
+   * matches the current generation, so the previous result never has to be
+   * cleared.
+   */
+  private static final class Stamps {
+    private int[] stamps = new int[0];
+    private int generation = 0;
+    private FieldOfView owner = null;
+
+    /**
+     * Starts a new generation of stamps for the given field of view.
+     * @param owner
+     * @param size the number of stamps needed
+     * @return the new generation
+     */
+    int next(FieldOfView owner, int size) {
+      if (stamps.length < size) {
+        stamps = new int[size];
+        generation = 0;
+      }
+      if (++generation == 0) {
+        Arrays.fill(stamps, 0);
+        generation = 1;
+      }
+      this.owner = owner;
+      return generation;
+    }
+
+    /**
+     * Checks whether the stamps still hold the given field of view's result.
+     * @param owner
+     * @param generation
+     * @return
+     */
+    boolean isCurrent(FieldOfView owner, int generation) {
+      return this.owner == owner && this.generation == generation;
+    }
+
+    int get(int index) {
+      return stamps[index];
+    }
+
+    void set(int index, int generation) {
+      stamps[index] = generation;
+    }
+  }
+}
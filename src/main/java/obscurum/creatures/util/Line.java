@@ -3,6 +3,7 @@ package obscurum.creatures.util;
 import java.awt.Point;
 import java.lang.Math;
 import java.util.ArrayList;
+import obscurum.environment.Level;
 
 /**
  * This models a line based on its start and end point coordinates.
@@ -56,4 +57,43 @@ public class Line {
   public ArrayList<Point> getPoints() {
     return points;
   }
+
+  /**
+   * Checks whether there is a clear line of sight between two locations, i.e.
+   * whether none of the points plotted between them, ends excluded, holds an
+   * opaque foreground tile. This walks the same points as plotLine(), but
+   * without storing them.
+   * @param level
+   * @param x0
+   * @param y0
+   * @param x1
+   * @param y1
+   * @return
+   */
+  public static boolean isClear(Level level, int x0, int y0, int x1, int y1) {
+    int dx = Math.abs(x0 - x1);
+    int dy = Math.abs(y0 - y1);
+    int step_x = x0 < x1 ? 1 : -1;
+    int step_y = y0 < y1 ? 1 : -1;
+    int x = x0;
+    int y = y0;
+    int error = dx - dy;
+    int twice_error;
+
+    while (x != x1 || y != y1) {
+      if ((x != x0 || y != y0) && level.isOpaque(x, y)) {
+        return false;
+      }
+      twice_error = 2 * error;
+      if (twice_error > -dx) {
+        error -= dy;
+        x += step_x;
+      }
+      if (twice_error < dx) {
+        error += dx;
+        y += step_y;
+      }
+    }
+    return true;
+  }
 }
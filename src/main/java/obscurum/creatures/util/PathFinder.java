@@ -0,0 +1,239 @@
+package obscurum.creatures.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import obscurum.environment.Level;
+import obscurum.util.IntMinHeap;
+import obscurum.util.Metrics;
+import obscurum.util.Rng;
+
+/**
+ * This finds shortest paths between level tiles with the A* algorithm.
+ * Creatures may walk on empty tiles and on tiles taken by other creatures, and
+ * only move horizontally or vertically. Searches for targets which cannot be
+ * reached end straight away, by comparing the level's walkable regions.
+ * Each thread gets its own finder, whose buffers are sized to the largest
+ * level seen so far and reused by every search, so searching does not
+ * allocate. A tile's cost only counts for the current search if its stamp
+ * matches the search's generation, so the buffers never need clearing.
+ * @author Alex Ghita
+ */
+public class PathFinder {
+  private static final ThreadLocal<PathFinder> FINDERS =
+      ThreadLocal.withInitial(PathFinder::new);
+  private static final int[] STEP_X = {-1, 0, 0, 1};
+  private static final int[] STEP_Y = {0, -1, 1, 0};
+  private int[] costs;
+  private int[] stamps;
+  private int generation;
+  private final IntMinHeap frontier;
+  private final Path path;
+
+  private PathFinder() {
+    costs = new int[0];
+    stamps = new int[0];
+    generation = 0;
+    frontier = new IntMinHeap(64);
+    path = new Path();
+  }
+
+  /**
+   * Gets the path finder of the calling thread.
+   * @return
+   */
+  public static PathFinder get() {
+    return FINDERS.get();
+  }
+
+  /**
+   * Finds a shortest path between the given locations. When several paths
+   * are equally short, one of them is picked at random, drawing from the
+   * calling thread's stream.
+   * The returned path is reused by the next search on the same thread, so it
+   * should be consumed before searching again.
+   * @param level
+   * @param startX
+   * @param startY
+   * @param targetX
+   * @param targetY
+   * @return the steps after the start location, ending with the target, or
+   *     no steps if the target cannot be reached
+   */
+  public Path find(Level level, int startX, int startY, int targetX,
+      int targetY) {
+    long startTime = Metrics.start();
+    int height = level.getHeight();
+    int expanded = 0;
+
+    startSearch(level.getWidth() * height);
+    path.clear(level);
+    // A target in another region would only be given up on once every tile
+    // reachable from the start had been expanded.
+    if (!level.isReachable(startX, startY, targetX, targetY)) {
+      Metrics.endPath(startTime, expanded, 0);
+      return path;
+    }
+
+    int start = startX * height + startY;
+    int target = targetX * height + targetY;
+    visit(start, 1);
+    frontier.add(start, 0);
+
+    while (!frontier.isEmpty()) {
+      int priority = frontier.peekPriority();
+      int current = frontier.remove();
+      int x = current / height;
+      int y = current % height;
+
+      if (current == target) {
+        break;
+      }
+      // Skip entries left behind when a cheaper way to the tile was found.
+      if (priority > costs[current] + Math.abs(x - targetX) +
+          Math.abs(y - targetY)) {
+        continue;
+      }
+      expanded++;
+
+      for (int i = 0; i < STEP_X.length; i++) {
+        int testX = x + STEP_X[i];
+        int testY = y + STEP_Y[i];
+
+        if (!level.isWalkable(testX, testY)) {
+          continue;
+        }
+
+        int next = testX * height + testY;
+        if (!isVisited(next) || costs[next] > costs[current] + 1) {
+          visit(next, costs[current] + 1);
+          frontier.add(next, costs[next] + Math.abs(testX - targetX) +
+              Math.abs(testY - targetY));
+        }
+      }
+    }
+
+    if (isVisited(target)) {
+      retrace(level, target);
+    }
+    Metrics.endPath(startTime, expanded, path.length());
+    return path;
+  }
+
+  /**
+   * Fills in the path by walking back from the target to the start, each
+   * time onto a random neighbour one step closer to the start.
+   * @param level
+   * @param target
+   */
+  private void retrace(Level level, int target) {
+    int height = level.getHeight();
+    int current = target;
+    Rng rng = Rng.current();
+
+    path.setLength(costs[target] - 1);
+    for (int i = costs[target] - 2; i >= 0; i--) {
+      path.cells[i] = current;
+
+      int x = current / height;
+      int y = current % height;
+      int choices = 0;
+      int previous = current;
+      for (int j = 0; j < STEP_X.length; j++) {
+        int testX = x + STEP_X[j];
+        int testY = y + STEP_Y[j];
+        int test = testX * height + testY;
+
+        if (!level.isInBounds(testX, testY) || !isVisited(test) ||
+            costs[test] != costs[current] - 1) {
+          continue;
+        }
+        // Keep each candidate with equal chance without listing them.
+        if (rng.nextDouble() * ++choices < 1) {
+          previous = test;
+        }
+      }
+      current = previous;
+    }
+  }
+
+  /**
+   * Prepares the buffers for a new search over the given number of tiles.
+   * @param cellCount
+   */
+  private void startSearch(int cellCount) {
+    if (stamps.length < cellCount) {
+      costs = new int[cellCount];
+      stamps = new int[cellCount];
+      generation = 0;
+    }
+    if (++generation == 0) {
+      Arrays.fill(stamps, 0);
+      generation = 1;
+    }
+    frontier.clear();
+  }
+
+  private boolean isVisited(int cell) {
+    return stamps[cell] == generation;
+  }
+
+  private void visit(int cell, int cost) {
+    stamps[cell] = generation;
+    costs[cell] = cost;
+  }
+
+  /**
+   * This models the result of a search, i.e. the steps of a path as packed
+   * level locations. It is owned and reused by its path finder.
+   */
+  public static final class Path implements PrimitiveIterator.OfLong {
+    private int[] cells;
+    private int length;
+    private int position;
+    private int height;
+
+    private Path() {
+      cells = new int[16];
+    }
+
+    /**
+     * Gets the number of steps in the path.
+     * @return
+     */
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < length;
+    }
+
+    /**
+     * Gets the next step of the path.
+     * @return the step's location, packed as by Level.pack()
+     */
+    @Override
+    public long nextLong() {
+      if (position == length) {
+        throw new NoSuchElementException("Path has no more steps.");
+      }
+      int cell = cells[position++];
+      return Level.pack(cell / height, cell % height);
+    }
+
+    private void clear(Level level) {
+      height = level.getHeight();
+      length = 0;
+      position = 0;
+    }
+
+    private void setLength(int length) {
+      if (cells.length < length) {
+        cells = new int[Math.max(length, cells.length * 2)];
+      }
+      this.length = length;
+    }
+  }
+}
@@ -5,8 +5,8 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.awt.Color;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE) @Getter
 public class DisplayColour {
@@ -29,8 +29,13 @@ public class DisplayColour {
     public static final DisplayColour BRIGHT_CYAN = new DisplayColour("Bright Cyan", new Color(0, 255, 255));
     public static final DisplayColour BRIGHT_WHITE = new DisplayColour("Bright White", new Color(255, 255, 255));
 
+    // Wrappers handed out by fromColor, so that drawing a tile does not allocate one per cell.
+    private static final Map<Color, DisplayColour> WRAPPED = new ConcurrentHashMap<>();
+
     private final String name;
     private final Color colour;
+    // Looked up on first use, since the constructor is generated.
+    private int paletteId = -1;
 
     public static DisplayColour fromRgb(String name, int red, int green, int blue) {
         return new DisplayColour(name, new Color(red, green, blue));
@@ -41,10 +46,13 @@ public class DisplayColour {
     }
 
     public static DisplayColour fromColor(Color color) {
-        return new DisplayColour("", color);
+        return WRAPPED.computeIfAbsent(color, c -> new DisplayColour("", c));
     }
 
-    public List<Integer> getComponents() {
-        return Arrays.asList(colour.getRed(), colour.getGreen(), colour.getBlue(), colour.getAlpha());
+    public int getPaletteId() {
+        if (paletteId == -1) {
+            paletteId = Palette.idOf(colour);
+        }
+        return paletteId;
     }
 }
@@ -0,0 +1,68 @@
+package obscurum.display;
+
+import java.util.Arrays;
+
+/**
+ * A layer of highlighted cells drawn over a view for one frame, e.g. attack trajectories or an aim line. Each
+ * highlighted cell has a background colour, given as a palette id, and a cell marked more than once keeps the colour
+ * it was marked with last. Marks are kept in a bitset, so clearing the layer every frame is cheap, and a view checks
+ * each of its cells with a single bit test while it draws them.
+ */
+public class Overlay {
+    private final int width;
+    private final int height;
+    // The cell at (x, y) is bit y * width + x.
+    private final long[] marked;
+    private final int[] colourIds;
+
+    public Overlay(int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException(String.format("Size must be at least 1x1, but %dx%d provided", width, height));
+        }
+
+        this.width = width;
+        this.height = height;
+        this.marked = new long[(width * height + Long.SIZE - 1) / Long.SIZE];
+        this.colourIds = new int[width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Removes every mark.
+     */
+    public void clear() {
+        Arrays.fill(marked, 0);
+    }
+
+    /**
+     * Highlights the cell at the given coordinates, if they are inside the layer.
+     * @param colourId the palette id of the highlight's background colour
+     */
+    public void mark(int x, int y, int colourId) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int cell = y * width + x;
+        marked[cell >>> 6] |= 1L << cell;
+        colourIds[cell] = colourId;
+    }
+
+    public boolean isMarked(int x, int y) {
+        int cell = y * width + x;
+        return (marked[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Gets the palette id of the highlight at the given coordinates, which is only meaningful if the cell is marked.
+     */
+    public int getColourId(int x, int y) {
+        return colourIds[y * width + x];
+    }
+}
@@ -0,0 +1,108 @@
+package obscurum.display;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A registry of every colour the game draws with, each under a small integer id, so that cells can carry colours as
+ * plain ints. Tiles and display colours look their ids up once, when their colours are set, and drawing then only
+ * indexes arrays. Shade variants, e.g. the dimmed colours of remembered tiles, are worked out once per colour and
+ * kept alongside it.
+ * Colours are never unregistered, which is fine since the game only uses a few hundred.
+ */
+public final class Palette {
+    public static final int NORMAL = 0;
+    // Three times darker, as remembered tiles are drawn.
+    public static final int REMEMBERED = 1;
+    private static final int NUM_OF_SHADES = 2;
+    private static final int NO_SHADE = -1;
+
+    private static final Map<Integer, Integer> IDS = new HashMap<>();
+    // Never written to once published, but replaced by an updated copy whenever a colour or shade is registered, so
+    // that drawing can read it without locking.
+    private static volatile Table table = new Table(new int[64], new int[NUM_OF_SHADES][64]);
+    private static int size = 0;
+
+    private Palette() {}
+
+    /**
+     * Gets the id of the given colour, registering it if it is new.
+     */
+    public static int idOf(Color colour) {
+        return idOf(colour.getRGB());
+    }
+
+    /**
+     * Gets the id of the given ARGB colour, registering it if it is new.
+     */
+    public static synchronized int idOf(int argb) {
+        Integer id = IDS.get(argb);
+        if (id != null) {
+            return id;
+        }
+
+        int capacity = table.colours.length;
+        Table updated = table.copy(size == capacity ? capacity * 2 : capacity);
+        updated.colours[size] = argb;
+        updated.shades[NORMAL][size] = size;
+        updated.shades[REMEMBERED][size] = NO_SHADE;
+        table = updated;
+        IDS.put(argb, size);
+        return size++;
+    }
+
+    /**
+     * Gets the ARGB value of the colour with the given id.
+     */
+    public static int getArgb(int id) {
+        return table.colours[id];
+    }
+
+    /**
+     * Gets the id of the given shade of the colour with the given id.
+     * @param shade NORMAL or REMEMBERED
+     */
+    public static int getShade(int id, int shade) {
+        if (shade < NORMAL || shade >= NUM_OF_SHADES) {
+            throw new IllegalArgumentException("Shade " + shade + " must be " + NORMAL + " or " + REMEMBERED + ".");
+        }
+
+        int shadeId = table.shades[shade][id];
+        return shadeId == NO_SHADE ? registerShade(id, shade) : shadeId;
+    }
+
+    private static synchronized int registerShade(int id, int shade) {
+        if (table.shades[shade][id] != NO_SHADE) {
+            return table.shades[shade][id];
+        }
+        Color colour = new Color(table.colours[id], true);
+        int shadeId = idOf(colour.darker().darker().darker());
+        Table updated = table.copy(table.colours.length);
+        updated.shades[shade][id] = shadeId;
+        table = updated;
+        return shadeId;
+    }
+
+    /**
+     * The registered colours and the ids of their shades, indexed by id.
+     */
+    private static final class Table {
+        private final int[] colours;
+        private final int[][] shades;
+
+        private Table(int[] colours, int[][] shades) {
+            this.colours = colours;
+            this.shades = shades;
+        }
+
+        private Table copy(int capacity) {
+            int[][] copiedShades = new int[NUM_OF_SHADES][];
+            for (int i = 0; i < NUM_OF_SHADES; i++) {
+                copiedShades[i] = Arrays.copyOf(shades[i], capacity);
+            }
+            return new Table(Arrays.copyOf(colours, capacity), copiedShades);
+        }
+    }
+}
@@ -1,20 +1,25 @@
 package obscurum.display.terminal;
 
 import lombok.NonNull;
-import obscurum.display.DisplayCharacter;
 import obscurum.display.DisplayColour;
-import obscurum.display.DisplayTile;
+import obscurum.display.Palette;
+import obscurum.util.Metrics;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.ByteLookupTable;
-import java.awt.image.LookupOp;
+import java.awt.image.DataBufferInt;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.swing.JPanel;
 
+/**
+ * A terminal of glyph cells, each with a foreground and a background colour. Cells are kept in flat arrays, in rows,
+ * and painted by blitting each glyph straight into the pixels of an offscreen image, so painting a frame allocates
+ * nothing.
+ * Writes go to a back buffer, and the cells as last painted are kept in a front buffer. Only cells whose glyph or
+ * colours differ between the two are blitted and handed to Swing to repaint, so redrawing a whole screen in which
+ * little has changed, e.g. after a step, repaints only a handful of cells.
+ */
 public class AsciiPanel extends JPanel {
     public static final int NUM_OF_GLYPHS = 256;
 
@@ -27,11 +32,23 @@ public class AsciiPanel extends JPanel {
     private final DisplayColour defaultBackgroundColor;
     private final DisplayColour defaultForegroundColor;
 
-    private Image offscreenBuffer;
-    private Graphics offscreenGraphics;
+    private BufferedImage offscreenBuffer;
+    private int[] offscreenPixels;
     private final Point cursor = new Point(0, 0);
     private final List<BufferedImage> glyphs;
-    private final Map<Point, DisplayTile> display;
+    // For each glyph, one mask per pixel which has a channel set to 0xff wherever the glyph's channel is lit, so that a
+    // tinted pixel is (foreground & mask) | (background & ~mask).
+    private final int[][] glyphMasks;
+    // The cell at (x, y) is at index y * widthInCharacters + x. Colours are kept as palette ids.
+    private final char[] characters;
+    private final int[] foregrounds;
+    private final int[] backgrounds;
+    private final char[] paintedCharacters;
+    private final int[] paintedForegrounds;
+    private final int[] paintedBackgrounds;
+    // The columns of each row which may differ from what was last painted, from (inclusive) and to (exclusive).
+    private final int[] dirtyFrom;
+    private final int[] dirtyTo;
 
     private int lastMultilineY;
 
@@ -59,13 +76,36 @@ public class AsciiPanel extends JPanel {
         this.defaultForegroundColor = defaultForegroundColor;
         setPreferredSize(panelSize);
 
-        this.display = new HashMap<>();
-
-        for (int x = 0; x < this.widthInCharacters; x++) {
-            for (int y = 0; y < this.heightInCharacters; y++) {
-                this.display.put(new Point(x, y), new DisplayTile(DisplayCharacter.SPACE, this.defaultForegroundColor, this.defaultBackgroundColor));
+        this.glyphMasks = new int[glyphs.size()][];
+        for (int i = 0; i < glyphs.size(); i++) {
+            glyphMasks[i] = glyphs.get(i).getRGB(0, 0, GLYPH_WIDTH_IN_PIXELS, GLYPH_HEIGHT_IN_PIXELS, null, 0, GLYPH_WIDTH_IN_PIXELS);
+            for (int j = 0; j < glyphMasks[i].length; j++) {
+                int pixel = glyphMasks[i][j];
+                int mask = 0;
+                for (int shift = 0; shift < 32; shift += 8) {
+                    if ((pixel >>> shift & 0xff) != 0) {
+                        mask |= 0xff << shift;
+                    }
+                }
+                glyphMasks[i][j] = mask;
             }
         }
+
+        int cellCount = widthInCharacters * heightInCharacters;
+        this.characters = new char[cellCount];
+        this.foregrounds = new int[cellCount];
+        this.backgrounds = new int[cellCount];
+        Arrays.fill(characters, ' ');
+        Arrays.fill(foregrounds, defaultForegroundColor.getPaletteId());
+        Arrays.fill(backgrounds, defaultBackgroundColor.getPaletteId());
+        // Nothing has been painted yet, which no glyph matches.
+        this.paintedCharacters = new char[cellCount];
+        this.paintedForegrounds = new int[cellCount];
+        this.paintedBackgrounds = new int[cellCount];
+        Arrays.fill(paintedCharacters, Character.MAX_VALUE);
+        this.dirtyFrom = new int[heightInCharacters];
+        this.dirtyTo = new int[heightInCharacters];
+        Arrays.fill(dirtyTo, widthInCharacters);
     }
 
     @Override
@@ -75,32 +115,111 @@ public class AsciiPanel extends JPanel {
 
     @Override
     public void paint(@NonNull Graphics g) {
+        long start = Metrics.start();
         if (offscreenBuffer == null) {
-            offscreenBuffer = createImage(this.getWidth(), this.getHeight());
-            offscreenGraphics = offscreenBuffer.getGraphics();
+            // A plain image rather than createImage(), which needs the panel to be on screen, so the panel
+            // can also be painted offscreen.
+            offscreenBuffer = new BufferedImage(this.getWidth(), this.getHeight(), BufferedImage.TYPE_INT_RGB);
+            offscreenPixels = ((DataBufferInt) offscreenBuffer.getRaster().getDataBuffer()).getData();
         }
 
-        display.forEach((point, tile) -> {
-            LookupOp lookupOp = getLookupOp(tile.getBackgroundColour(), tile.getForegroundColour());
-            BufferedImage glyphImage = lookupOp.filter(glyphs.get(tile.getDisplayCharacter().getCharacter()), null);
-            offscreenGraphics.drawImage(glyphImage, point.x * GLYPH_WIDTH_IN_PIXELS, point.y * GLYPH_HEIGHT_IN_PIXELS, null);
-        });
+        int imageWidth = offscreenBuffer.getWidth();
+        int columns = Math.min(widthInCharacters, imageWidth / GLYPH_WIDTH_IN_PIXELS);
+        int rows = Math.min(heightInCharacters, offscreenBuffer.getHeight() / GLYPH_HEIGHT_IN_PIXELS);
+        for (int y = 0; y < rows; y++) {
+            int to = Math.min(dirtyTo[y], columns);
+            for (int x = dirtyFrom[y]; x < to; x++) {
+                int cell = y * widthInCharacters + x;
+                if (!isChanged(cell)) {
+                    continue;
+                }
+                blit(glyphMasks[characters[cell]], Palette.getArgb(foregrounds[cell]), Palette.getArgb(backgrounds[cell]),
+                        y * GLYPH_HEIGHT_IN_PIXELS * imageWidth + x * GLYPH_WIDTH_IN_PIXELS, imageWidth);
+                paintedCharacters[cell] = characters[cell];
+                paintedForegrounds[cell] = foregrounds[cell];
+                paintedBackgrounds[cell] = backgrounds[cell];
+            }
+            dirtyFrom[y] = widthInCharacters;
+            dirtyTo[y] = 0;
+        }
 
+        // Swing clips this to the regions passed to repaintChanged(), unless the whole panel needs repainting, e.g.
+        // when it is uncovered.
         g.drawImage(offscreenBuffer,0,0,this);
+        Metrics.end(Metrics.PAINT, start);
+    }
+
+    /**
+     * Asks Swing to repaint the cells that have changed since they were last painted, one region per row. Unlike
+     * repaint(), which still repaints the whole panel, this leaves the rest of the panel alone.
+     */
+    public void repaintChanged() {
+        for (int y = 0; y < heightInCharacters; y++) {
+            int from = dirtyFrom[y];
+            int to = dirtyTo[y];
+            while (from < to && !isChanged(y * widthInCharacters + from)) {
+                from++;
+            }
+            while (to > from && !isChanged(y * widthInCharacters + to - 1)) {
+                to--;
+            }
+            if (from == to) {
+                dirtyFrom[y] = widthInCharacters;
+                dirtyTo[y] = 0;
+                continue;
+            }
+            dirtyFrom[y] = from;
+            dirtyTo[y] = to;
+            repaint(from * GLYPH_WIDTH_IN_PIXELS, y * GLYPH_HEIGHT_IN_PIXELS, (to - from) * GLYPH_WIDTH_IN_PIXELS,
+                    GLYPH_HEIGHT_IN_PIXELS);
+        }
     }
 
-    private LookupOp getLookupOp(@NonNull DisplayColour backgroundColour, @NonNull DisplayColour foregroundColour) {
-        List<Integer> backgroundComponents = backgroundColour.getComponents();
-        List<Integer> foregroundComponents = foregroundColour.getComponents();
-        int numOfColourComponents = backgroundComponents.size();
+    private boolean isChanged(int cell) {
+        return characters[cell] != paintedCharacters[cell] || foregrounds[cell] != paintedForegrounds[cell]
+                || backgrounds[cell] != paintedBackgrounds[cell];
+    }
 
-        byte[][] lookupTable = new byte[numOfColourComponents][NUM_OF_GLYPHS];
-        for (int i = 0; i < numOfColourComponents; i++) {
-            Arrays.fill(lookupTable[i], foregroundComponents.get(i).byteValue());
-            lookupTable[i][0] = backgroundComponents.get(i).byteValue();
+    /**
+     * Draws a tinted glyph into the offscreen pixels. Each channel of a pixel takes the foreground's value where the
+     * glyph is lit and the background's elsewhere, and translucent pixels are blended over what was drawn before.
+     */
+    private void blit(int[] mask, int foreground, int background, int offset, int imageWidth) {
+        if ((foreground & background) >>> 24 == 0xff) {
+            // Both colours are opaque, which is almost always the case, so nothing needs blending.
+            for (int py = 0; py < GLYPH_HEIGHT_IN_PIXELS; py++) {
+                int row = offset + py * imageWidth;
+                int maskRow = py * GLYPH_WIDTH_IN_PIXELS;
+                for (int px = 0; px < GLYPH_WIDTH_IN_PIXELS; px++) {
+                    int m = mask[maskRow + px];
+                    offscreenPixels[row + px] = foreground & m | background & ~m;
+                }
+            }
+            return;
+        }
+        for (int py = 0; py < GLYPH_HEIGHT_IN_PIXELS; py++) {
+            int row = offset + py * imageWidth;
+            int maskRow = py * GLYPH_WIDTH_IN_PIXELS;
+            for (int px = 0; px < GLYPH_WIDTH_IN_PIXELS; px++) {
+                int m = mask[maskRow + px];
+                int pixel = foreground & m | background & ~m;
+                int alpha = pixel >>> 24;
+                if (alpha != 0xff) {
+                    pixel = blend(pixel, offscreenPixels[row + px], alpha);
+                }
+                offscreenPixels[row + px] = pixel;
+            }
         }
+    }
 
-        return new LookupOp(new ByteLookupTable(0, lookupTable), null);
+    private static int blend(int source, int destination, int alpha) {
+        int result = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            int s = source >>> shift & 0xff;
+            int d = destination >>> shift & 0xff;
+            result |= ((s * alpha + d * (0xff - alpha) + 0x7f) / 0xff) << shift;
+        }
+        return result;
     }
 
     public void clear() {
@@ -136,6 +255,13 @@ public class AsciiPanel extends JPanel {
     }
 
     public void write(char character, int x, int y, @NonNull DisplayColour foregroundColour, @NonNull DisplayColour backgroundColour) {
+        write(character, x, y, foregroundColour.getPaletteId(), backgroundColour.getPaletteId());
+    }
+
+    /**
+     * Writes a character with colours given by their palette ids, which is how the game view draws its tiles.
+     */
+    public void write(char character, int x, int y, int foregroundColourId, int backgroundColourId) {
         if (character >= glyphs.size()) {
             throw new IllegalArgumentException("character " + character + " must be within range [0," + glyphs.size() + "].");
         } else if (x < 0 || x >= widthInCharacters) {
@@ -144,7 +270,14 @@ public class AsciiPanel extends JPanel {
             throw new IllegalArgumentException("y " + y + " must be within range [0," + heightInCharacters + ")");
         }
 
-        display.put(new Point(x, y), new DisplayTile(DisplayCharacter.of(character), foregroundColour, backgroundColour));
+        int cell = y * widthInCharacters + x;
+        characters[cell] = character;
+        foregrounds[cell] = foregroundColourId;
+        backgrounds[cell] = backgroundColourId;
+        if (isChanged(cell)) {
+            dirtyFrom[y] = Math.min(dirtyFrom[y], x);
+            dirtyTo[y] = Math.max(dirtyTo[y], x + 1);
+        }
 
         cursor.x = (x + 1) % widthInCharacters;
         cursor.y = y;
@@ -0,0 +1,435 @@
+package obscurum.engine;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import obscurum.creatures.Creature;
+import obscurum.creatures.Player;
+import obscurum.creatures.ai.CorpseAI;
+import obscurum.creatures.ai.PlayerAI;
+import obscurum.environment.Level;
+import obscurum.environment.background.*;
+import obscurum.environment.builders.*;
+import obscurum.environment.foreground.*;
+import obscurum.factories.*;
+import obscurum.placeholders.NullCreature;
+import obscurum.util.Metrics;
+import obscurum.util.Rng;
+import obscurum.util.Util;
+
+/**
+ * This runs a game, i.e. owns the world and the player, and advances them one
+ * turn at a time as the player acts. It knows nothing about how the game is
+ * displayed or controlled, so games can also be run without a display, e.g.
+ * in soak runs and benchmarks.
+ * @author Alex Ghita
+ */
+public class GameEngine {
+    public static final int WAIT = 0;
+    public static final int MOVE_LEFT = 1;
+    public static final int MOVE_RIGHT = 2;
+    public static final int MOVE_UP = 3;
+    public static final int MOVE_DOWN = 4;
+    public static final int ATTACK = 5; // the creature next to the player
+    public static final int RANGED_ATTACK = 6; // a creature in range and sight
+    public static final int USE_LADDER = 7; // the ladder next to the player
+    public static final int CAST_SPELL = 8; // a spell from the spellbook
+    public static final int LOOT = 9; // a slot of a corpse or chest
+    private final List<Level> world;
+    private final Player player;
+    private long turn;
+
+    /**
+     * Class constructor specifying an existing world and its player.
+     * @param world
+     * @param player
+     */
+    public GameEngine(List<Level> world, Player player) {
+        // Check for illegal arguments.
+        if (world == null || world.isEmpty()) {
+            throw new IllegalArgumentException("World cannot be empty.");
+        }
+        if (player == null) {
+            throw new IllegalArgumentException("Player cannot be null.");
+        }
+
+        this.world = world;
+        this.player = player;
+        player.setEngine(this);
+        turn = 0;
+    }
+
+    /**
+     * Generates and populates a new world from an unpredictable seed, and
+     * places the player on its first level.
+     * @param levels the number of levels
+     * @return
+     */
+    public static GameEngine newGame(int levels) {
+        return newGame(levels, Rng.unseeded().nextLong());
+    }
+
+    /**
+     * Generates and populates a new world, and places the player on its first
+     * level. Each level is generated and later played from its own stream,
+     * split from the seed in order, so the same seed and the same player
+     * actions play out the same game.
+     * @param levels the number of levels
+     * @param seed
+     * @return
+     */
+    public static GameEngine newGame(int levels, long seed) {
+        // Check for illegal arguments.
+        if (levels < 1) {
+            throw new IllegalArgumentException("Number of levels " + levels +
+                    " must be at least 1.");
+        }
+
+        Rng random = new Rng(seed);
+        Rng[] levelRandoms = new Rng[levels];
+        for (int i = 0; i < levels; i++) {
+            levelRandoms[i] = random.split();
+        }
+        Rng previous = Rng.bind(random);
+        try {
+            return generate(levels, levelRandoms);
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+
+    private static GameEngine generate(int levels, Rng[] levelRandoms) {
+        ArrayList<ForegroundTile> foregroundOptions =
+                new ArrayList<ForegroundTile>();
+        ArrayList<BackgroundTile> backgroundOptions =
+                new ArrayList<BackgroundTile>();
+
+        foregroundOptions.add(new Wall());
+        foregroundOptions.add(new Stone());
+        backgroundOptions.add(new Floor());
+        backgroundOptions.add(new Grass());
+
+        ArrayList<String[]> input = Util.readCSV("custom_tiles.csv");
+        for (String[] line : input) {
+            if (line.length == 5) {
+                foregroundOptions.add(new CustomForegroundTile(line[0],
+                        (char)Integer.parseInt(line[1]), new Color(
+                        Integer.parseInt(line[2]), Integer.parseInt(line[3]),
+                        Integer.parseInt(line[4]))));
+            } else {
+                backgroundOptions.add(new CustomBackgroundTile(line[0],
+                        (char)Integer.parseInt(line[1]),
+                        new Color(Integer.parseInt(line[2]), Integer.parseInt(line[3]),
+                                Integer.parseInt(line[4])), new Color(Integer.parseInt(line[5]),
+                        Integer.parseInt(line[6]), Integer.parseInt(line[7]))));
+            }
+        }
+
+        // Each level is built and then populated from its own stream, so the
+        // levels can be worked on at the same time without changing the
+        // result.
+        Level[] built = IntStream.range(0, levels).parallel()
+                .mapToObj(i -> build(i, levels, levelRandoms[i], foregroundOptions,
+                        backgroundOptions))
+                .toArray(Level[]::new);
+        List<Level> world = new ArrayList<>(Arrays.asList(built));
+        for (int i = 1; i < levels; i++) {
+            world.get(i).setPrevious(world.get(i - 1));
+            world.get(i - 1).setNext(world.get(i));
+        }
+
+        Player player = IntStream.range(0, levels).parallel()
+                .mapToObj(l -> populate(world.get(l), l, levels))
+                .toArray(Player[]::new)[0];
+        player.setWorld(world);
+        return new GameEngine(world, player);
+    }
+
+    /**
+     * Builds the level at the given depth from the given stream.
+     * @param depth
+     * @param levels the number of levels
+     * @param random
+     * @param foregroundOptions
+     * @param backgroundOptions
+     * @return
+     */
+    private static Level build(int depth, int levels, Rng random,
+            ArrayList<ForegroundTile> foregroundOptions,
+            ArrayList<BackgroundTile> backgroundOptions) {
+        Rng previous = Rng.bind(random);
+        try {
+            ForegroundTile f = Util.pickRandomElement(foregroundOptions);
+            BackgroundTile b = Util.pickRandomElement(backgroundOptions);
+            boolean next = depth == levels - 1 ? false : true;
+            boolean prev = depth == 0 ? false : true;
+            return Rng.current().nextDouble() < 0.5 ?
+                    new DungeonBuilder(91, 31, f, b, next, prev).build(5000, 5, 13, 0.1,
+                            -1) :
+                    new CaveBuilder(91, 31, f, b, next, prev).build();
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+
+    /**
+     * Fills the given level with creatures and furniture, drawing from the
+     * level's stream.
+     * @param level
+     * @param depth
+     * @param levels the number of levels
+     * @return the player if the level is the first one, or null otherwise
+     */
+    private static Player populate(Level level, int depth, int levels) {
+        Rng previous = Rng.bind(level.getRandom());
+        try {
+            CreatureFactory cf = new CreatureFactory(level);
+            FurnitureFactory ff = new FurnitureFactory(level);
+            Player player = null;
+
+            if (depth == 0) {
+                player = cf.newPlayer();
+            }
+            if (depth == levels - 1) {
+                ff.newTreasureChest();
+            }
+            for (int i = 0; i < 10; i++) {
+                cf.newGoblin(Math.max(depth + 1, Rng.current().nextInt(depth + 3)));
+                cf.newZombie(Math.max(depth + 1, Rng.current().nextInt(depth + 3)));
+            }
+            for (int i = 0; i < 20; i++) {
+                ff.newTorch();
+                ff.newTreasureChest(depth + 1);
+                ff.newSpikeTrap();
+            }
+            for (int i = 0; i < 10; i++) {
+                ff.newSpawner(new String[]{"Zombie", "Goblin"},
+                        Math.max(depth + 1, Rng.current().nextInt(depth + 3)), 5, cf);
+            }
+            return player;
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+
+    public List<Level> getWorld() {
+        return world;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the number of turns that have ended so far.
+     * @return
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Checks whether the player has died or won.
+     * @return
+     */
+    public boolean isOver() {
+        return !player.isAlive() || player.hasWon();
+    }
+
+    /**
+     * Carries out the player's action and then ends the turn. If the action
+     * opens a sub screen, e.g. by walking onto something that can be looted,
+     * or is taken from one, e.g. firing from an aim screen, the turn is left
+     * open until endTurn() is called once the sub screen is closed.
+     * @param action WAIT, or one of the MOVE actions
+     */
+    public void step(int action) {
+        // Check for illegal arguments.
+        if (action < WAIT || action > MOVE_DOWN) {
+            throw new IllegalArgumentException("Action " + action +
+                    " must be between " + WAIT + " and " + MOVE_DOWN + ".");
+        }
+
+        step(action, -1, null);
+    }
+
+    /**
+     * Carries out the player's action on the given location and then ends the
+     * turn, as step(int) does.
+     * @param action ATTACK, RANGED_ATTACK or USE_LADDER
+     * @param target
+     */
+    public void step(int action, Point target) {
+        // Check for illegal arguments.
+        if (action < ATTACK || action > USE_LADDER) {
+            throw new IllegalArgumentException("Action " + action +
+                    " must be between " + ATTACK + " and " + USE_LADDER + ".");
+        }
+
+        step(action, -1, target);
+    }
+
+    /**
+     * Carries out the player's action, which picks what it uses by index, on
+     * the given location and then ends the turn, as step(int) does.
+     * @param action CAST_SPELL, with the index of the spell, or LOOT, with the
+     *               index of the slot of the corpse or chest at the location
+     * @param index
+     * @param target
+     */
+    public void step(int action, int index, Point target) {
+        // Check for illegal arguments.
+        if (action < WAIT || action > LOOT) {
+            throw new IllegalArgumentException("Action " + action +
+                    " must be between " + WAIT + " and " + LOOT + ".");
+        }
+        if (action >= ATTACK && target == null) {
+            throw new IllegalArgumentException("Target cannot be null.");
+        }
+        if (action >= ATTACK && !player.getLevel().isInBounds(target)) {
+            throw new IllegalArgumentException("Target (" + target.x + ", " +
+                    target.y + ") must be in the level bounds.");
+        }
+        if (isOver()) {
+            throw new IllegalStateException("The game is over.");
+        }
+
+        Rng previous = Rng.bind(player.getLevel().getRandom());
+        try {
+            switch (action) {
+                case MOVE_LEFT: player.moveBy(-1, 0); break;
+                case MOVE_RIGHT: player.moveBy(1, 0); break;
+                case MOVE_UP: player.moveBy(0, -1); break;
+                case MOVE_DOWN: player.moveBy(0, 1); break;
+                case ATTACK: attack(target); break;
+                case RANGED_ATTACK: rangedAttack(target); break;
+                case USE_LADDER: useLadder(target); break;
+                case CAST_SPELL: castSpell(index, target); break;
+                case LOOT: loot(index, target); break;
+                default: break;
+            }
+            if (!player.isInSubScreen()) {
+                endTurn();
+            }
+        } finally {
+            Rng.bind(previous);
+        }
+    }
+
+    private void attack(Point target) {
+        if (!isNextToPlayer(target)) {
+            throw new IllegalArgumentException("Target (" + target.x + ", " +
+                    target.y + ") must be next to the player.");
+        }
+        Creature creature = player.getLevel().getCreature(target);
+        if (creature instanceof NullCreature || !creature.isAlive()) {
+            throw new IllegalArgumentException("Target (" + target.x + ", " +
+                    target.y + ") must hold a living creature.");
+        }
+
+        player.setTarget(creature);
+        player.attackTarget();
+    }
+
+    /**
+     * Fires the player's ranged weapon at the given location. As when aiming
+     * at an empty tile, the turn passes if there is no creature there.
+     * @param target
+     */
+    private void rangedAttack(Point target) {
+        Creature creature = player.getLevel().getCreature(target);
+        if (creature instanceof NullCreature) {
+            return;
+        }
+
+        player.setTarget(creature);
+        player.attackTarget();
+    }
+
+    private void useLadder(Point target) {
+        if (!isNextToPlayer(target)) {
+            throw new IllegalArgumentException("Target (" + target.x + ", " +
+                    target.y + ") must be next to the player.");
+        }
+
+        ((PlayerAI)player.getAI()).useLadder(target);
+    }
+
+    /**
+     * Casts the given spell at the given location. As when aiming at an empty
+     * tile, the turn passes if there is no creature there or the spell cannot
+     * be cast yet.
+     * @param spellIndex
+     * @param target
+     */
+    private void castSpell(int spellIndex, Point target) {
+        if (spellIndex < 0 || spellIndex >= player.getSpells().size()) {
+            throw new IllegalArgumentException("Spell index " + spellIndex +
+                    " must be between 0 and " + (player.getSpells().size() - 1) +
+                    ".");
+        }
+        Creature creature = player.getLevel().getCreature(target);
+        if (creature instanceof NullCreature ||
+                !player.canCastSpell(spellIndex)) {
+            return;
+        }
+
+        player.setTarget(creature);
+        player.castSpell(spellIndex);
+    }
+
+    private void loot(int slotIndex, Point target) {
+        Creature corpse = player.getLevel().getCreature(target);
+        if (corpse instanceof NullCreature || corpse == player) {
+            throw new IllegalArgumentException("Target (" + target.x + ", " +
+                    target.y + ") must hold a corpse or chest.");
+        }
+        if (slotIndex < 0 || slotIndex >= corpse.getInventory().getSize()) {
+            throw new IllegalArgumentException("Slot index " + slotIndex +
+                    " must be between 0 and " +
+                    (corpse.getInventory().getSize() - 1) + ".");
+        }
+
+        player.loot(corpse.getInventory().getSlot(slotIndex));
+        if (corpse.getAI() instanceof CorpseAI) {
+            ((CorpseAI)corpse.getAI()).onLooted();
+        }
+    }
+
+    private boolean isNextToPlayer(Point p) {
+        return Math.abs(p.x - player.getLocation().x) +
+                Math.abs(p.y - player.getLocation().y) == 1;
+    }
+
+    /**
+     * Lets everything else on the player's level that is due act, which ends
+     * the player's turn. Once the player holds the amulet, this also opens the
+     * exit portal on the first level and powers up every creature. Like the
+     * player's actions, this draws from the stream of the player's level.
+     */
+    public void endTurn() {
+        long start = Metrics.start();
+        Rng previous = Rng.bind(player.getLevel().getRandom());
+        try {
+            player.getLevel().updateCreatures();
+
+            if (player.hasAmulet() && !player.hasSpawnedExit()) {
+                Point location = world.get(0).getRandomOpenLocation();
+                world.get(0).setBackgroundTile(location, new ExitPortal(
+                        world.get(0).getBackgroundTile(location)));
+                for (int i = 0; i < world.size(); i++) {
+                    world.get(i).powerUpCreatures();
+                }
+                player.setSpawnedExit(true);
+            }
+        } finally {
+            Rng.bind(previous);
+        }
+        turn++;
+        Metrics.end(Metrics.TURN, start);
+    }
+}
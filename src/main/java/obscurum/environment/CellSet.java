@@ -0,0 +1,83 @@
+package obscurum.environment;
+
+/**
+ * This models a set of board cell indices which supports adding, removing and
+ * picking a random member in constant time. Members are kept in a dense array,
+ * and each cell remembers its position in it, so that a removed member can be
+ * replaced by the last one.
+ * @author Alex Ghita
+ */
+final class CellSet {
+  private final int[] members;
+  // Per cell, one more than its position in members, or 0 if it is absent.
+  private final int[] positions;
+  private int size;
+
+  /**
+   * Class constructor specifying the number of cells on the board.
+   * @param cellCount
+   */
+  CellSet(int cellCount) {
+    members = new int[cellCount];
+    positions = new int[cellCount];
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean contains(int cell) {
+    return positions[cell] != 0;
+  }
+
+  /**
+   * Gets the member at the given position. Positions change as members are
+   * removed, so they should only be used for sampling.
+   * @param position
+   * @return
+   */
+  int get(int position) {
+    return members[position];
+  }
+
+  /**
+   * Adds or removes the given cell, depending on whether it should be a
+   * member.
+   * @param cell
+   * @param member
+   */
+  void set(int cell, boolean member) {
+    if (member) {
+      add(cell);
+    } else {
+      remove(cell);
+    }
+  }
+
+  void add(int cell) {
+    if (positions[cell] != 0) {
+      return;
+    }
+    members[size++] = cell;
+    positions[cell] = size;
+  }
+
+  void remove(int cell) {
+    int position = positions[cell] - 1;
+    if (position < 0) {
+      return;
+    }
+    int last = members[--size];
+    members[position] = last;
+    positions[last] = position + 1;
+    positions[cell] = 0;
+  }
+
+  void clear() {
+    for (int i = 0; i < size; i++) {
+      positions[members[i]] = 0;
+    }
+    size = 0;
+  }
+}
@@ -0,0 +1,196 @@
+package obscurum.environment;
+
+import obscurum.display.Palette;
+import obscurum.environment.background.BackgroundTile;
+import obscurum.environment.foreground.EmptyTile;
+import obscurum.environment.foreground.ForegroundTile;
+import obscurum.placeholders.BackgroundLevelBound;
+import obscurum.placeholders.ForegroundLevelBound;
+import obscurum.placeholders.NullColour;
+
+/**
+ * This models what a creature remembers of a level, i.e. the tiles it has
+ * seen there. Unlike a level, it only keeps the tiles themselves, and it does
+ * not store any until the first one is remembered, so that creatures which
+ * never learn their surroundings cost next to nothing.
+ * @author Alex Ghita
+ */
+public class Exploration {
+  private static final int NULL_COLOUR_ID = Palette.idOf(NullColour.INSTANCE);
+  private final int width;
+  private final int height;
+  private TileLayer<ForegroundTile> foreground;
+  private TileLayer<BackgroundTile> background;
+
+  /**
+   * Class constructor specifying the dimensions of the explored level. No tile
+   * is explored initially.
+   * @param width
+   * @param height
+   */
+  public Exploration(int width, int height) {
+    // Check for illegal arguments.
+    if (width < 1) {
+      throw new IllegalArgumentException("Width " + width +
+          " must be at least 1.");
+    }
+    if (height < 1) {
+      throw new IllegalArgumentException("Height " + height +
+          " must be at least 1.");
+    }
+
+    this.width = width;
+    this.height = height;
+    foreground = null;
+    background = null;
+  }
+
+  /**
+   * Gets the board width.
+   * @return
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the board height.
+   * @return
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Checks whether the given coordinates are in the board bounds.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean isInBounds(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  /**
+   * Checks whether the tile at the given coordinates has been explored.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean isExplored(int x, int y) {
+    return isInBounds(x, y) && foreground != null &&
+        foreground.getId(index(x, y)) != TileLayer.NO_TILE;
+  }
+
+  /**
+   * Gets the remembered foreground tile at the given coordinates.
+   * @param x
+   * @param y
+   * @return the requested tile, null if it has not been explored, or a
+   *         placeholder tile if the coordinates are out of bounds
+   */
+  public ForegroundTile getForegroundTile(int x, int y) {
+    if (!isInBounds(x, y)) {
+      return ForegroundLevelBound.INSTANCE;
+    }
+    return foreground == null ? null : foreground.get(index(x, y));
+  }
+
+  /**
+   * Gets the remembered background tile at the given coordinates.
+   * @param x
+   * @param y
+   * @return the requested tile, null if it has not been explored, or a
+   *         placeholder tile if the coordinates are out of bounds
+   */
+  public BackgroundTile getBackgroundTile(int x, int y) {
+    if (!isInBounds(x, y)) {
+      return BackgroundLevelBound.INSTANCE;
+    }
+    return background == null ? null : background.get(index(x, y));
+  }
+
+  /**
+   * Gets the glyph to be displayed for the explored tile at the given
+   * coordinates, as Level.getDisplayGlyph() would.
+   * @param x
+   * @param y
+   * @return the requested character, or the null character if the tile has
+   *         not been explored
+   */
+  public char getDisplayGlyph(int x, int y) {
+    if (!isExplored(x, y)) {
+      return 0;
+    }
+    ForegroundTile f = foreground.get(index(x, y));
+    if (f instanceof EmptyTile) {
+      return background.get(index(x, y)).getGlyph();
+    }
+    return f.getGlyph();
+  }
+
+  /**
+   * Gets the palette id of the foreground colour to be displayed for the
+   * explored tile at the given coordinates.
+   * @param x
+   * @param y
+   * @return
+   */
+  public int getDisplayForegroundColourId(int x, int y) {
+    if (!isExplored(x, y)) {
+      return NULL_COLOUR_ID;
+    }
+    ForegroundTile f = foreground.get(index(x, y));
+    if (f instanceof EmptyTile) {
+      return background.get(index(x, y)).getForegroundColourId();
+    }
+    return f.getForegroundColourId();
+  }
+
+  /**
+   * Gets the palette id of the background colour to be displayed for the
+   * explored tile at the given coordinates.
+   * @param x
+   * @param y
+   * @return
+   */
+  public int getDisplayBackgroundColourId(int x, int y) {
+    if (!isExplored(x, y)) {
+      return NULL_COLOUR_ID;
+    }
+    return background.get(index(x, y)).getBackgroundColourId();
+  }
+
+  /**
+   * Remembers the foreground and background tiles at the given coordinates.
+   * @param x
+   * @param y
+   * @param f
+   * @param b
+   */
+  public void setTile(int x, int y, ForegroundTile f, BackgroundTile b) {
+    // Check for illegal arguments.
+    if (!isInBounds(x, y)) {
+      throw new IllegalArgumentException(
+          "Location (" + x + ", " + y + ") must be between (0, 0) and (" +
+          width + ", " + height + ").");
+    }
+    if (f == null || f instanceof ForegroundLevelBound) {
+      throw new IllegalArgumentException("Foreground tile cannot be null.");
+    }
+    if (b == null || b instanceof BackgroundLevelBound) {
+      throw new IllegalArgumentException("Background tile cannot be null.");
+    }
+
+    if (foreground == null) {
+      foreground = new TileLayer<ForegroundTile>(width * height);
+      background = new TileLayer<BackgroundTile>(width * height);
+    }
+    foreground.set(index(x, y), f);
+    background.set(index(x, y), b);
+  }
+
+  private int index(int x, int y) {
+    return x * height + y;
+  }
+}
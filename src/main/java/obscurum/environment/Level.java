@@ -3,9 +3,13 @@ package obscurum.environment;
 import java.awt.Color;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import obscurum.creatures.Creature;
+import obscurum.creatures.Player;
 import obscurum.creatures.Spawner;
-import obscurum.creatures.ai.CorpseAI;
+import obscurum.creatures.util.DistanceMap;
+import obscurum.creatures.util.FieldOfView;
+import obscurum.display.Palette;
 import obscurum.environment.background.BackgroundTile;
 import obscurum.environment.background.DownwardLadder;
 import obscurum.environment.background.UpwardLadder;
@@ -18,14 +22,25 @@ import obscurum.placeholders.ForegroundLevelBound;
 import obscurum.placeholders.NullColour;
 import obscurum.placeholders.NullCreature;
 import obscurum.placeholders.NullLevel;
+import obscurum.util.Rng;
+import obscurum.util.Scheduler;
 
 /**
  * This models a game level, i.e. a 2D board of tiles.
  * @author Alex Ghita
  */
 public class Level {
-  private ForegroundTile[][] foreground;
-  private BackgroundTile[][] background;
+  /**
+   * The number of scheduler ticks in a turn, i.e. how long a creature of
+   * normal speed takes to act.
+   */
+  public static final int TURN_LENGTH = 100;
+  // The smallest number of creatures taking their turns at the same time
+  // worth sharing out between threads to decide what to do.
+  private static final int PARALLEL_DECISIONS = 32;
+  private static final int NULL_COLOUR_ID = Palette.idOf(NullColour.INSTANCE);
+  private TileLayer<ForegroundTile> foreground;
+  private TileLayer<BackgroundTile> background;
   private int width;
   private int height;
   private Level next;
@@ -33,6 +48,44 @@ public class Level {
   private Point nextLocation;
   private Point previousLocation;
   private ArrayList<Creature> creatures;
+  // Per cell, one more than the index in creatures of the creature standing
+  // there, or 0 if there is none.
+  private int[] occupants;
+  // Empty locations, as defined by getRandomEmptyLocation(), and the subset of
+  // them whose eight surrounding tiles all have empty foregrounds.
+  private CellSet emptyCells;
+  private CellSet openCells;
+  // Per cell, how many of the eight surrounding tiles have empty foregrounds.
+  private byte[] emptyNeighbours;
+  // Incremented whenever a tile starts or stops blocking sight, so that fields
+  // of view can tell when they need recomputing.
+  private int opacityRevision;
+  // Incremented whenever a tile starts or stops being walkable, so that
+  // distance maps can tell when they need rebuilding.
+  private int walkableRevision;
+  // The walkable regions, relabelled on demand after walkableRevision moves
+  // on, and replaced rather than changed so that they can be read without
+  // locking.
+  private volatile Regions regions;
+  // The player, if it is on this level, and what can be seen from its
+  // location without any distance limit.
+  private Player player;
+  private FieldOfView playerView;
+  // Maps for creatures chasing or fleeing the player, built on demand.
+  private DistanceMap playerChaseMap;
+  private DistanceMap playerFleeMap;
+  // Per cell, how many torches light it.
+  private short[] light;
+  // The level's clock, on which creatures, spawners and timers are woken up
+  // when they are due. It only runs while the player is on the level.
+  private Scheduler scheduler;
+  // The level's own stream, split from the one current when it was made,
+  // which everything happening on the level draws from while it plays.
+  private Rng random;
+  // The creatures taking their turns at the current time, in the order they
+  // act.
+  private Creature[] turnQueue;
+  private int turnQueueSize;
   public ArrayList<Torch> torches;
   public ArrayList<Spawner> spawners;
 
@@ -68,20 +121,70 @@ public class Level {
       }
     }
 
-    this.foreground = foreground;
-    this.background = background;
-    this.width = background.length;
-    this.height = background[0].length;
+    initialise(background.length, background[0].length);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        this.foreground.set(index(x, y), foreground[x][y]);
+        this.background.set(index(x, y), background[x][y]);
+      }
+    }
+    rebuildFreeCells();
+  }
+
+  /**
+   * Class constructor specifying the board dimensions. All tiles are initially
+   * unset, i.e. null, until they are filled in.
+   * @param width
+   * @param height
+   */
+  public Level(int width, int height) {
+    // Check for illegal arguments.
+    if (width < 1) {
+      throw new IllegalArgumentException("Width " + width +
+          " must be at least 1.");
+    }
+    if (height < 1) {
+      throw new IllegalArgumentException("Height " + height +
+          " must be at least 1.");
+    }
+
+    initialise(width, height);
+  }
+
+  /**
+   * Sets up the board layers and the level's other fields.
+   * @param width
+   * @param height
+   */
+  private void initialise(int width, int height) {
+    this.width = width;
+    this.height = height;
+    foreground = new TileLayer<ForegroundTile>(width * height);
+    background = new TileLayer<BackgroundTile>(width * height);
     // Set placeholders for next and previous levels if the level is not null.
     if (width > 1) {
-      next = new NullLevel();
-      previous = new NullLevel();
+      next = NullLevel.INSTANCE;
+      previous = NullLevel.INSTANCE;
       nextLocation = null;
       previousLocation = null;
     }
     creatures = new ArrayList<Creature>();
+    occupants = new int[width * height];
+    emptyCells = new CellSet(width * height);
+    openCells = new CellSet(width * height);
+    emptyNeighbours = new byte[width * height];
+    player = null;
+    playerView = new FieldOfView(FieldOfView.SHADOWCASTING);
+    playerChaseMap = null;
+    playerFleeMap = null;
+    regions = null;
+    light = new short[width * height];
     torches = new ArrayList<Torch>();
     spawners = new ArrayList<Spawner>();
+    scheduler = new Scheduler();
+    random = Rng.current().split();
+    turnQueue = new Creature[16];
+    turnQueueSize = 0;
   }
 
   /**
@@ -100,6 +203,35 @@ public class Level {
     return height;
   }
 
+  /**
+   * Packs the given coordinates into a single long, so that a location can be
+   * stored or passed around without allocating a Point.
+   * @param x
+   * @param y
+   * @return
+   */
+  public static long pack(int x, int y) {
+    return (long)x << 32 | y & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Gets the x coordinate of a packed location.
+   * @param location
+   * @return
+   */
+  public static int unpackX(long location) {
+    return (int)(location >> 32);
+  }
+
+  /**
+   * Gets the y coordinate of a packed location.
+   * @param location
+   * @return
+   */
+  public static int unpackY(long location) {
+    return (int)location;
+  }
+
   /**
    * Gets the foreground tile at the given coordinates.
    * @param x
@@ -108,7 +240,10 @@ public class Level {
    *         out of bounds
    */
   public ForegroundTile getForegroundTile(int x, int y) {
-    return getForegroundTile(new Point(x, y));
+    if (!isInBounds(x, y)) {
+      return ForegroundLevelBound.INSTANCE;
+    }
+    return foreground.get(index(x, y));
   }
 
   /**
@@ -118,10 +253,7 @@ public class Level {
    *         bounds
    */
   public ForegroundTile getForegroundTile(Point p) {
-    if (!isInBounds(p)) {
-      return new ForegroundLevelBound();
-    }
-    return foreground[p.x][p.y];
+    return getForegroundTile(p.x, p.y);
   }
 
   /**
@@ -132,7 +264,10 @@ public class Level {
    *         out of bounds
    */
   public BackgroundTile getBackgroundTile(int x, int y) {
-    return getBackgroundTile(new Point(x, y));
+    if (!isInBounds(x, y)) {
+      return BackgroundLevelBound.INSTANCE;
+    }
+    return background.get(index(x, y));
   }
 
   /**
@@ -142,10 +277,25 @@ public class Level {
    *         bounds
    */
   public BackgroundTile getBackgroundTile(Point p) {
-    if (!isInBounds(p)) {
-      return new BackgroundLevelBound();
-    }
-    return background[p.x][p.y];
+    return getBackgroundTile(p.x, p.y);
+  }
+
+  /**
+   * Gets a number which changes whenever a tile of the level starts or stops
+   * blocking sight.
+   * @return
+   */
+  public int getOpacityRevision() {
+    return opacityRevision;
+  }
+
+  /**
+   * Gets a number which changes whenever a tile of the level starts or stops
+   * being walkable.
+   * @return
+   */
+  public int getWalkableRevision() {
+    return walkableRevision;
   }
 
   /**
@@ -190,7 +340,14 @@ public class Level {
    *         are out of bounds;
    */
   public char getDisplayGlyph(int x, int y) {
-    return getDisplayGlyph(new Point(x, y));
+    if (!isInBounds(x, y)) {
+      return 0;
+    }
+    ForegroundTile f = foreground.get(index(x, y));
+    if (f instanceof EmptyTile) {
+      return background.get(index(x, y)).getGlyph();
+    }
+    return f.getGlyph();
   }
 
   /**
@@ -201,13 +358,7 @@ public class Level {
    *         of bounds
    */
   public char getDisplayGlyph(Point p) {
-    if (!isInBounds(p)) {
-      return 0;
-    }
-    if (foreground[p.x][p.y] instanceof EmptyTile) {
-      return background[p.x][p.y].getGlyph();
-    }
-    return foreground[p.x][p.y].getGlyph();
+    return getDisplayGlyph(p.x, p.y);
   }
 
   /**
@@ -220,7 +371,14 @@ public class Level {
    *         are out of bounds
    */
   public Color getDisplayForegroundColour(int x, int y) {
-    return getDisplayForegroundColour(new Point(x, y));
+    if (!isInBounds(x, y)) {
+      return NullColour.INSTANCE;
+    }
+    ForegroundTile f = foreground.get(index(x, y));
+    if (f instanceof EmptyTile) {
+      return background.get(index(x, y)).getForegroundColour();
+    }
+    return f.getForegroundColour();
   }
 
   /**
@@ -232,13 +390,25 @@ public class Level {
    *         of bounds
    */
   public Color getDisplayForegroundColour(Point p) {
-    if (!isInBounds(p)) {
-      return new NullColour();
+    return getDisplayForegroundColour(p.x, p.y);
+  }
+
+  /**
+   * Gets the palette id of the foreground colour to be displayed at the given
+   * coordinates, as getDisplayForegroundColour() would return it.
+   * @param x
+   * @param y
+   * @return
+   */
+  public int getDisplayForegroundColourId(int x, int y) {
+    if (!isInBounds(x, y)) {
+      return NULL_COLOUR_ID;
     }
-    if (foreground[p.x][p.y] instanceof EmptyTile) {
-      return background[p.x][p.y].getForegroundColour();
+    ForegroundTile f = foreground.get(index(x, y));
+    if (f instanceof EmptyTile) {
+      return background.get(index(x, y)).getForegroundColourId();
     }
-    return foreground[p.x][p.y].getForegroundColour();
+    return f.getForegroundColourId();
   }
 
   /**
@@ -250,7 +420,10 @@ public class Level {
    *         are out of bounds
    */
   public Color getDisplayBackgroundColour(int x, int y) {
-    return getDisplayBackgroundColour(new Point(x, y));
+    if (!isInBounds(x, y)) {
+      return NullColour.INSTANCE;
+    }
+    return background.get(index(x, y)).getBackgroundColour();
   }
 
   /**
@@ -261,10 +434,21 @@ public class Level {
    *         of bounds
    */
   public Color getDisplayBackgroundColour(Point p) {
-    if (!isInBounds(p)) {
-      return new NullColour();
+    return getDisplayBackgroundColour(p.x, p.y);
+  }
+
+  /**
+   * Gets the palette id of the background colour to be displayed at the given
+   * coordinates, as getDisplayBackgroundColour() would return it.
+   * @param x
+   * @param y
+   * @return
+   */
+  public int getDisplayBackgroundColourId(int x, int y) {
+    if (!isInBounds(x, y)) {
+      return NULL_COLOUR_ID;
     }
-    return background[p.x][p.y].getBackgroundColour();
+    return background.get(index(x, y)).getBackgroundColourId();
   }
 
   /**
@@ -274,7 +458,10 @@ public class Level {
    * @return
    */
   public Creature getCreature(int x, int y) {
-    return getCreature(new Point(x, y));
+    if (!isInBounds(x, y) || occupants[index(x, y)] == 0) {
+      return NullCreature.INSTANCE;
+    }
+    return creatures.get(occupants[index(x, y)] - 1);
   }
 
   /**
@@ -283,34 +470,236 @@ public class Level {
    * @return
    */
   public Creature getCreature(Point p) {
-    for (Creature c : creatures) {
-      if (c.getLocation().equals(p)) {
-        return c;
+    return getCreature(p.x, p.y);
+  }
+
+  /**
+   * Gets the creatures on the level, which should not be modified.
+   * @return
+   */
+  public ArrayList<Creature> getCreatures() {
+    return creatures;
+  }
+
+  /**
+   * Gets the creatures whose distance from the given coordinates is at most
+   * the given radius.
+   * @param x
+   * @param y
+   * @param radius
+   * @return
+   */
+  public ArrayList<Creature> getCreaturesWithin(int x, int y, int radius) {
+    ArrayList<Creature> result = new ArrayList<Creature>();
+    getCreaturesWithin(x, y, radius, result);
+    return result;
+  }
+
+  /**
+   * Gets the creatures whose distance from the given coordinates is at most
+   * the given radius, storing them in the given list. The list is cleared
+   * first, so that callers can reuse it between turns.
+   * @param x
+   * @param y
+   * @param radius
+   * @param result
+   */
+  public void getCreaturesWithin(int x, int y, int radius,
+      ArrayList<Creature> result) {
+    // Check for illegal arguments.
+    if (radius < 0) {
+      throw new IllegalArgumentException("Radius " + radius +
+          " must be at least 0.");
+    }
+
+    result.clear();
+    int minX = Math.max(0, x - radius);
+    int maxX = Math.min(width - 1, x + radius);
+    int minY = Math.max(0, y - radius);
+    int maxY = Math.min(height - 1, y + radius);
+    long radiusSquared = (long)radius * radius;
+
+    // Scan whichever is smaller: the creature list or the covered cells.
+    if (creatures.size() < (long)(maxX - minX + 1) * (maxY - minY + 1)) {
+      for (int i = 0; i < creatures.size(); i++) {
+        Point p = creatures.get(i).getLocation();
+        if (distanceSquared(x, y, p.x, p.y) <= radiusSquared) {
+          result.add(creatures.get(i));
+        }
       }
+      return;
     }
-    return new NullCreature();
+    for (int i = minX; i <= maxX; i++) {
+      for (int j = minY; j <= maxY; j++) {
+        int occupant = occupants[index(i, j)];
+        if (occupant != 0 && distanceSquared(x, y, i, j) <= radiusSquared) {
+          result.add(creatures.get(occupant - 1));
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the player, if it is on this level.
+   * @return the player, or a null creature if it is on another level
+   */
+  public Creature getPlayer() {
+    return player == null ? NullCreature.INSTANCE : player;
+  }
+
+  /**
+   * Checks whether the tile at the given coordinates can be seen from the
+   * player's location, at any distance, using the player's field of view
+   * mode. The player's field of view is only recomputed after the player
+   * moves, changes mode or a tile changes its opacity, so all checks made
+   * during a turn share one computation. Creatures standing on the tile are
+   * taken to see the player exactly when this holds, which for shadowcasting
+   * is what their own field of view would say, since it is symmetric.
+   * @param x
+   * @param y
+   * @return false if the player is not on this level
+   */
+  public boolean isVisibleToPlayer(int x, int y) {
+    if (player == null) {
+      return false;
+    }
+    computePlayerView();
+    return playerView.isVisible(x, y);
+  }
+
+  /**
+   * Checks whether the tile at the given point can be seen from the player's
+   * location, at any distance.
+   * @param p
+   * @return false if the player is not on this level
+   */
+  public boolean isVisibleToPlayer(Point p) {
+    return isVisibleToPlayer(p.x, p.y);
+  }
+
+  private void computePlayerView() {
+    playerView.setMode(player.getAI().getFieldOfViewMode());
+    playerView.compute(this, player.getLocation().x, player.getLocation().y,
+        -1);
   }
 
   /**
-   * Updates all creatures found in the level.
+   * Gets the walking distances from every tile to the player. The map is only
+   * rebuilt after the player moves or a tile changes whether it is walkable,
+   * so all creatures chasing the player in a turn share it.
+   * @return the map, in which no tile is reachable if the player is on
+   *     another level
+   */
+  public synchronized DistanceMap getDistancesToPlayer() {
+    if (playerChaseMap == null) {
+      playerChaseMap = new DistanceMap();
+    }
+    if (player == null) {
+      playerChaseMap.computeChase(this, -1, -1);
+    } else {
+      playerChaseMap.computeChase(this, player.getLocation().x,
+          player.getLocation().y);
+    }
+    return playerChaseMap;
+  }
+
+  /**
+   * Gets a map for fleeing from the player, which is rebuilt along with the
+   * map returned by getDistancesToPlayer().
+   * @return
+   */
+  public synchronized DistanceMap getFleeMapFromPlayer() {
+    DistanceMap chase = getDistancesToPlayer();
+    if (playerFleeMap == null) {
+      playerFleeMap = new DistanceMap();
+    }
+    playerFleeMap.computeFlee(chase);
+    return playerFleeMap;
+  }
+
+  /**
+   * Advances the level by one turn, waking up every creature, spawner and
+   * timer that falls due in that time, in the order they are due. Creatures
+   * that are not due, e.g. slow ones between actions or corpses waiting to
+   * decay, cost nothing.
+   * The creatures due at the same time take their turns together: first they
+   * all decide what to do against the level as it stands, concurrently if
+   * there are enough of them, and then they act one at a time in the order
+   * they were due. Conflicts, e.g. two creatures moving onto the same tile,
+   * are therefore settled the same way however the decisions were shared
+   * out.
    */
   public void updateCreatures() {
-    ArrayList<Creature> toRemove = new ArrayList<Creature>();
-    for (Creature c : creatures) {
-      c.update();
-      if (!c.isAlive() && ((CorpseAI)c.getAI()).getTurnsLeft() == 0) {
-        toRemove.add(c);
+    long end = scheduler.getTime() + TURN_LENGTH;
+    Rng previous = Rng.bind(random);
+
+    try {
+      while (scheduler.getNextTime() <= end) {
+        scheduler.advance(scheduler.getNextTime() - scheduler.getTime());
+        takeQueuedTurns();
       }
+      scheduler.advance(end - scheduler.getTime());
+    } finally {
+      Rng.bind(previous);
     }
-    for (Creature c : toRemove) {
-      remove(c);
+  }
+
+  /**
+   * Adds a creature to the ones taking their turns at the current time. To
+   * be used by creatures when they are woken up by the scheduler.
+   * @param c
+   */
+  public void queueTurn(Creature c) {
+    if (turnQueueSize == turnQueue.length) {
+      turnQueue = Arrays.copyOf(turnQueue, turnQueueSize * 2);
     }
+    turnQueue[turnQueueSize++] = c;
   }
 
-  public void updateSpawners() {
-    for (Spawner s : spawners) {
-      s.update();
+  private void takeQueuedTurns() {
+    int count = turnQueueSize;
+    if (count == 0) {
+      return;
+    }
+    // Compute the player's view before deciding, so that the creatures
+    // looking at the player only read it.
+    if (player != null) {
+      computePlayerView();
+    }
+    if (count >= PARALLEL_DECISIONS) {
+      Arrays.stream(turnQueue, 0, count).parallel().forEach(
+          c -> c.getAI().decide());
+    } else {
+      for (int i = 0; i < count; i++) {
+        turnQueue[i].getAI().decide();
+      }
     }
+    for (int i = 0; i < count; i++) {
+      Creature c = turnQueue[i];
+      turnQueue[i] = null;
+      c.takeTurn();
+    }
+    turnQueueSize = 0;
+  }
+
+  public Rng getRandom() {
+    return random;
+  }
+
+  /**
+   * Gets the level's clock, e.g. to set timers on it.
+   * @return
+   */
+  public Scheduler getScheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Gets the number of turns the level has been played for.
+   * @return
+   */
+  public long getTurn() {
+    return scheduler.getTime() / TURN_LENGTH;
   }
 
   public void powerUpCreatures() {
@@ -331,22 +720,93 @@ public class Level {
       throw new IllegalArgumentException("Creature cannot be null.");
     }
     creatures.add(c);
+    if (c instanceof Player) {
+      player = (Player)c;
+    }
+    scheduler.schedule(c.getTurnEvent(), c.getActionDelay());
+    if (isInBounds(c.getLocation())) {
+      occupants[index(c.getLocation().x, c.getLocation().y)] =
+          creatures.size();
+    }
   }
 
   /**
-   * Removes a creature from the list of creatures, if found.
+   * Adds a spawner to the list of spawners and wakes it up on the next turn.
+   * The spawner tile itself is left to the caller.
+   * @param s
+   */
+  public void addSpawner(Spawner s) {
+    if (s == null) {
+      throw new IllegalArgumentException("Spawner cannot be null.");
+    }
+    spawners.add(s);
+    scheduler.schedule(s.getTurnEvent(), TURN_LENGTH);
+  }
+
+  /**
+   * Adds a torch to the list of torches and lights its surroundings. The
+   * torch tile itself is left to the caller.
+   * @param t
+   */
+  public void addTorch(Torch t) {
+    if (t == null) {
+      throw new IllegalArgumentException("Torch cannot be null.");
+    }
+    torches.add(t);
+    t.computeLight();
+    lightTorch(t, 1);
+  }
+
+  /**
+   * Removes a creature from the list of creatures, if found. The last
+   * creature in the list takes its place, so removal takes constant time.
    * @param c
    */
   public void remove(Creature c) {
-    for (int i = 0; i < creatures.size(); i++) {
-      if (creatures.get(i).getLocation().equals(c.getLocation())) {
-        setForegroundTile(creatures.get(i).getLocation(), new EmptyTile());
-        creatures.remove(i);
-        return;
+    int i = indexOf(c);
+    if (i < 0) {
+      // The creature should have been found, so throw an error.
+      throw new IllegalArgumentException("Creature to be removed not found.");
+    }
+
+    if (c == player) {
+      player = null;
+    }
+    scheduler.cancel(c.getTurnEvent());
+    Point location = c.getLocation();
+    setForegroundTile(location, EmptyTile.INSTANCE);
+    if (occupants[index(location.x, location.y)] == i + 1) {
+      occupants[index(location.x, location.y)] = 0;
+    }
+    Creature last = creatures.remove(creatures.size() - 1);
+    if (last != c) {
+      creatures.set(i, last);
+      Point lastLocation = last.getLocation();
+      if (occupants[index(lastLocation.x, lastLocation.y)] ==
+          creatures.size() + 1) {
+        occupants[index(lastLocation.x, lastLocation.y)] = i + 1;
       }
     }
-    // The creature should have been found, so throw an error.
-    throw new IllegalArgumentException("Creature to be removed not found.");
+  }
+
+  /**
+   * Moves a creature to a new location, clearing the previously occupied
+   * tile and keeping the creature index up to date. The creature's own
+   * location is left to the caller.
+   * @param c
+   * @param x
+   * @param y
+   */
+  public void move(Creature c, int x, int y) {
+    Point from = c.getLocation();
+    setForegroundTile(from, EmptyTile.INSTANCE);
+    setForegroundTile(x, y, c);
+
+    int occupant = occupants[index(from.x, from.y)];
+    if (occupant != 0 && creatures.get(occupant - 1) == c) {
+      occupants[index(from.x, from.y)] = 0;
+      occupants[index(x, y)] = occupant;
+    }
   }
 
   /**
@@ -356,7 +816,27 @@ public class Level {
    * @param f
    */
   public void setForegroundTile(int x, int y, ForegroundTile f) {
-    setForegroundTile(new Point(x, y), f);
+    // Check for illegal arguments.
+    checkForIllegalLocation(x, y);
+    if (f == null || f instanceof ForegroundLevelBound) {
+      throw new IllegalArgumentException("Foreground tile cannot be null.");
+    }
+
+    int index = index(x, y);
+    ForegroundTile old = foreground.get(index);
+    boolean wasEmpty = old instanceof EmptyTile;
+    foreground.set(index, f);
+    if ((old != null && old.isOpaque()) != f.isOpaque()) {
+      opacityRevision++;
+      relightTorchesAround(x, y);
+    }
+    if (isWalkable(old) != isWalkable(f)) {
+      walkableRevision++;
+    }
+    if (wasEmpty != f instanceof EmptyTile) {
+      updateEmptyNeighbours(x, y, wasEmpty ? -1 : 1);
+    }
+    updateFreeCell(index);
   }
 
   /**
@@ -365,13 +845,7 @@ public class Level {
    * @param f
    */
   public void setForegroundTile(Point p, ForegroundTile f) {
-    // Check for illegal arguments.
-    checkForIllegalLocation(p);
-    if (f == null || f instanceof ForegroundLevelBound) {
-      throw new IllegalArgumentException("Foreground tile cannot be null.");
-    }
-
-    foreground[p.x][p.y] = f;
+    setForegroundTile(p.x, p.y, f);
   }
 
   /**
@@ -381,7 +855,14 @@ public class Level {
    * @param b
    */
   public void setBackgroundTile(int x, int y, BackgroundTile b) {
-    setBackgroundTile(new Point(x, y), b);
+    // Check for illegal arguments.
+    checkForIllegalLocation(x, y);
+    if (b == null || b instanceof BackgroundLevelBound) {
+      throw new IllegalArgumentException("Background tile cannot be null.");
+    }
+
+    background.set(index(x, y), b);
+    updateFreeCell(index(x, y));
   }
 
   /**
@@ -390,13 +871,7 @@ public class Level {
    * @param b
    */
   public void setBackgroundTile(Point p, BackgroundTile b) {
-    // Check for illegal arguments.
-    checkForIllegalLocation(p);
-    if (b == null || b instanceof BackgroundLevelBound) {
-      throw new IllegalArgumentException("Background tile cannot be null.");
-    }
-
-    background[p.x][p.y] = b;
+    setBackgroundTile(p.x, p.y, b);
   }
 
   /**
@@ -407,7 +882,8 @@ public class Level {
    * @param b
    */
   public void setTile(int x, int y, ForegroundTile f, BackgroundTile b) {
-    setTile(new Point(x, y), f, b);
+    setForegroundTile(x, y, f);
+    setBackgroundTile(x, y, b);
   }
 
   /**
@@ -417,8 +893,34 @@ public class Level {
    * @param b
    */
   public void setTile(Point p, ForegroundTile f, BackgroundTile b) {
-    setForegroundTile(p, f);
-    setBackgroundTile(p, b);
+    setTile(p.x, p.y, f, b);
+  }
+
+  /**
+   * Sets every tile of the board to the given foreground and background
+   * tiles.
+   * @param f
+   * @param b
+   */
+  public void fill(ForegroundTile f, BackgroundTile b) {
+    // Check for illegal arguments.
+    if (f == null || f instanceof ForegroundLevelBound) {
+      throw new IllegalArgumentException("Foreground tile cannot be null.");
+    }
+    if (b == null || b instanceof BackgroundLevelBound) {
+      throw new IllegalArgumentException("Background tile cannot be null.");
+    }
+
+    foreground.fill(f);
+    background.fill(b);
+    opacityRevision++;
+    walkableRevision++;
+    rebuildFreeCells();
+    Arrays.fill(light, (short)0);
+    for (Torch t : torches) {
+      t.computeLight();
+      lightTorch(t, 1);
+    }
   }
 
   /**
@@ -473,25 +975,17 @@ public class Level {
    * @return a point, or null if there is no empty tile
    */
   public Point getRandomEmptyLocation() {
-    ArrayList<Point> emptyLocations = new ArrayList<Point>();
-
-    // Get all empty locations.
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        if (isForegroundOfType(x, y, new EmptyTile()) &&
-            !isBackgroundOfType(x, y, new DownwardLadder()) &&
-            !isBackgroundOfType(x, y, new UpwardLadder())) {
-          emptyLocations.add(new Point(x, y));
-        }
-      }
-    }
+    return getRandomLocation(emptyCells);
+  }
 
-    // If there are no empty locations, return null.
-    if (emptyLocations.isEmpty()) {
-      return null;
-    }
-    // Pick a random empty location and return it.
-    return emptyLocations.get((int)(Math.random() * emptyLocations.size()));
+  /**
+   * Gets the location of a random empty tile whose eight surrounding tiles
+   * all have empty foregrounds, e.g. to place furniture that should not block
+   * any passage.
+   * @return a point, or null if there is no such tile
+   */
+  public Point getRandomOpenLocation() {
+    return getRandomLocation(openCells);
   }
 
   /**
@@ -501,7 +995,7 @@ public class Level {
    * @return
    */
   public boolean isInBounds(int x, int y) {
-    return isInBounds(new Point(x, y));
+    return x >= 0 && x < width && y >= 0 && y < height;
   }
 
   /**
@@ -510,10 +1004,16 @@ public class Level {
    * @return
    */
   public boolean isInBounds(Point p) {
-    if (p.x < 0 || p.x >= width || p.y < 0 || p.y >= height) {
-      return false;
-    }
-    return true;
+    return isInBounds(p.x, p.y);
+  }
+
+  /**
+   * Checks whether the given packed location is in the board bounds.
+   * @param location a location packed with pack(int, int)
+   * @return
+   */
+  public boolean isInBounds(long location) {
+    return isInBounds(unpackX(location), unpackY(location));
   }
 
   /**
@@ -525,7 +1025,24 @@ public class Level {
    * @return
    */
   public boolean isForegroundOfType(int x, int y, ForegroundTile f) {
-    return isForegroundOfType(new Point(x, y), f);
+    return isForegroundOfType(x, y, f.getClass());
+  }
+
+  /**
+   * Checks whether the foreground tile at the given coordinates is of the
+   * given class. Unlike the tile-based overload, this does not need an
+   * instance of the type to compare against.
+   * @param x
+   * @param y
+   * @param type
+   * @return
+   */
+  public boolean isForegroundOfType(int x, int y,
+      Class<? extends ForegroundTile> type) {
+    // Check for illegal arguments.
+    checkForIllegalLocation(x, y);
+
+    return foreground.get(index(x, y)).getClass() == type;
   }
 
   /**
@@ -536,10 +1053,19 @@ public class Level {
    * @return
    */
   public boolean isForegroundOfType(Point p, ForegroundTile f) {
-    // Check for illegal arguments.
-    checkForIllegalLocation(p);
+    return isForegroundOfType(p.x, p.y, f.getClass());
+  }
 
-    return foreground[p.x][p.y].getClass().equals(f.getClass());
+  /**
+   * Checks whether the foreground tile at the given point is of the given
+   * class.
+   * @param p
+   * @param type
+   * @return
+   */
+  public boolean isForegroundOfType(Point p,
+      Class<? extends ForegroundTile> type) {
+    return isForegroundOfType(p.x, p.y, type);
   }
 
   /**
@@ -551,7 +1077,23 @@ public class Level {
    * @return
    */
   public boolean isBackgroundOfType(int x, int y, BackgroundTile b) {
-    return isBackgroundOfType(new Point(x, y), b);
+    return isBackgroundOfType(x, y, b.getClass());
+  }
+
+  /**
+   * Checks whether the background tile at the given coordinates is of the
+   * given class.
+   * @param x
+   * @param y
+   * @param type
+   * @return
+   */
+  public boolean isBackgroundOfType(int x, int y,
+      Class<? extends BackgroundTile> type) {
+    // Check for illegal arguments.
+    checkForIllegalLocation(x, y);
+
+    return background.get(index(x, y)).getClass() == type;
   }
 
   /**
@@ -562,10 +1104,19 @@ public class Level {
    * @return
    */
   public boolean isBackgroundOfType(Point p, BackgroundTile b) {
-    // Check for illegal arguments.
-    checkForIllegalLocation(p);
+    return isBackgroundOfType(p.x, p.y, b.getClass());
+  }
 
-    return background[p.x][p.y].getClass().equals(b.getClass());
+  /**
+   * Checks whether the background tile at the given point is of the given
+   * class.
+   * @param p
+   * @param type
+   * @return
+   */
+  public boolean isBackgroundOfType(Point p,
+      Class<? extends BackgroundTile> type) {
+    return isBackgroundOfType(p.x, p.y, type);
   }
 
   /**
@@ -575,7 +1126,10 @@ public class Level {
    * @return
    */
   public boolean isCreature(int x, int y) {
-    return isCreature(new Point(x, y));
+    // Check for illegal arguments.
+    checkForIllegalLocation(x, y);
+
+    return foreground.get(index(x, y)) instanceof Creature;
   }
 
   /**
@@ -584,22 +1138,128 @@ public class Level {
    * @return
    */
   public boolean isCreature(Point p) {
-    // Check for illegal arguments.
-    checkForIllegalLocation(p);
+    return isCreature(p.x, p.y);
+  }
+
+  /**
+   * Checks whether the foreground tile at the given coordinates blocks sight.
+   * Locations out of bounds are always opaque.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean isOpaque(int x, int y) {
+    return getForegroundTile(x, y).isOpaque();
+  }
+
+  /**
+   * Checks whether creatures can walk onto the tile at the given coordinates,
+   * i.e. whether its foreground is empty or a creature. Locations out of
+   * bounds are never walkable.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean isWalkable(int x, int y) {
+    return isWalkable(getForegroundTile(x, y));
+  }
+
+  /**
+   * Gets the walkable region of the tile at the given coordinates, where two
+   * tiles are in the same region if creatures can walk from one to the other.
+   * @param x
+   * @param y
+   * @return the region, or -1 if the tile is not walkable or out of bounds
+   */
+  public int getRegion(int x, int y) {
+    if (!isInBounds(x, y)) {
+      return Regions.NO_REGION;
+    }
+    return getRegions().get(index(x, y));
+  }
 
-    if (foreground[p.x][p.y] instanceof Creature) {
+  /**
+   * Checks whether a creature at the first coordinates could walk to the
+   * second ones, in the same way as paths are found, i.e. the creature's own
+   * tile does not have to be walkable, but the target's does. This takes
+   * constant time, since regions are only relabelled after a tile starts or
+   * stops being walkable.
+   * @param fromX
+   * @param fromY
+   * @param toX
+   * @param toY
+   * @return
+   */
+  public boolean isReachable(int fromX, int fromY, int toX, int toY) {
+    if (!isInBounds(fromX, fromY) || !isInBounds(toX, toY)) {
+      return false;
+    }
+    if (fromX == toX && fromY == toY) {
       return true;
     }
+
+    Regions current = getRegions();
+    int region = current.get(index(toX, toY));
+    if (region == Regions.NO_REGION) {
+      return false;
+    }
+    if (current.get(index(fromX, fromY)) == region) {
+      return true;
+    }
+    // The creature may be standing on a tile it could not walk onto, so check
+    // the tiles it can step to.
+    for (int i = -1; i <= 1; i++) {
+      for (int j = -1; j <= 1; j++) {
+        if (i == 0 && j == 0 || i != 0 && j != 0 ||
+            !isInBounds(fromX + i, fromY + j)) {
+          continue;
+        }
+        if (current.get(index(fromX + i, fromY + j)) == region) {
+          return true;
+        }
+      }
+    }
     return false;
   }
 
+  /**
+   * Checks whether a creature at the first point could walk to the second
+   * one.
+   * @param from
+   * @param to
+   * @return
+   */
+  public boolean isReachable(Point from, Point to) {
+    return isReachable(from.x, from.y, to.x, to.y);
+  }
+
+  /**
+   * Checks whether the tile at the given coordinates is lit by any torch.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean isIlluminated(int x, int y) {
+    return getLightLevel(x, y) > 0;
+  }
+
   public boolean isIlluminated(Point p) {
-    for (Torch t : torches) {
-      if (t.canSee(p)) {
-        return true;
-      }
+    return isIlluminated(p.x, p.y);
+  }
+
+  /**
+   * Gets how many torches light the tile at the given coordinates. This is
+   * read from the level's light map, which is kept up to date as torches are
+   * added and as tiles near them change their opacity.
+   * @param x
+   * @param y
+   * @return 0 if the location is out of bounds
+   */
+  public int getLightLevel(int x, int y) {
+    if (!isInBounds(x, y)) {
+      return 0;
     }
-    return false;
+    return light[index(x, y)];
   }
 
   /**
@@ -613,7 +1273,20 @@ public class Level {
    * @return
    */
   public int countAdjacentForegroundTiles(int x, int y, ForegroundTile f) {
-    return countAdjacentForegroundTiles(new Point(x, y), f);
+    return countNearbyTiles(x, y, typeOf(f), null, false);
+  }
+
+  /**
+   * Counts how many foreground tiles adjacent to the tile at the given
+   * coordinates are of the given class.
+   * @param x
+   * @param y
+   * @param type
+   * @return
+   */
+  public int countAdjacentForegroundTiles(int x, int y,
+      Class<? extends ForegroundTile> type) {
+    return countNearbyTiles(x, y, type, null, false);
   }
 
   /**
@@ -626,7 +1299,7 @@ public class Level {
    * @return
    */
   public int countAdjacentForegroundTiles(Point p, ForegroundTile f) {
-    return countNearbyTiles(p, f, new BackgroundLevelBound(), false);
+    return countNearbyTiles(p.x, p.y, typeOf(f), null, false);
   }
 
   /**
@@ -640,7 +1313,7 @@ public class Level {
    * @return
    */
   public int countAdjacentBackgroundTiles(int x, int y, BackgroundTile b) {
-    return countAdjacentBackgroundTiles(new Point(x, y), b);
+    return countNearbyTiles(x, y, null, typeOf(b), false);
   }
 
   /**
@@ -653,7 +1326,7 @@ public class Level {
    * @return
    */
   public int countAdjacentBackgroundTiles(Point p, BackgroundTile b) {
-    return countNearbyTiles(p, new ForegroundLevelBound(), b, false);
+    return countNearbyTiles(p.x, p.y, null, typeOf(b), false);
   }
 
   /**
@@ -669,7 +1342,7 @@ public class Level {
    */
   public int countAdjacentTiles(int x, int y, ForegroundTile f,
       BackgroundTile b) {
-    return countAdjacentTiles(new Point(x, y), f, b);
+    return countNearbyTiles(x, y, typeOf(f), typeOf(b), false);
   }
 
   /**
@@ -683,7 +1356,7 @@ public class Level {
    * @return
    */
   public int countAdjacentTiles(Point p, ForegroundTile f, BackgroundTile b) {
-    return countNearbyTiles(p, f, b, false);
+    return countNearbyTiles(p.x, p.y, typeOf(f), typeOf(b), false);
   }
 
   /**
@@ -695,7 +1368,20 @@ public class Level {
    * @return
    */
   public int countSurroundingForegroundTiles(int x, int y, ForegroundTile f) {
-    return countSurroundingForegroundTiles(new Point(x, y), f);
+    return countNearbyTiles(x, y, typeOf(f), null, true);
+  }
+
+  /**
+   * Counts how many foreground tiles surrounding the tile at the given
+   * coordinates, i.e. the eight tiles around it, are of the given class.
+   * @param x
+   * @param y
+   * @param type
+   * @return
+   */
+  public int countSurroundingForegroundTiles(int x, int y,
+      Class<? extends ForegroundTile> type) {
+    return countNearbyTiles(x, y, type, null, true);
   }
 
   /**
@@ -706,7 +1392,7 @@ public class Level {
    * @return
    */
   public int countSurroundingForegroundTiles(Point p, ForegroundTile f) {
-    return countNearbyTiles(p, f, new BackgroundLevelBound(), true);
+    return countNearbyTiles(p.x, p.y, typeOf(f), null, true);
   }
 
   /**
@@ -718,7 +1404,7 @@ public class Level {
    * @return
    */
   public int countSurroundingBackgroundTiles(int x, int y, BackgroundTile b) {
-    return countSurroundingBackgroundTiles(new Point(x, y), b);
+    return countNearbyTiles(x, y, null, typeOf(b), true);
   }
 
   /**
@@ -729,7 +1415,7 @@ public class Level {
    * @return
    */
   public int countSurroundingBackgroundTiles(Point p, BackgroundTile b) {
-    return countNearbyTiles(p, new ForegroundLevelBound(), b, true);
+    return countNearbyTiles(p.x, p.y, null, typeOf(b), true);
   }
 
   /**
@@ -744,7 +1430,23 @@ public class Level {
    */
   public int countSurroundingTiles(int x, int y, ForegroundTile f,
       BackgroundTile b) {
-    return countSurroundingTiles(new Point(x, y), f, b);
+    return countNearbyTiles(x, y, typeOf(f), typeOf(b), true);
+  }
+
+  /**
+   * Counts how many tiles surrounding the tile at the given coordinates, i.e.
+   * the eight tiles around it, have both foreground and background tiles of
+   * the given classes.
+   * @param x
+   * @param y
+   * @param foregroundType
+   * @param backgroundType
+   * @return
+   */
+  public int countSurroundingTiles(int x, int y,
+      Class<? extends ForegroundTile> foregroundType,
+      Class<? extends BackgroundTile> backgroundType) {
+    return countNearbyTiles(x, y, foregroundType, backgroundType, true);
   }
 
   /**
@@ -758,7 +1460,7 @@ public class Level {
    */
   public int countSurroundingTiles(Point p, ForegroundTile f,
       BackgroundTile b) {
-    return countNearbyTiles(p, f, b, true);
+    return countNearbyTiles(p.x, p.y, typeOf(f), typeOf(b), true);
   }
 
   public void triggerTrap(Point p, Creature c) {
@@ -768,53 +1470,37 @@ public class Level {
 
   /**
    * Counts how many tiles near the tile at the given coordinates have both
-   * foreground and background tiles of the given types.
+   * foreground and background tiles of the given classes.
    * @param x
    * @param y
-   * @param f if the placeholder type ForegroundLevelBound is used, then
-   *          foreground type will not be used as a counting criterion
-   * @param b if the placeholder type BackgroundLevelBound is used, then
-   *          background type will not be used as a counting criterion
-   * @param corners if true, the method will take into account all eight tiles
-   *                surrounding the given tile; otherwise, it will ignore the
-   *                four corner tiles
-   * @return
-   */
-  private int countNearbyTiles(int x, int y, ForegroundTile f,
-      BackgroundTile b, boolean corners) {
-    return countNearbyTiles(new Point(x, y), f, b, corners);
-  }
-
-  /**
-   * Counts how many tiles near the tile at the given point have both
-   * foreground and background tiles of the given types.
-   * @param p
-   * @param f if the placeholder type ForegroundLevelBound is used, then
-   *          foreground type will not be used as a counting criterion
-   * @param b if the placeholder type BackgroundLevelBound is used, then
-   *          background type will not be used as a counting criterion
+   * @param foregroundType if null, then foreground type will not be used as a
+   *                       counting criterion
+   * @param backgroundType if null, then background type will not be used as a
+   *                       counting criterion
    * @param corners if true, the method will take into account all eight tiles
    *                surrounding the given tile; otherwise, it will ignore the
    *                four corner tiles
    * @return
    */
-  private int countNearbyTiles(Point p, ForegroundTile f, BackgroundTile b,
-      boolean corners) {
+  private int countNearbyTiles(int x, int y,
+      Class<? extends ForegroundTile> foregroundType,
+      Class<? extends BackgroundTile> backgroundType, boolean corners) {
     // Check for illegal arguments.
-    checkForIllegalLocation(p);
+    checkForIllegalLocation(x, y);
 
     int count = 0;
 
     for (int i = -1; i <= 1; i++) {
       for (int j = -1; j <= 1; j++) {
         if (i == 0 && j == 0 || !corners && i != 0 && j != 0 ||
-            !isInBounds(p.x + i, p.y + j)) {
+            !isInBounds(x + i, y + j)) {
           continue;
         }
-        if ((f instanceof ForegroundLevelBound ||
-            foreground[p.x + i][p.y + j].getClass().equals(f.getClass())) &&
-            (b instanceof BackgroundLevelBound ||
-            background[p.x + i][p.y + j].getClass().equals(b.getClass()))) {
+        int index = index(x + i, y + j);
+        if ((foregroundType == null ||
+            foreground.get(index).getClass() == foregroundType) &&
+            (backgroundType == null ||
+            background.get(index).getClass() == backgroundType)) {
           count++;
         }
       }
@@ -823,15 +1509,244 @@ public class Level {
     return count;
   }
 
+  private static boolean isWalkable(ForegroundTile f) {
+    return f instanceof EmptyTile || f instanceof Creature;
+  }
+
+  /**
+   * Gets the class used to match the given foreground tile when counting.
+   * @param f if of the placeholder type ForegroundLevelBound, then foreground
+   *          type will not be used as a counting criterion
+   * @return the tile's class, or null for the placeholder type
+   */
+  private static Class<? extends ForegroundTile> typeOf(ForegroundTile f) {
+    return f instanceof ForegroundLevelBound ? null : f.getClass();
+  }
+
+  /**
+   * Gets the class used to match the given background tile when counting.
+   * @param b if of the placeholder type BackgroundLevelBound, then background
+   *          type will not be used as a counting criterion
+   * @return the tile's class, or null for the placeholder type
+   */
+  private static Class<? extends BackgroundTile> typeOf(BackgroundTile b) {
+    return b instanceof BackgroundLevelBound ? null : b.getClass();
+  }
+
+  /**
+   * Gets the index of the given creature in the list of creatures.
+   * @param c
+   * @return the index, or -1 if the creature is not in this level
+   */
+  private int indexOf(Creature c) {
+    Point location = c.getLocation();
+    if (isInBounds(location)) {
+      int occupant = occupants[index(location.x, location.y)];
+      if (occupant != 0 && creatures.get(occupant - 1) == c) {
+        return occupant - 1;
+      }
+    }
+    // Fall back to a scan if another creature has been placed over it.
+    for (int i = 0; i < creatures.size(); i++) {
+      if (creatures.get(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the squared distance between two locations.
+   * @param x0
+   * @param y0
+   * @param x1
+   * @param y1
+   * @return
+   */
+  private static long distanceSquared(int x0, int y0, int x1, int y1) {
+    long dx = x0 - x1;
+    long dy = y0 - y1;
+    return dx * dx + dy * dy;
+  }
+
+  /**
+   * Recomputes the light of every torch close enough to the tile at the given
+   * coordinates for a change in its opacity to matter.
+   * @param x
+   * @param y
+   */
+  private void relightTorchesAround(int x, int y) {
+    for (Torch t : torches) {
+      Point location = t.getLocation();
+      if (Math.abs(location.x - x) > t.getLineOfSight() ||
+          Math.abs(location.y - y) > t.getLineOfSight()) {
+        continue;
+      }
+      // The torch still holds its old light, so take that away first.
+      lightTorch(t, -1);
+      t.computeLight();
+      lightTorch(t, 1);
+    }
+  }
+
+  /**
+   * Adds the tiles lit by the given torch to the light map, or takes them
+   * away.
+   * @param t
+   * @param change 1 to add, -1 to take away
+   */
+  private void lightTorch(Torch t, int change) {
+    Point location = t.getLocation();
+    int radius = t.getLineOfSight();
+    int minX = Math.max(0, location.x - radius);
+    int minY = Math.max(0, location.y - radius);
+    int maxX = Math.min(width - 1, location.x + radius);
+    int maxY = Math.min(height - 1, location.y + radius);
+
+    for (int x = minX; x <= maxX; x++) {
+      for (int y = minY; y <= maxY; y++) {
+        if (t.illuminates(x, y)) {
+          light[index(x, y)] += change;
+        }
+      }
+    }
+  }
+
+  /**
+   * Picks a random member of the given set of cells.
+   * @param cells
+   * @return the member's location, or null if the set is empty
+   */
+  private Point getRandomLocation(CellSet cells) {
+    if (cells.size() == 0) {
+      return null;
+    }
+    int index = cells.get(random.nextInt(cells.size()));
+    return new Point(index / height, index % height);
+  }
+
+  /**
+   * Adjusts the count of empty surrounding tiles of the tiles around the given
+   * coordinates, after the tile at the coordinates became empty or stopped
+   * being empty.
+   * @param x
+   * @param y
+   * @param change 1 or -1
+   */
+  private void updateEmptyNeighbours(int x, int y, int change) {
+    for (int i = -1; i <= 1; i++) {
+      for (int j = -1; j <= 1; j++) {
+        if (i == 0 && j == 0 || !isInBounds(x + i, y + j)) {
+          continue;
+        }
+        int index = index(x + i, y + j);
+        emptyNeighbours[index] += change;
+        updateFreeCell(index);
+      }
+    }
+  }
+
+  /**
+   * Updates the membership of the cell at the given index in the sets of
+   * empty and open cells.
+   * @param index
+   */
+  private void updateFreeCell(int index) {
+    boolean empty = isEmptyLocation(index);
+    emptyCells.set(index, empty);
+    openCells.set(index, empty && emptyNeighbours[index] == 8);
+  }
+
+  /**
+   * Recomputes the sets of empty and open cells from scratch, e.g. after the
+   * whole board has been filled in.
+   */
+  private void rebuildFreeCells() {
+    Arrays.fill(emptyNeighbours, (byte)0);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (!(foreground.get(index(x, y)) instanceof EmptyTile)) {
+          continue;
+        }
+        for (int i = -1; i <= 1; i++) {
+          for (int j = -1; j <= 1; j++) {
+            if ((i != 0 || j != 0) && isInBounds(x + i, y + j)) {
+              emptyNeighbours[index(x + i, y + j)]++;
+            }
+          }
+        }
+      }
+    }
+    emptyCells.clear();
+    openCells.clear();
+    for (int i = 0; i < width * height; i++) {
+      updateFreeCell(i);
+    }
+  }
+
+  /**
+   * Checks whether the cell at the given index has an empty foreground and is
+   * not a ladder.
+   * @param index
+   * @return
+   */
+  private boolean isEmptyLocation(int index) {
+    BackgroundTile b = background.get(index);
+    return foreground.get(index) instanceof EmptyTile &&
+        !(b instanceof DownwardLadder) && !(b instanceof UpwardLadder);
+  }
+
+  /**
+   * Gets the walkable regions, relabelling them first if a tile has started
+   * or stopped being walkable since they were last labelled.
+   * @return
+   */
+  private Regions getRegions() {
+    Regions current = regions;
+    if (current == null || current.getRevision() != walkableRevision) {
+      current = relabelRegions();
+    }
+    return current;
+  }
+
+  private synchronized Regions relabelRegions() {
+    if (regions == null || regions.getRevision() != walkableRevision) {
+      regions = new Regions(this);
+    }
+    return regions;
+  }
+
+  /**
+   * Gets the index of the given coordinates in the board layers. Cells are
+   * stored column by column, matching the order in which most board scans
+   * visit them.
+   * @param x
+   * @param y
+   * @return
+   */
+  private int index(int x, int y) {
+    return x * height + y;
+  }
+
   /**
    * Checks whether the given point is within the level bounds, and throws an
    * exception if it is not.
    * @param p
    */
   private void checkForIllegalLocation(Point p) {
-    if (!isInBounds(p)) {
+    checkForIllegalLocation(p.x, p.y);
+  }
+
+  /**
+   * Checks whether the given coordinates are within the level bounds, and
+   * throws an exception if they are not.
+   * @param x
+   * @param y
+   */
+  private void checkForIllegalLocation(int x, int y) {
+    if (!isInBounds(x, y)) {
       throw new IllegalArgumentException(
-          "Location (" + p.x + ", " + p.y + ") must be between (0, 0) and (" +
+          "Location (" + x + ", " + y + ") must be between (0, 0) and (" +
           width + ", " + height + ").");
     }
   }
@@ -0,0 +1,79 @@
+package obscurum.environment;
+
+import java.util.Arrays;
+
+/**
+ * This labels the walkable tiles of a level with the region they belong to,
+ * where two tiles are in the same region if a creature can walk from one to
+ * the other, moving only horizontally or vertically. The labels are worked
+ * out in a single pass over the level, and only hold for the walkable
+ * revision of the level they were worked out at.
+ * @author Alex Ghita
+ */
+final class Regions {
+  /**
+   * The label of a tile which is not walkable.
+   */
+  static final int NO_REGION = -1;
+  private final int[] labels;
+  private final int revision;
+
+  /**
+   * Class constructor labelling the given level as it currently stands.
+   * @param level
+   */
+  Regions(Level level) {
+    int width = level.getWidth();
+    int height = level.getHeight();
+    int count = 0;
+    int[] fringe = new int[width * height];
+
+    labels = new int[width * height];
+    Arrays.fill(labels, NO_REGION);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (labels[x * height + y] != NO_REGION || !level.isWalkable(x, y)) {
+          continue;
+        }
+        // Flood the region from this tile.
+        int head = 0;
+        int tail = 0;
+        labels[x * height + y] = count;
+        fringe[tail++] = x * height + y;
+        while (head < tail) {
+          int currentX = fringe[head] / height;
+          int currentY = fringe[head++] % height;
+          for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+              if (i == 0 && j == 0 || i != 0 && j != 0) {
+                continue;
+              }
+              int testX = currentX + i;
+              int testY = currentY + j;
+              if (level.isWalkable(testX, testY) &&
+                  labels[testX * height + testY] == NO_REGION) {
+                labels[testX * height + testY] = count;
+                fringe[tail++] = testX * height + testY;
+              }
+            }
+          }
+        }
+        count++;
+      }
+    }
+    revision = level.getWalkableRevision();
+  }
+
+  int getRevision() {
+    return revision;
+  }
+
+  /**
+   * Gets the region of the tile at the given index.
+   * @param index
+   * @return the region, or NO_REGION if the tile is not walkable
+   */
+  int get(int index) {
+    return labels[index];
+  }
+}
@@ -4,15 +4,15 @@ import java.awt.Color;
 
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.Setter;
+import obscurum.display.Palette;
 import obscurum.display.terminal.AsciiPanel;
 
 @Getter
 public abstract class Tile {
     protected String name;
     protected char glyph;
-    @Setter
     protected Color foregroundColour;
+    protected int foregroundColourId;
 
     public Tile(@NonNull String name, char glyph, @NonNull Color foregroundColour) {
         if (name.isEmpty()) {
@@ -23,10 +23,32 @@ public abstract class Tile {
 
         this.name = name;
         this.glyph = glyph;
+        setForegroundColour(foregroundColour);
+    }
+
+    public void setForegroundColour(@NonNull Color foregroundColour) {
         this.foregroundColour = foregroundColour;
+        this.foregroundColourId = Palette.idOf(foregroundColour);
     }
 
     public boolean isOfType(@NonNull Tile tile) {
         return this.getClass().equals(tile.getClass());
     }
+
+    /**
+     * Returns true if the tile carries no per-instance state, so a single
+     * instance can stand in for every board cell that shows it.
+     */
+    public boolean isShareable() {
+        return true;
+    }
+
+    /**
+     * Returns true if the given tile is of the same type and looks the same as
+     * this one, i.e. the two are interchangeable on a board.
+     */
+    public boolean isEquivalentTo(@NonNull Tile tile) {
+        return isOfType(tile) && name.equals(tile.name) && glyph == tile.glyph &&
+                foregroundColour.equals(tile.foregroundColour);
+    }
 }
@@ -0,0 +1,151 @@
+package obscurum.environment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This stores one layer of a level's board as a flat array of tile ids.
+ * Tiles that carry no per-instance state are interned in a small palette, so
+ * that every wall or floor of a level is backed by the same instance. Tiles
+ * that do carry state, such as creatures, torches or traps, are kept in a
+ * sparse side table and referenced from the board through negative ids.
+ * @author Alex Ghita
+ */
+final class TileLayer<T extends Tile> {
+  /**
+   * The id of an unset cell, e.g. an unexplored tile.
+   */
+  static final short NO_TILE = 0;
+  private final short[] cells;
+  // Shareable tiles, indexed by their positive id. Index 0 is always null.
+  private final ArrayList<T> palette;
+  // Stateful tiles, where slot i is referenced by the id -(i + 1).
+  private final ArrayList<T> stateful;
+  private int[] freeSlots;
+  private int freeSlotCount;
+
+  /**
+   * Class constructor specifying the number of cells in the layer.
+   * @param size
+   */
+  TileLayer(int size) {
+    cells = new short[size];
+    palette = new ArrayList<T>();
+    palette.add(null);
+    stateful = new ArrayList<T>();
+    freeSlots = new int[8];
+    freeSlotCount = 0;
+  }
+
+  /**
+   * Gets the tile at the given cell index.
+   * @param index
+   * @return the tile, or null if the cell is unset
+   */
+  T get(int index) {
+    short id = cells[index];
+    if (id >= 0) {
+      return palette.get(id);
+    }
+    return stateful.get(-id - 1);
+  }
+
+  /**
+   * Gets the raw id stored at the given cell index. Positive ids refer to
+   * palette entries, negative ids to stateful tiles.
+   * @param index
+   * @return
+   */
+  short getId(int index) {
+    return cells[index];
+  }
+
+  /**
+   * Sets the tile at the given cell index.
+   * @param index
+   * @param tile the new tile, or null to unset the cell
+   */
+  void set(int index, T tile) {
+    release(index);
+    if (tile == null) {
+      cells[index] = NO_TILE;
+    } else if (tile.isShareable()) {
+      cells[index] = intern(tile);
+    } else {
+      cells[index] = store(tile);
+    }
+  }
+
+  /**
+   * Sets every cell of the layer to the given tile.
+   * @param tile
+   */
+  void fill(T tile) {
+    if (tile != null && !tile.isShareable()) {
+      for (int i = 0; i < cells.length; i++) {
+        set(i, tile);
+      }
+      return;
+    }
+    stateful.clear();
+    freeSlotCount = 0;
+    Arrays.fill(cells, tile == null ? NO_TILE : intern(tile));
+  }
+
+  /**
+   * Returns the palette id of a tile equivalent to the given one, interning it
+   * if no such tile is registered yet.
+   * @param tile
+   * @return
+   */
+  private short intern(T tile) {
+    for (int i = 1; i < palette.size(); i++) {
+      T entry = palette.get(i);
+      if (entry == tile || entry.isEquivalentTo(tile)) {
+        return (short)i;
+      }
+    }
+    if (palette.size() > Short.MAX_VALUE) {
+      throw new IllegalStateException("Tile palette is full.");
+    }
+    palette.add(tile);
+    return (short)(palette.size() - 1);
+  }
+
+  /**
+   * Stores a stateful tile in the side table and returns its id.
+   * @param tile
+   * @return
+   */
+  private short store(T tile) {
+    int slot;
+    if (freeSlotCount > 0) {
+      slot = freeSlots[--freeSlotCount];
+      stateful.set(slot, tile);
+    } else {
+      slot = stateful.size();
+      if (slot > Short.MAX_VALUE) {
+        throw new IllegalStateException("Stateful tile table is full.");
+      }
+      stateful.add(tile);
+    }
+    return (short)(-slot - 1);
+  }
+
+  /**
+   * Frees the side table slot used by the given cell, if any.
+   * @param index
+   */
+  private void release(int index) {
+    short id = cells[index];
+    if (id >= 0) {
+      return;
+    }
+    int slot = -id - 1;
+    stateful.set(slot, null);
+    if (freeSlotCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+    }
+    freeSlots[freeSlotCount++] = slot;
+  }
+}
@@ -4,15 +4,24 @@ import java.awt.Color;
 
 import lombok.Getter;
 import lombok.NonNull;
+import obscurum.display.Palette;
 import obscurum.environment.Tile;
 
 @Getter
 public abstract class BackgroundTile extends Tile {
   private final Color backgroundColour;
+  private final int backgroundColourId;
 
   public BackgroundTile(String name, char glyph, Color foregroundColour, @NonNull Color backgroundColour) {
     super(name, glyph, foregroundColour);
 
     this.backgroundColour = backgroundColour;
+    this.backgroundColourId = Palette.idOf(backgroundColour);
+  }
+
+  @Override
+  public boolean isEquivalentTo(@NonNull Tile tile) {
+    return super.isEquivalentTo(tile) &&
+        backgroundColour.equals(((BackgroundTile)tile).backgroundColour);
   }
 }
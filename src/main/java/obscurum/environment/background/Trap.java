@@ -22,5 +22,14 @@ public abstract class Trap extends BackgroundTile {
     return sourceTile;
   }
 
+  /**
+   * Traps remember the tile they are disguised as, so each one is kept as a
+   * separate instance.
+   */
+  @Override
+  public boolean isShareable() {
+    return false;
+  }
+
   public abstract void trigger(Creature target);
 }
@@ -5,6 +5,7 @@ import obscurum.environment.background.BackgroundTile;
 import obscurum.environment.foreground.ForegroundTile;
 import obscurum.placeholders.BackgroundLevelBound;
 import obscurum.placeholders.ForegroundLevelBound;
+import obscurum.util.Rng;
 
 /**
  * This outlines the necessary fields and behaviours of a level builder,
@@ -20,6 +21,8 @@ public abstract class Builder {
   protected BackgroundTile backgroundType;
   protected boolean hasNext;
   protected boolean hasPrevious;
+  // The builder's own stream, split from the one current when it was made.
+  protected final Rng random;
 
   /**
    * Level builder constructor specifying the level's dimensions, and the
@@ -58,8 +61,8 @@ public abstract class Builder {
     this.backgroundType = backgroundType;
     this.hasNext = hasNext;
     this.hasPrevious = hasPrevious;
-    level = new Level(new ForegroundTile[width][height],
-        new BackgroundTile[width][height]);
+    random = Rng.current().split();
+    level = new Level(width, height);
   }
 
   /**
@@ -90,12 +93,7 @@ public abstract class Builder {
       throw new IllegalArgumentException("Background tile cannot be null.");
     }
 
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        level.setForegroundTile(x, y, f);
-        level.setBackgroundTile(x, y, b);
-      }
-    }
+    level.fill(f, b);
   }
 
   /**
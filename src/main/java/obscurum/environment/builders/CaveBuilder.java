@@ -2,12 +2,14 @@ package obscurum.environment.builders;
 
 import java.awt.Point;
 import java.lang.Math;
+import java.util.Arrays;
 import obscurum.environment.Level;
 import obscurum.environment.background.BackgroundTile;
 import obscurum.environment.background.DownwardLadder;
 import obscurum.environment.background.UpwardLadder;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
+import obscurum.util.Metrics;
 
 /**
  * This models a cave builder, which creates open levels with irregular rooms
@@ -24,78 +26,233 @@ public class CaveBuilder extends Builder {
     return build(4, 3, 0.3, 20);
   }
 
+  /**
+   * Builds a cave by carving random noise into walls, and then smoothing it
+   * with a cellular automaton, where a wall survives if it has at least
+   * deathLimit wall neighbours, and a floor becomes a wall if it has more than
+   * birthLimit wall neighbours. Cells outside the board count as walls.
+   * The board is kept as rows of bits, where a set bit is a wall, so each step
+   * updates 64 cells at once by counting their neighbours with bitwise adders.
+   * @param birthLimit
+   * @param deathLimit
+   * @param carveChance the chance of a cell starting off as a wall
+   * @param numberOfSteps
+   * @return
+   */
   public Level build(int birthLimit, int deathLimit, double carveChance,
       int numberOfSteps) {
-    boolean[][] board = new boolean[width][height];
+    long start = Metrics.start();
+    long stageStart = start;
+    // Row y of the board is kept at row y + 1, with a row of walls above and
+    // below the board, and the bits past the board's width set as walls too.
+    int words = (width + Long.SIZE - 1) / Long.SIZE;
+    long padding = width % Long.SIZE == 0 ? 0 : -1L << width;
+    long[] board = new long[(height + 2) * words];
+    long[] newBoard = new long[(height + 2) * words];
 
+    for (long[] b : new long[][]{board, newBoard}) {
+      Arrays.fill(b, 0, words, -1L);
+      Arrays.fill(b, (height + 1) * words, (height + 2) * words, -1L);
+    }
     for (int x = 0; x < width; x++) {
       for (int y = 0; y < height; y++) {
-        board[x][y] = Math.random() < carveChance ? true : false;
+        if (random.nextDouble() < carveChance) {
+          board[(y + 1) * words + x / Long.SIZE] |= 1L << x;
+        }
       }
     }
+    for (int y = 1; y <= height; y++) {
+      board[y * words + words - 1] |= padding;
+    }
 
+    Metrics.endStage(Metrics.GENERATION, "cave noise", stageStart);
+    stageStart = Metrics.start();
     for (int p = 0; p < numberOfSteps; p++) {
-      boolean[][] newBoard = new boolean[width][height];
-
-      for (int x = 0; x < width; x++) {
-        for (int y = 0; y < height; y++) {
-          int liveNeighbours = 0;
-
-          for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-              int tx = x + i;
-              int ty = y + j;
-
-              if (i == 0 && j == 0) {
-                continue;
-              }
-              else if (tx < 0 || ty < 0 || tx >= width || ty >= height ||
-                  board[tx][ty]) {
-                liveNeighbours++;
-              }
-            }
-          }
-          if (board[x][y]) {
-            if (liveNeighbours < deathLimit) {
-              newBoard[x][y] = false;
-            } else {
-              newBoard[x][y] = true;
-            }
-          } else {
-            if (liveNeighbours > birthLimit) {
-              newBoard[x][y] = true;
-            } else {
-              newBoard[x][y] = false;
-            }
-          }
-        }
-      }
-
+      step(board, newBoard, words, padding, birthLimit, deathLimit);
+      long[] swap = board;
       board = newBoard;
+      newBoard = swap;
     }
-
-    for (int x = 0; x < width; x++) {
-      board[x][0] = board[x][height - 1] = true;
-    }
-    for (int y = 0; y < height; y++) {
-      board[0][y] = board[width - 1][y] = true;
-    }
+    Metrics.endStage(Metrics.GENERATION, "cave automaton", stageStart);
+    stageStart = Metrics.start();
 
     for (int x = 0; x < width; x++) {
       for (int y = 0; y < height; y++) {
-        if (board[x][y]) {
+        if (x == 0 || y == 0 || x == width - 1 || y == height - 1 ||
+            (board[(y + 1) * words + x / Long.SIZE] & 1L << x) != 0) {
           level.setForegroundTile(x, y, foregroundType);
         } else {
-          level.setForegroundTile(x, y, new EmptyTile());
+          level.setForegroundTile(x, y, EmptyTile.INSTANCE);
         }
         level.setBackgroundTile(x, y, backgroundType);
       }
     }
+    Metrics.endStage(Metrics.GENERATION, "cave tiles", stageStart);
+    stageStart = Metrics.start();
+    fillPockets();
+    Metrics.endStage(Metrics.GENERATION, "cave pockets", stageStart);
+    stageStart = Metrics.start();
     placeLadders();
+    Metrics.endStage(Metrics.GENERATION, "cave ladders", stageStart);
+    Metrics.end(Metrics.GENERATION, getClass(), start);
 
     return level;
   }
 
+  /**
+   * Runs one step of the automaton over every row of the board. The eight
+   * neighbours of a word's cells are the words above, below and beside it,
+   * shifted by a bit either way, and they are added up bit by bit into four
+   * bit planes holding each cell's count.
+   * @param board
+   * @param newBoard the board to write the next generation to
+   * @param words the number of words in a row
+   * @param padding the bits of a row's last word that are past the board
+   * @param birthLimit
+   * @param deathLimit
+   */
+  private void step(long[] board, long[] newBoard, int words, long padding,
+      int birthLimit, int deathLimit) {
+    for (int y = 1; y <= height; y++) {
+      int up = (y - 1) * words;
+      int row = y * words;
+      int down = (y + 1) * words;
+      // The words left of the board are walls.
+      long upLeft = -1L;
+      long left = -1L;
+      long downLeft = -1L;
+      long upWord = board[up];
+      long word = board[row];
+      long downWord = board[down];
+
+      for (int i = 0; i < words; i++) {
+        boolean last = i == words - 1;
+        long upRight = last ? -1L : board[up + i + 1];
+        long right = last ? -1L : board[row + i + 1];
+        long downRight = last ? -1L : board[down + i + 1];
+
+        // Full adders over the neighbours, giving the count's bits.
+        long n1 = upWord << 1 | upLeft >>> 63;
+        long n2 = upWord;
+        long n3 = upWord >>> 1 | upRight << 63;
+        long n4 = word << 1 | left >>> 63;
+        long n5 = word >>> 1 | right << 63;
+        long n6 = downWord << 1 | downLeft >>> 63;
+        long n7 = downWord;
+        long n8 = downWord >>> 1 | downRight << 63;
+        long a = n1 ^ n2;
+        long sumA = a ^ n3;
+        long carryA = n1 & n2 | n3 & a;
+        long b = n4 ^ n5;
+        long sumB = b ^ n6;
+        long carryB = n4 & n5 | n6 & b;
+        long sumC = n7 ^ n8;
+        long carryC = n7 & n8;
+        long c = sumA ^ sumB;
+        long bit0 = c ^ sumC;
+        long carryD = sumA & sumB | sumC & c;
+        long d = carryA ^ carryB;
+        long twos = d ^ carryC;
+        long foursA = carryA & carryB | carryC & d;
+        long bit1 = twos ^ carryD;
+        long foursB = twos & carryD;
+        long bit2 = foursA ^ foursB;
+        long bit3 = foursA & foursB;
+
+        long survives = atLeast(bit3, bit2, bit1, bit0, deathLimit);
+        long born = atLeast(bit3, bit2, bit1, bit0, birthLimit + 1);
+        newBoard[row + i] = word & survives | ~word & born;
+
+        upLeft = upWord;
+        left = word;
+        downLeft = downWord;
+        upWord = upRight;
+        word = right;
+        downWord = downRight;
+      }
+      newBoard[row + words - 1] |= padding;
+    }
+  }
+
+  /**
+   * Compares 64 counts, given as bit planes, with a number.
+   * @param bit3
+   * @param bit2
+   * @param bit1
+   * @param bit0
+   * @param n
+   * @return a mask of the counts that are at least n
+   */
+  private static long atLeast(long bit3, long bit2, long bit1, long bit0,
+      int n) {
+    if (n <= 0) {
+      return -1L;
+    }
+    if (n > 15) {
+      return 0;
+    }
+    // Walk down from the highest bit, keeping the counts that are already
+    // greater than n, and the ones that are equal to it so far.
+    long greater = 0;
+    long equal = -1L;
+
+    if ((n & 8) != 0) {
+      equal &= bit3;
+    } else {
+      greater |= equal & bit3;
+      equal &= ~bit3;
+    }
+    if ((n & 4) != 0) {
+      equal &= bit2;
+    } else {
+      greater |= equal & bit2;
+      equal &= ~bit2;
+    }
+    if ((n & 2) != 0) {
+      equal &= bit1;
+    } else {
+      greater |= equal & bit1;
+      equal &= ~bit1;
+    }
+    if ((n & 1) != 0) {
+      equal &= bit0;
+    } else {
+      greater |= equal & bit0;
+      equal &= ~bit0;
+    }
+    return greater | equal;
+  }
+
+  /**
+   * Fills in every region of the cave but the largest one, so that the
+   * ladders and everything placed on the level later can be reached from
+   * anywhere on it.
+   */
+  private void fillPockets() {
+    int[] regions = new int[width * height];
+    int[] sizes = new int[width * height];
+    int largest = 0;
+
+    // Read every region first, since filling in a tile relabels the level.
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int region = level.getRegion(x, y);
+        regions[x * height + y] = region;
+        if (region >= 0 && ++sizes[region] > sizes[largest]) {
+          largest = region;
+        }
+      }
+    }
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int region = regions[x * height + y];
+        if (region >= 0 && region != largest) {
+          level.setForegroundTile(x, y, foregroundType);
+        }
+      }
+    }
+  }
+
   protected void placeLadders() {
     Point ladderLocation;
     if (hasNext) {
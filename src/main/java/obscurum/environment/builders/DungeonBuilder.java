@@ -3,6 +3,7 @@ package obscurum.environment.builders;
 import java.awt.Point;
 import java.lang.Math;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
 import obscurum.environment.Level;
@@ -14,6 +15,8 @@ import obscurum.environment.foreground.ForegroundTile;
 import obscurum.placeholders.BackgroundLevelBound;
 import obscurum.placeholders.ConnectorBackground;
 import obscurum.placeholders.PathBackground;
+import obscurum.util.DisjointSet;
+import obscurum.util.Metrics;
 
 /**
  * This generates a dungeon made of rooms of various sizes connected by
@@ -23,6 +26,9 @@ import obscurum.placeholders.PathBackground;
  * @author Alex Ghita
  */
 public class DungeonBuilder extends Builder {
+  // The cells taken up by the rooms placed so far.
+  private RoomMask roomCells;
+
   /**
    * Class constructor specifying the level size and foreground and background
    * tile types, i.e. what tile to be used to fill unaccessible areas (e.g.
@@ -94,13 +100,25 @@ public class DungeonBuilder extends Builder {
           ".");
     }
 
+    long start = Metrics.start();
+    long stageStart = start;
     initialiseBoard(foregroundType, backgroundType);
     makeRooms(attempts, minRoomSize, maxRoomSize);
+    Metrics.endStage(Metrics.GENERATION, "dungeon rooms", stageStart);
+    stageStart = Metrics.start();
     makePaths();
+    Metrics.endStage(Metrics.GENERATION, "dungeon paths", stageStart);
+    stageStart = Metrics.start();
     makeConnections(carveChance);
+    Metrics.endStage(Metrics.GENERATION, "dungeon connections", stageStart);
+    stageStart = Metrics.start();
     trimDeadEnds(maxTrims);
     cleanUp();
+    Metrics.endStage(Metrics.GENERATION, "dungeon trimming", stageStart);
+    stageStart = Metrics.start();
     placeLadders();
+    Metrics.endStage(Metrics.GENERATION, "dungeon ladders", stageStart);
+    Metrics.end(Metrics.GENERATION, getClass(), start);
     return level;
   }
 
@@ -119,6 +137,7 @@ public class DungeonBuilder extends Builder {
     int topLeftX;
     int topLeftY;
 
+    roomCells = new RoomMask(width, height);
     for (int i = 0; i < attempts; i++) {
       roomWidth = getRandomOddNumber(minRoomSize, maxRoomSize, true);
       roomHeight = getRandomOddNumber(minRoomSize, maxRoomSize, true);
@@ -126,8 +145,12 @@ public class DungeonBuilder extends Builder {
       topLeftY = getRandomOddNumber(1, height - roomHeight - 1, false);
       if (canPlaceRoom(roomWidth, roomHeight, topLeftX, topLeftY)) {
         carveRoom(roomWidth, roomHeight, topLeftX, topLeftY);
+        for (int y = topLeftY; y < topLeftY + roomHeight; y++) {
+          roomCells.mark(y, topLeftX, topLeftX + roomWidth - 1);
+        }
       }
     }
+    roomCells = null;
   }
 
   /**
@@ -145,114 +168,137 @@ public class DungeonBuilder extends Builder {
   }
 
   /**
-   * This connects the dungeon by starting in a random room and applying a
-   * flood fill to determine where to carve connections between rooms and
-   * paths. It will also carve additional connections, such that the dungeon
-   * will contain loops.
+   * This connects the dungeon by treating its rooms and paths as regions, and
+   * the connectors between them as edges. The connectors are taken in a
+   * random order, and each one that joins regions which are not connected
+   * yet is carved, as in Kruskal's algorithm, so that every region with a
+   * connector ends up reachable from every other. Any other connector is
+   * carved with a small probability, such that the dungeon will contain
+   * loops, or filled back in.
    * @param carveChance chance to carve a connector that does not lead to a new
    *                    area, i.e. chance to create a loop in the maze
    */
   private void makeConnections(double carveChance) {
-    boolean expanded;
-    Point current;
-    Point start = new Point();
-    Point test;
-    ArrayList<Point> connectors = new ArrayList<Point>();
-    Queue<Point> fringe = new LinkedList<Point>();
-    boolean[][] reached = new boolean[width][height];
+    int[] regions = new int[width * height];
+    int[] connectors;
+    int connectorCount = 0;
 
     // Mark the connectors on the board.
     markConnectors();
-    // Pick a starting point.
-    do {
-      start.x = (int)(Math.random() * width);
-      start.y = (int)(Math.random() * height);
-    } while (!level.isForegroundOfType(start, new EmptyTile()) ||
-        !level.isBackgroundOfType(start, backgroundType));
-    fringe.add(start);
-    reached[start.x][start.y] = true;
-
-    do {
-      expanded = false;
-      // Flood-fill as much as possible without carving new connections.
-      while (!fringe.isEmpty()) {
-        current = fringe.remove();
-        for (int x = -1; x <= 1; x++) {
-          for (int y = -1; y <= 1; y++) {
-            if (x == 0 && y == 0 || x != 0 && y != 0) {
-              continue;
-            }
-            test = new Point(current.x + x, current.y + y);
-            if (!level.isInBounds(test) ||
-                level.isForegroundOfType(test, foregroundType)) {
-              continue;
-            }
-            // Add any connectors reached to a separate list.
-            if (level.isBackgroundOfType(test, new ConnectorBackground()) &&
-                !reached[test.x][test.y]) {
-              connectors.add(test);
-              reached[test.x][test.y] = true;
-            // And all other tiles to the fringe.
-            } else if (!reached[test.x][test.y]) {
-              fringe.add(test);
-              reached[test.x][test.y] = true;
-            }
+    DisjointSet connected = new DisjointSet(labelRegions(regions));
+    connectors = new int[width * height];
+    for (int x = 1; x < width - 1; x++) {
+      for (int y = 1; y < height - 1; y++) {
+        if (level.isBackgroundOfType(x, y, ConnectorBackground.class)) {
+          connectors[connectorCount++] = x * height + y;
+        }
+      }
+    }
+    // Shuffle the connectors.
+    for (int i = connectorCount - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = connectors[i];
+      connectors[i] = connectors[j];
+      connectors[j] = swap;
+    }
+
+    for (int i = 0; i < connectorCount; i++) {
+      int currentX = connectors[i] / height;
+      int currentY = connectors[i] % height;
+      int firstRegion = -1;
+      boolean joins = false;
+
+      // Merge the regions around the connector, if they are not connected.
+      for (int x = -1; x <= 1; x++) {
+        for (int y = -1; y <= 1; y++) {
+          if (x == 0 && y == 0 || x != 0 && y != 0) {
+            continue;
+          }
+          int testX = currentX + x;
+          int testY = currentY + y;
+          if (!level.isInBounds(testX, testY) ||
+              regions[testX * height + testY] < 0) {
+            continue;
+          }
+          if (firstRegion < 0) {
+            firstRegion = regions[testX * height + testY];
+          } else if (connected.union(firstRegion,
+              regions[testX * height + testY])) {
+            joins = true;
           }
         }
       }
-      /**
-       * Carve connections until a new area is discovered, or until there are
-       * no more connectors.
-       */
-      while (!expanded && !connectors.isEmpty()) {
-        int index = (int)(Math.random() * connectors.size());
-        current = connectors.remove(index);
-        // Ensure that no two adjacent connectors are carved.
-        if (level.countAdjacentForegroundTiles(current, foregroundType) +
-            level.countAdjacentBackgroundTiles(current,
-            new ConnectorBackground()) < 2) {
-          level.setForegroundTile(current, foregroundType);
-          level.setBackgroundTile(current, backgroundType);
+      if (joins) {
+        level.setBackgroundTile(currentX, currentY, PathBackground.INSTANCE);
+      // Ensure that no two adjacent connectors are carved as loops.
+      } else if (level.countAdjacentForegroundTiles(currentX, currentY,
+          foregroundType) + level.countAdjacentBackgroundTiles(currentX,
+          currentY, ConnectorBackground.INSTANCE) >= 2 &&
+          random.nextDouble() >= 1.0 - carveChance) {
+        level.setBackgroundTile(currentX, currentY, PathBackground.INSTANCE);
+      } else {
+        level.setForegroundTile(currentX, currentY, foregroundType);
+        level.setBackgroundTile(currentX, currentY, backgroundType);
+      }
+    }
+  }
+
+  /**
+   * Labels every carved tile that is not a connector with the region it
+   * belongs to, i.e. its room or path, by flood-filling each region in turn.
+   * @param regions the board to label, indexed by x * height + y; tiles that
+   *                are not part of a region are labelled -1
+   * @return the number of regions
+   */
+  private int labelRegions(int[] regions) {
+    int count = 0;
+    int[] fringe = new int[width * height];
+
+    Arrays.fill(regions, -1);
+    for (int x = 1; x < width - 1; x++) {
+      for (int y = 1; y < height - 1; y++) {
+        if (regions[x * height + y] >= 0 || !isInRegion(x, y)) {
           continue;
         }
-        // Search for a new tile around the carved connector.
-        for (int x = -1; x <= 1; x++) {
-          for (int y = -1; y <= 1; y++) {
-            if (x == 0 && y == 0 || x != 0 && y != 0) {
-              continue;
-            }
-            test = new Point(current.x + x, current.y + y);
-            if (!level.isInBounds(test) || reached[test.x][test.y] ||
-                level.isForegroundOfType(test, foregroundType)) {
-              continue;
-            }
-            // Add the new tile to the fringe and resume the flood fill.
-            if (!reached[test.x][test.y]) {
-              expanded = true;
-              fringe.add(test);
-              level.setBackgroundTile(current, new PathBackground());
-              break;
+        int head = 0;
+        int tail = 0;
+        regions[x * height + y] = count;
+        fringe[tail++] = x * height + y;
+        while (head < tail) {
+          int currentX = fringe[head] / height;
+          int currentY = fringe[head++] % height;
+          for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+              if (i == 0 && j == 0 || i != 0 && j != 0) {
+                continue;
+              }
+              int testX = currentX + i;
+              int testY = currentY + j;
+              if (level.isInBounds(testX, testY) &&
+                  regions[testX * height + testY] < 0 &&
+                  isInRegion(testX, testY)) {
+                regions[testX * height + testY] = count;
+                fringe[tail++] = testX * height + testY;
+              }
             }
           }
-          if (expanded) {
-            break;
-          }
-        }
-        /**
-         * If no new area has been found, take all currently-discovered
-         * connectors and carve them with a small probability, or fill them
-         * back in.
-         */
-        if (!expanded) {
-          if (Math.random() >= 1.0 - carveChance) {
-            level.setBackgroundTile(current, new PathBackground());
-          } else {
-            level.setForegroundTile(current, foregroundType);
-            level.setBackgroundTile(current, backgroundType);
-          }
         }
+        count++;
       }
-    } while (!connectors.isEmpty());
+    }
+    return count;
+  }
+
+  /**
+   * Tests whether the tile at the given coordinates belongs to a region, i.e.
+   * whether it is carved and is not a connector.
+   * @param x
+   * @param y
+   * @return
+   */
+  private boolean isInRegion(int x, int y) {
+    return !level.isForegroundOfType(x, y, foregroundType) &&
+        !level.isBackgroundOfType(x, y, ConnectorBackground.class);
   }
 
   /**
@@ -264,14 +310,13 @@ public class DungeonBuilder extends Builder {
   private void trimDeadEnds(int maxTrims) {
     int trims = 0;
     Point current;
-    Point test;
     Queue<Point> deadEnds = new LinkedList<Point>();
 
     // Add all dead ends to a queue.
     for (int x = 1; x < width - 1; x++) {
       for (int y = 1; y < height - 1; y++) {
-        if (level.isBackgroundOfType(x, y, new PathBackground()) &&
-            level.countAdjacentForegroundTiles(x, y, new EmptyTile()) <= 1) {
+        if (level.isBackgroundOfType(x, y, PathBackground.class) &&
+            level.countAdjacentForegroundTiles(x, y, EmptyTile.class) <= 1) {
           deadEnds.add(new Point(x, y));
         }
       }
@@ -292,11 +337,13 @@ public class DungeonBuilder extends Builder {
           if (x == 0 && y == 0 || x != 0 && y != 0) {
             continue;
           }
-          test = new Point(current.x + x, current.y + y);
-          if (level.isInBounds(test) &&
-              level.isBackgroundOfType(test, new PathBackground()) &&
-              level.countAdjacentForegroundTiles(test, new EmptyTile()) <= 1) {
-            deadEnds.add(test);
+          int testX = current.x + x;
+          int testY = current.y + y;
+          if (level.isInBounds(testX, testY) &&
+              level.isBackgroundOfType(testX, testY, PathBackground.class) &&
+              level.countAdjacentForegroundTiles(testX, testY,
+              EmptyTile.class) <= 1) {
+            deadEnds.add(new Point(testX, testY));
           }
         }
       }
@@ -309,7 +356,7 @@ public class DungeonBuilder extends Builder {
   private void cleanUp() {
     for (int x = 1; x < width - 1; x++) {
       for (int y = 1; y < height - 1; y++) {
-        if (level.isBackgroundOfType(x, y, new PathBackground())) {
+        if (level.isBackgroundOfType(x, y, PathBackground.class)) {
           level.setBackgroundTile(x, y, backgroundType);
         }
       }
@@ -327,7 +374,7 @@ public class DungeonBuilder extends Builder {
       int topLeftY) {
     for (int x = topLeftX; x < topLeftX + roomWidth; x++) {
       for (int y = topLeftY; y < topLeftY + roomHeight; y++) {
-        level.setForegroundTile(x, y, new EmptyTile());
+        level.setForegroundTile(x, y, EmptyTile.INSTANCE);
         level.setBackgroundTile(x, y, backgroundType);
       }
     }
@@ -339,7 +386,6 @@ public class DungeonBuilder extends Builder {
    */
   private void carvePath(Point start) {
     int index;
-    Point test;
     Point current;
     Point opposite;
     // Store the tiles to be expanded.
@@ -348,7 +394,7 @@ public class DungeonBuilder extends Builder {
     ArrayList<Point> parents = new ArrayList<Point>();
 
     // Mark the starting point as a path and carve the foreground.
-    level.setTile(start, new EmptyTile(), new PathBackground());
+    level.setTile(start, EmptyTile.INSTANCE, PathBackground.INSTANCE);
 
     // Add nearby tiles that have not been carved yet to the frontier.
     for (int x = -1; x <= 1; x++) {
@@ -356,10 +402,11 @@ public class DungeonBuilder extends Builder {
         if (x == 0 && y == 0 || x != 0 && y != 0) {
           continue;
         }
-        test = new Point(start.x + x, start.y + y);
-        if (level.isInBounds(test) &&
-            level.isForegroundOfType(test, foregroundType)) {
-          frontier.add(test);
+        int testX = start.x + x;
+        int testY = start.y + y;
+        if (level.isInBounds(testX, testY) &&
+            level.isForegroundOfType(testX, testY, foregroundType)) {
+          frontier.add(new Point(testX, testY));
           parents.add(new Point(start.x, start.y));
         }
       }
@@ -367,7 +414,7 @@ public class DungeonBuilder extends Builder {
 
     while (!frontier.isEmpty()) {
       // Take a random tile from the frontier and its parent.
-      index = (int)(Math.random() * frontier.size());
+      index = random.nextInt(frontier.size());
       current = frontier.remove(index);
       opposite = parents.remove(index);
       // Compute the opposite of the parent with respect to the child tile.
@@ -379,13 +426,13 @@ public class DungeonBuilder extends Builder {
 
       // If neither tile has been carved, add them both to the path.
       if (level.isForegroundOfType(current, foregroundType) &&
-          level.countSurroundingTiles(current, new EmptyTile(),
+          level.countSurroundingTiles(current, EmptyTile.INSTANCE,
           backgroundType) == 0) {
         if (level.isForegroundOfType(opposite, foregroundType) &&
-            level.countSurroundingTiles(opposite, new EmptyTile(),
+            level.countSurroundingTiles(opposite, EmptyTile.INSTANCE,
             backgroundType) == 0) {
-          level.setTile(current, new EmptyTile(), new PathBackground());
-          level.setTile(opposite, new EmptyTile(), new PathBackground());
+          level.setTile(current, EmptyTile.INSTANCE, PathBackground.INSTANCE);
+          level.setTile(opposite, EmptyTile.INSTANCE, PathBackground.INSTANCE);
 
           // Add more tiles close to the opposite to the frontier.
           for (int x = -1; x <= 1; x++) {
@@ -393,10 +440,11 @@ public class DungeonBuilder extends Builder {
               if (x == 0 && y == 0 || x != 0 && y != 0) {
                 continue;
               }
-              test = new Point(opposite.x + x, opposite.y + y);
-              if (level.isInBounds(test) &&
-                  level.isForegroundOfType(test, foregroundType)) {
-                frontier.add(test);
+              int testX = opposite.x + x;
+              int testY = opposite.y + y;
+              if (level.isInBounds(testX, testY) &&
+                  level.isForegroundOfType(testX, testY, foregroundType)) {
+                frontier.add(new Point(testX, testY));
                 parents.add(new Point(opposite.x, opposite.y));
               }
             }
@@ -421,25 +469,27 @@ public class DungeonBuilder extends Builder {
         }
         if (!level.isForegroundOfType(x - 1, y, foregroundType) &&
             !level.isForegroundOfType(x + 1, y, foregroundType) &&
-            !(level.isBackgroundOfType(x - 1, y, new PathBackground()) &&
-            level.isBackgroundOfType(x + 1, y, new PathBackground())) ||
+            !(level.isBackgroundOfType(x - 1, y, PathBackground.class) &&
+            level.isBackgroundOfType(x + 1, y, PathBackground.class)) ||
             !level.isForegroundOfType(x, y - 1, foregroundType) &&
             !level.isForegroundOfType(x, y + 1, foregroundType) &&
-            !(level.isBackgroundOfType(x, y - 1, new PathBackground()) &&
-            level.isBackgroundOfType(x, y + 1, new PathBackground()))) {
+            !(level.isBackgroundOfType(x, y - 1, PathBackground.class) &&
+            level.isBackgroundOfType(x, y + 1, PathBackground.class))) {
           connectors.add(new Point(x, y));
         }
       }
     }
     // Mark the connectors.
     for (Point p : connectors) {
-      level.setTile(p, new EmptyTile(), new ConnectorBackground());
+      level.setTile(p, EmptyTile.INSTANCE, ConnectorBackground.INSTANCE);
     }
   }
 
   /**
    * Tests whether a room can be placed at a specific location, i.e. if there
-   * is no other room overlapping its designated area.
+   * is no other room overlapping its designated area. Each row of the area is
+   * tested against the rooms placed so far a word at a time, so the test
+   * costs the room's height rather than its area.
    * @param roomWidth
    * @param roomHeight
    * @param topLeftX
@@ -449,28 +499,14 @@ public class DungeonBuilder extends Builder {
   private boolean canPlaceRoom(int roomWidth, int roomHeight, int topLeftX,
       int topLeftY) {
     // Ensure the room and its walls do not overlap with any other room.
-    for (int x = topLeftX - 1; x <= topLeftX + roomWidth; x++) {
-      for (int y = topLeftY - 1; y <= topLeftY + roomHeight; y++) {
-        if (level.isForegroundOfType(x, y, new EmptyTile())) {
-          return false;
-        }
+    for (int y = topLeftY - 1; y <= topLeftY + roomHeight; y++) {
+      if (roomCells.intersects(y, topLeftX - 1, topLeftX + roomWidth)) {
+        return false;
       }
     }
     return true;
   }
 
-  /**
-   * Tests whether a point is inside a room and not on its margins.
-   * @param p
-   * @return
-   */
-  private boolean isInRoom(Point p) {
-    if (level.countSurroundingTiles(p, new EmptyTile(), backgroundType) == 8) {
-      return true;
-    }
-    return false;
-  }
-
   /**
    * Returns a random odd number between the given bounds. Assumes that minVal
    * is not greater than maxVal.
@@ -483,7 +519,7 @@ public class DungeonBuilder extends Builder {
     int num;
     int diff;
     diff = add ? 1 : -1;
-    num = minVal + (int)(Math.random() * (maxVal - minVal + 1));
+    num = minVal + random.nextInt(maxVal - minVal + 1);
     num = num % 2 == 0 ? num + diff : num;
     return num;
   }
@@ -491,22 +527,20 @@ public class DungeonBuilder extends Builder {
   /**
    * Places the downward and upward ladders which connect the current level to
    * the next and the previous levels. Ladders are placed randomly inside
-   * rooms, and only if the level is connected to other levels.
+   * rooms, and only if the level is connected to other levels. Paths are
+   * only one tile wide, so any empty tile surrounded by empty tiles lies
+   * inside a room.
    */
   protected void placeLadders() {
     Point ladderLocation;
     if (hasNext) {
-      do {
-        ladderLocation = level.getRandomEmptyLocation();
-      } while (!isInRoom(ladderLocation));
+      ladderLocation = level.getRandomOpenLocation();
       level.setBackgroundTile(ladderLocation, new DownwardLadder(
           level.getBackgroundTile(ladderLocation)));
       level.setNextLocation(ladderLocation);
     }
     if (hasPrevious) {
-      do {
-        ladderLocation = level.getRandomEmptyLocation();
-      } while (!isInRoom(ladderLocation));
+      ladderLocation = level.getRandomOpenLocation();
       level.setBackgroundTile(ladderLocation, new UpwardLadder(
           level.getBackgroundTile(ladderLocation)));
       level.setPreviousLocation(ladderLocation);
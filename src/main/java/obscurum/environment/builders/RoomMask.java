@@ -0,0 +1,73 @@
+package obscurum.environment.builders;
+
+/**
+ * This models the cells of a board taken up by rooms, as rows of bits, so
+ * that a room's area can be tested against the rooms placed so far a word at
+ * a time.
+ * @author Alex Ghita
+ */
+final class RoomMask {
+  private final long[] cells;
+  private final int rowWords;
+
+  /**
+   * Class constructor specifying the board size. No cell is taken initially.
+   * @param width
+   * @param height
+   */
+  RoomMask(int width, int height) {
+    rowWords = (width + Long.SIZE - 1) / Long.SIZE;
+    cells = new long[height * rowWords];
+  }
+
+  /**
+   * Tests whether any cell of the given row between the given columns,
+   * inclusive, is taken up by a room.
+   * @param y
+   * @param fromX
+   * @param toX
+   * @return
+   */
+  boolean intersects(int y, int fromX, int toX) {
+    int first = fromX / Long.SIZE;
+    int last = toX / Long.SIZE;
+
+    for (int i = first; i <= last; i++) {
+      if ((cells[y * rowWords + i] & mask(i, first, last, fromX, toX)) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Marks the cells of the given row between the given columns, inclusive, as
+   * taken up by a room.
+   * @param y
+   * @param fromX
+   * @param toX
+   */
+  void mark(int y, int fromX, int toX) {
+    int first = fromX / Long.SIZE;
+    int last = toX / Long.SIZE;
+
+    for (int i = first; i <= last; i++) {
+      cells[y * rowWords + i] |= mask(i, first, last, fromX, toX);
+    }
+  }
+
+  /**
+   * Gets the bits of the given word of a row that lie between the given
+   * columns, inclusive.
+   */
+  private static long mask(int i, int first, int last, int fromX, int toX) {
+    long mask = -1L;
+    if (i == first) {
+      mask &= -1L << fromX;
+    }
+    if (i == last) {
+      mask &= -1L >>> Long.SIZE - 1 - toX % Long.SIZE;
+    }
+    return mask;
+  }
+}
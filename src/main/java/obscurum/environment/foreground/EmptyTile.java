@@ -7,6 +7,12 @@ import obscurum.display.Display;
  * @author Alex Ghita
  */
 public class EmptyTile extends ForegroundTile {
+  /**
+   * The shared instance. Empty tiles carry no state, so every cleared
+   * location can use this one.
+   */
+  public static final EmptyTile INSTANCE = new EmptyTile();
+
   /**
    * Class constructor with fixed values.
    */
@@ -132,6 +132,17 @@ public abstract class ForegroundTile extends Tile {
     this.opaque = opaque;
   }
 
+  @Override
+  public boolean isEquivalentTo(Tile tile) {
+    if (!super.isEquivalentTo(tile)) {
+      return false;
+    }
+    ForegroundTile f = (ForegroundTile)tile;
+    return health == f.health && maxHealth == f.maxHealth &&
+        armour == f.armour && invulnerable == f.invulnerable &&
+        opaque == f.opaque;
+  }
+
   /**
    * Deals damage to the tile, and returns the damage dealt.
    * @param damage
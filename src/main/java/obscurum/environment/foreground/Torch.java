@@ -1,8 +1,7 @@
 package obscurum.environment.foreground;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import obscurum.creatures.util.Line;
+import obscurum.creatures.util.FieldOfView;
 import obscurum.display.Display;
 import obscurum.environment.Level;
 
@@ -15,6 +14,7 @@ public class Torch extends ForegroundTile {
   int lineOfSight;
   Level level;
   Point location;
+  private final FieldOfView fieldOfView;
 
   public Torch(int lineOfSight, Level level, Point location) {
     super("Torch", (char)15, Display.ORANGE, 1, 0, true, true);
@@ -27,30 +27,53 @@ public class Torch extends ForegroundTile {
     this.lineOfSight = lineOfSight;
     this.level = level;
     this.location = location;
+    fieldOfView = new FieldOfView(FieldOfView.SHADOWCASTING);
   }
 
   public boolean canSee(Point target) {
-    int distance = (location.x - target.x) * (location.x - target.x) +
-        (location.y - target.y) * (location.y - target.y);
-    Line sightRay;
-    ArrayList<Point> linePoints;
+    return canSee(target.x, target.y);
+  }
+
+  public boolean canSee(int x, int y) {
+    computeLight();
+    return illuminates(x, y);
+  }
+
+  /**
+   * Recomputes which tiles the torch lights, unless none of the level's
+   * opaque tiles have changed since the last time.
+   */
+  public void computeLight() {
+    fieldOfView.compute(level, location.x, location.y, lineOfSight);
+  }
+
+  /**
+   * Checks whether the torch lit the tile at the given coordinates the last
+   * time its light was computed.
+   * @param x
+   * @param y
+   * @return
+   */
+  public boolean illuminates(int x, int y) {
+    int distance = (location.x - x) * (location.x - x) +
+        (location.y - y) * (location.y - y);
 
     if (distance > lineOfSight * lineOfSight) {
       return false;
     }
-    sightRay = new Line(location, target);
-    sightRay.plotLine();
-    linePoints = sightRay.getPoints();
-    for (Point p : linePoints) {
-      if (level.getForegroundTile(p).isOpaque() &&
-          !p.equals(target) && !p.equals(location)) {
-        return false;
-      }
-    }
-    return true;
+    return fieldOfView.isVisible(x, y);
+  }
+
+  public int getLineOfSight() {
+    return lineOfSight;
   }
 
   public Point getLocation() {
     return location;
   }
+
+  @Override
+  public boolean isShareable() {
+    return false;
+  }
 }
@@ -9,6 +9,7 @@ import obscurum.creatures.ai.*;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.ForegroundTile;
+import obscurum.util.Rng;
 
 /**
  * This models a creature factory, which has several methods to spawn all the
@@ -104,7 +105,7 @@ public class CreatureFactory {
 
   private CreatureAI pickAI(Creature user, HashMap<String, Double> aiOptions,
       ArrayList<ForegroundTile> transparentTiles) {
-    double chance = Math.random();
+    double chance = Rng.current().nextDouble();
     double totalChance = 0;
     String aiName = "";
 
@@ -5,8 +5,8 @@ import obscurum.creatures.Spawner;
 import obscurum.creatures.TreasureChest;
 import obscurum.environment.Level;
 import obscurum.environment.background.SpikeTrap;
-import obscurum.environment.foreground.EmptyTile;
 import obscurum.environment.foreground.Torch;
+import obscurum.util.Rng;
 
 /**
  * This models a furniture factory, which has several methods to spawn torches,
@@ -21,37 +21,25 @@ public class FurnitureFactory {
   }
 
   public Torch newTorch() {
-    Point location;
-    do {
-      location = level.getRandomEmptyLocation();
-    } while (level.countSurroundingForegroundTiles(location,
-        new EmptyTile()) < 8);
-    Torch torch = new Torch(3 + (int)(Math.random() * 5), level, location);
+    Point location = getFurnitureLocation();
+    Torch torch = new Torch(3 + Rng.current().nextInt(5), level, location);
     level.setForegroundTile(torch.getLocation(), torch);
-    level.torches.add(torch);
+    level.addTorch(torch);
     return torch;
   }
 
   public void newSpawner(String[] creatures, int creaturePowerLevel,
       int maxCreatureCount, CreatureFactory factory) {
-    Point location;
-    do {
-      location = level.getRandomEmptyLocation();
-    } while (level.countSurroundingForegroundTiles(location,
-        new EmptyTile()) < 8);
+    Point location = getFurnitureLocation();
     Spawner spawner = new Spawner(level, location, creatures,
         creaturePowerLevel, maxCreatureCount, factory);
     level.setForegroundTile(location, spawner);
-    level.spawners.add(spawner);
+    level.addSpawner(spawner);
   }
 
   // Special treasure chest.
   public TreasureChest newTreasureChest() {
-    Point location;
-    do {
-      location = level.getRandomEmptyLocation();
-    } while (level.countSurroundingForegroundTiles(location,
-        new EmptyTile()) < 8);
+    Point location = getFurnitureLocation();
     TreasureChest chest = new TreasureChest(level, location);
     level.setForegroundTile(chest.getLocation(), chest);
 
@@ -59,11 +47,7 @@ public class FurnitureFactory {
   }
 
   public TreasureChest newTreasureChest(int powerLevel) {
-    Point location;
-    do {
-      location = level.getRandomEmptyLocation();
-    } while (level.countSurroundingForegroundTiles(location,
-        new EmptyTile()) < 8);
+    Point location = getFurnitureLocation();
     TreasureChest chest = new TreasureChest(level, location, powerLevel);
     level.setForegroundTile(chest.getLocation(), chest);
 
@@ -77,4 +61,18 @@ public class FurnitureFactory {
 
     return trap;
   }
+
+  /**
+   * Gets a random empty location surrounded by empty tiles, so that the
+   * furniture placed there does not block any passage.
+   * @return
+   */
+  private Point getFurnitureLocation() {
+    Point location = level.getRandomOpenLocation();
+    if (location == null) {
+      throw new IllegalStateException(
+          "Level has no free location to place furniture in.");
+    }
+    return location;
+  }
 }
@@ -8,6 +8,7 @@ import obscurum.display.DisplayCharacter;
 import obscurum.display.DisplayColour;
 import obscurum.display.DisplayTile;
 import obscurum.screens.InventoryScreen;
+import obscurum.util.Rng;
 
 /**
  * This models a depiction generator, which contains method to generate several
@@ -68,7 +69,7 @@ public class DepictionGenerator {
 
                 if (i == 0 || i == height - 1) {
                     DisplayTile horizontalGlyph = i == 0 ? bottomGlyph : topGlyph;
-                    double pickChance = cornerType == 0 ? Math.random() : 2 - cornerType;
+                    double pickChance = cornerType == 0 ? Rng.current().nextDouble() : 2 - cornerType;
 
                     // Pick a corner depending on the coordinates and the corner type.
                     rectangle[i][j] = j != 0 && j != width - 1 || pickChance < 0.5 ?
@@ -218,10 +219,10 @@ public class DepictionGenerator {
                 bottomGlyph, bottomGlyph, fillGlyph, cornerType);
 
         if (item.getModifier().getName().equals("Serrated")) {
-            int side = Math.random() < 0.5 ? 0 : bladeWidth - 1;
+            int side = Rng.current().nextDouble() < 0.5 ? 0 : bladeWidth - 1;
             char sideGlyph = side == 0 ? '<' : '>';
-            int start = Math.min(bladeHeight - 1, 2 + (int)(Math.random() * 6));
-            int stop = Math.min(bladeHeight - 1, bladeHeight - 2 - (int)(Math.random() * 6));
+            int start = Math.min(bladeHeight - 1, 2 + Rng.current().nextInt(6));
+            int stop = Math.min(bladeHeight - 1, bladeHeight - 2 - Rng.current().nextInt(6));
             for (int i = start; i <= stop; i++) {
                 blade[i][side] = new DisplayTile(DisplayCharacter.of(sideGlyph), accentColour);
             }
@@ -230,7 +231,7 @@ public class DepictionGenerator {
         if (item.getModifier().getName().equals("Jagged")) {
             for (int i = 0; i < blade.length; i++) {
                 if (i < blade.length - 2) {
-                    double chance = Math.random();
+                    double chance = Rng.current().nextDouble();
                     if (chance < 0.2) {
                         blade[i][0] = new DisplayTile(DisplayCharacter.of('\\'),
                                 blade[i][0].getForegroundColour());
@@ -365,8 +366,8 @@ public class DepictionGenerator {
         DisplayTile[][] hilt;
         DisplayTile[][] blade;
 
-        hiltBaseColour = COLOURS[(int)(Math.random() * COLOURS.length)];
-        hiltAccentColour = COLOURS[(int)(Math.random() * COLOURS.length)];
+        hiltBaseColour = COLOURS[Rng.current().nextInt(COLOURS.length)];
+        hiltAccentColour = COLOURS[Rng.current().nextInt(COLOURS.length)];
 
         do {
             ArrayList<Integer> unusedFeatures = new ArrayList<Integer>();
@@ -379,18 +380,18 @@ public class DepictionGenerator {
                 break;
             }
 
-            int feature = unusedFeatures.get((int)(Math.random() *
+            int feature = unusedFeatures.get(Rng.current().nextInt(
                     unusedFeatures.size()));
             usedFeatures[feature] = true;
             features -= featureCosts[feature];
             switch (feature) {
                 // Longer hilt.
                 case 0:
-                    hiltHeight = 4 + (int)(Math.random() * 3);
+                    hiltHeight = 4 + Rng.current().nextInt(3);
                     break;
                 // Wider hilt.
                 case 1:
-                    hiltWidth = 3 + (int)(Math.random() * 2);
+                    hiltWidth = 3 + Rng.current().nextInt(2);
                     break;
                 // Crossguard.
                 case 2:
@@ -398,7 +399,7 @@ public class DepictionGenerator {
                     break;
                 // Side glyphs.
                 case 3:
-                    hiltLeftGlyph = new DisplayTile(hiltSideGlyphs[(int)(Math.random() *
+                    hiltLeftGlyph = new DisplayTile(hiltSideGlyphs[Rng.current().nextInt(
                             hiltSideGlyphs.length)], DisplayColour.fromRgb("Colour", hiltAccentColour.getRed(), hiltAccentColour.getGreen(), hiltAccentColour.getBlue()));
                     hiltRightGlyph = getMatchingGlyph(hiltLeftGlyph, hiltSideGlyphs,
                             hiltSideGlyphConstraints);
@@ -425,55 +426,55 @@ public class DepictionGenerator {
         } while (features > 0);
 
         if (!usedFeatures[0]) {
-            hiltHeight = 3 + (int)(Math.random() * 5);
+            hiltHeight = 3 + Rng.current().nextInt(5);
         }
         if (!usedFeatures[1]) {
-            hiltWidth = 2 + (int)(Math.random() * 3);
+            hiltWidth = 2 + Rng.current().nextInt(3);
         }
         if (!usedFeatures[3]) {
-            hiltLeftGlyph = new DisplayTile(hiltSideGlyphs[(int)(Math.random() *
+            hiltLeftGlyph = new DisplayTile(hiltSideGlyphs[Rng.current().nextInt(
                     hiltSideGlyphs.length)], DisplayColour.fromRgb("Colour", hiltAccentColour.getRed(), hiltAccentColour.getGreen(), hiltAccentColour.getBlue()));
-            hiltRightGlyph = new DisplayTile(hiltSideGlyphs[(int)(Math.random() *
+            hiltRightGlyph = new DisplayTile(hiltSideGlyphs[Rng.current().nextInt(
                     hiltSideGlyphs.length)], DisplayColour.fromRgb("Colour", hiltAccentColour.getRed(), hiltAccentColour.getGreen(), hiltAccentColour.getBlue()));
         }
-        hiltTopGlyph = new DisplayTile(hiltBaseGlyphs[(int)(Math.random() *
+        hiltTopGlyph = new DisplayTile(hiltBaseGlyphs[Rng.current().nextInt(
                 hiltBaseGlyphs.length)], DisplayColour.fromRgb("Colour", hiltAccentColour.getRed(), hiltAccentColour.getGreen(), hiltAccentColour.getBlue()));
-        hiltBottomGlyph = new DisplayTile(hiltBaseGlyphs[(int)(Math.random() *
+        hiltBottomGlyph = new DisplayTile(hiltBaseGlyphs[Rng.current().nextInt(
                 hiltBaseGlyphs.length)], DisplayColour.fromRgb("Colour", hiltAccentColour.getRed(), hiltAccentColour.getGreen(), hiltAccentColour.getBlue()));
-        hiltFillGlyph = new DisplayTile(hiltFillGlyphs[(int)(Math.random() *
+        hiltFillGlyph = new DisplayTile(hiltFillGlyphs[Rng.current().nextInt(
                 hiltFillGlyphs.length)], DisplayColour.fromRgb("Colour", hiltBaseColour.getRed(), hiltBaseColour.getGreen(), hiltBaseColour.getBlue()));
 
-        if (!usedFeatures[2] && Math.random() < 0.5 || usedFeatures[2]) {
-            crossguardWidth = hiltWidth + 1 + (int)(Math.random() * hiltWidth * 2);
+        if (!usedFeatures[2] && Rng.current().nextDouble() < 0.5 || usedFeatures[2]) {
+            crossguardWidth = hiltWidth + 1 + Rng.current().nextInt(hiltWidth * 2);
             crossguardHeight = Math.min(hiltHeight - 1,
-                    2 + (int)(Math.random() * 2));
+                    2 + Rng.current().nextInt(2));
         }
 
         if (usedFeatures[5]) {
-            bladeHeight = Math.min(hiltHeight * (5 + (int)(Math.random() * 2)) +
-                            (int)(Math.random() * 7),
+            bladeHeight = Math.min(hiltHeight * (5 + Rng.current().nextInt(2)) +
+                            Rng.current().nextInt(7),
                     InventoryScreen.DISPLAY_HEIGHT - hiltHeight - 8);
         } else {
-            bladeHeight = Math.min(hiltHeight * (2 + (int)(Math.random() * 2)) +
-                            (int)(Math.random() * 7),
+            bladeHeight = Math.min(hiltHeight * (2 + Rng.current().nextInt(2)) +
+                            Rng.current().nextInt(7),
                     InventoryScreen.DISPLAY_HEIGHT - hiltHeight - 8);
         }
 
         if (usedFeatures[6]) {
-            bladeWidth = Math.min(4 + (int)(Math.random() * 3), hiltWidth);
+            bladeWidth = Math.min(4 + Rng.current().nextInt(3), hiltWidth);
         } else {
-            bladeWidth = Math.min(3 + (int)(Math.random() * 3), hiltWidth);
+            bladeWidth = Math.min(3 + Rng.current().nextInt(3), hiltWidth);
         }
 
         do {
-            bladeBaseColour = COLOURS[(int)(Math.random() * COLOURS.length)];
+            bladeBaseColour = COLOURS[Rng.current().nextInt(COLOURS.length)];
         } while (bladeBaseColour.equals(hiltBaseColour));
         do {
-            bladeAccentColour = COLOURS[(int)(Math.random() * COLOURS.length)];
+            bladeAccentColour = COLOURS[Rng.current().nextInt(COLOURS.length)];
         } while (bladeAccentColour.equals(hiltAccentColour));
-        bladeBottomGlyph = new DisplayTile(bladeBaseGlyphs[(int)(Math.random() *
+        bladeBottomGlyph = new DisplayTile(bladeBaseGlyphs[Rng.current().nextInt(
                 bladeBaseGlyphs.length)], DisplayColour.fromRgb("Colour", bladeAccentColour.getRed(), bladeAccentColour.getGreen(), bladeAccentColour.getBlue()));
-        bladeFillGlyph = new DisplayTile(bladeFillGlyphs[(int)(Math.random() *
+        bladeFillGlyph = new DisplayTile(bladeFillGlyphs[Rng.current().nextInt(
                 bladeFillGlyphs.length)], DisplayColour.fromRgb("Colour", bladeBaseColour.getRed(), bladeBaseColour.getGreen(), bladeBaseColour.getBlue()));
 
         ArrayList<Integer> allowedTips = new ArrayList<Integer>();
@@ -498,7 +499,7 @@ public class DepictionGenerator {
                 }
             }
         } while (removed);
-        tipType = allowedTips.get((int)(Math.random() * allowedTips.size()));
+        tipType = allowedTips.get(Rng.current().nextInt(allowedTips.size()));
 
         int hiltCornerType = usedFeatures[4] ? 1 : 0;
         int bladeCornerType = usedFeatures[8] ? 1 : 0;
@@ -513,7 +514,7 @@ public class DepictionGenerator {
         if (item.getModifier().getName().equals("Rusty")) {
             for (int i = 0; i < blade.length; i++) {
                 for (int j = 0; j < blade[i].length; j++) {
-                    if (Math.random() < 0.3) {
+                    if (Rng.current().nextDouble() < 0.3) {
                         blade[i][j] = new DisplayTile(blade[i][j].getDisplayCharacter(),
                                 DisplayColour.BROWN);
                     }
@@ -580,7 +581,7 @@ public class DepictionGenerator {
         }
 
         return new DisplayTile(compatibleGlyphs.get(
-                (int)(Math.random() * compatibleGlyphs.size())),
+                Rng.current().nextInt(compatibleGlyphs.size())),
                 glyph.getForegroundColour());
     }
 
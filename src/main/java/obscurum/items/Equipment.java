@@ -6,6 +6,7 @@ import obscurum.creatures.Creature;
 import obscurum.display.Display;
 import obscurum.display.DisplayTile;
 import obscurum.screens.InventoryScreen;
+import obscurum.util.Rng;
 
 /**
  * This models a piece of equipment, which is an item that can be worn by a
@@ -72,7 +73,7 @@ public abstract class Equipment extends Item {
     this.slot = slot;
     this.depictionType = depictionType;
     modifier = modifierList[depictionType]
-        [(int)(Math.random() * modifierList[depictionType].length)];
+        [Rng.current().nextInt(modifierList[depictionType].length)];
     this.name = modifier.getName() + " " + name;
     attributes = new int[Creature.NUM_OF_ATTRIBUTES];
     attributes[Creature.STRENGTH] =
@@ -30,7 +30,7 @@ public class Inventory {
       throw new IllegalArgumentException("Inventory size " + size +
           " must be at least 1.");
     }
-    if (owner == null || owner.isOfType(new NullCreature())) {
+    if (owner == null || owner instanceof NullCreature) {
       throw new IllegalArgumentException("Inventory owner cannot be null.");
     }
 
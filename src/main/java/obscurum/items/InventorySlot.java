@@ -81,7 +81,7 @@ public class InventorySlot {
    * @return
    */
   public boolean isEmpty() {
-    return item.isOfType(new NullItem());
+    return item instanceof NullItem;
   }
 
   /**
@@ -7,6 +7,7 @@ import obscurum.display.Display;
 import obscurum.display.DisplayCharacter;
 import obscurum.display.DisplayColour;
 import obscurum.display.DisplayTile;
+import obscurum.util.Rng;
 
 /**
  * This models a spell tome, which can be used to teach the player a spell.
@@ -144,7 +145,7 @@ public class SpellTome extends ConsumableItem {
     super("Tome of ", Display.BOOK, Display.BROWN,
         "Teaches you or improves your mastery of ", 1, 1, Item.RARE,
         standardDisplay);
-    spell = availableSpells[(int)(Math.random() * availableSpells.length)];
+    spell = availableSpells[Rng.current().nextInt(availableSpells.length)];
     name += spell.getName();
     description += spell.getName() + ".";
   }
@@ -5,6 +5,7 @@ import obscurum.display.Display;
 import obscurum.display.DisplayTile;
 import obscurum.items.Equipment;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models a piece of armour that can be equipped in the feet slot.
@@ -14,16 +15,16 @@ public class IronBoots extends Armour {
   public IronBoots(int level) {
     super("Iron Boots", 'b', Display.WHITE,
         "A pair of boots made out of iron.", 2 + level, Item.UNCOMMON,
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), Equipment.FEET, 1 + level * 3);
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Equipment.FEET, 1 + level * 3);
   }
 
   public IronBoots() {
     super("Iron Boots", 'b', Display.WHITE,
         "A pair of boots made out of iron.", 2, Item.UNCOMMON,
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), Equipment.FEET, 1);
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Equipment.FEET, 1);
   }
 }
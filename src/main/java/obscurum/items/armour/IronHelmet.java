@@ -5,6 +5,7 @@ import obscurum.display.Display;
 import obscurum.display.DisplayTile;
 import obscurum.items.Equipment;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models a piece of armour that can be equipped in the head slot.
@@ -14,16 +15,16 @@ public class IronHelmet extends Armour {
   public IronHelmet(int level) {
     super("Iron Helmet", (char)127, Display.WHITE,
         "A helmet made out of iron.", 2 + level, Item.UNCOMMON,
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), Equipment.HEAD, 3 + level * 3);
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Equipment.HEAD, 3 + level * 3);
   }
 
   public IronHelmet() {
     super("Iron Helmet", (char)127, Display.WHITE,
         "A helmet made out of iron.", 2, Item.UNCOMMON,
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), Equipment.HEAD, 5);
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Equipment.HEAD, 5);
   }
 }
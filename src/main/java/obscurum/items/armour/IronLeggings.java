@@ -5,6 +5,7 @@ import obscurum.display.Display;
 import obscurum.display.DisplayTile;
 import obscurum.items.Equipment;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models a piece of armour that can be equipped in the legs slot.
@@ -14,16 +15,16 @@ public class IronLeggings extends Armour {
   public IronLeggings(int level) {
     super("Iron Leggings", (char)225, Display.WHITE,
         "Leg armour made out of iron.", 2 + level, Item.UNCOMMON,
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), Equipment.LEGS, 4 + level);
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Equipment.LEGS, 4 + level);
   }
 
   public IronLeggings() {
     super("Iron Leggings", (char)225, Display.WHITE,
         "Leg armour made out of iron.", 2, Item.UNCOMMON,
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), Equipment.LEGS, 4);
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Equipment.LEGS, 4);
   }
 }
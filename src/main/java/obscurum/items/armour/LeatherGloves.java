@@ -5,6 +5,7 @@ import obscurum.display.Display;
 import obscurum.display.DisplayTile;
 import obscurum.items.Equipment;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models a piece of armour that can be equipped in the hands slot.
@@ -14,16 +15,16 @@ public class LeatherGloves extends Armour {
   public LeatherGloves(int level) {
     super("Iron Gloves", (char)234, Display.WHITE,
         "A pair of gloves made out of iron.", 2 + level, Item.UNCOMMON,
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), Equipment.HANDS, 1 + level);
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Equipment.HANDS, 1 + level);
   }
 
   public LeatherGloves() {
     super("Iron Gloves", (char)234, Display.WHITE,
         "A pair of gloves made out of iron.", 2, Item.UNCOMMON,
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), Equipment.HANDS, 1);
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Equipment.HANDS, 1);
   }
 }
@@ -6,6 +6,7 @@ import obscurum.display.DisplayCharacter;
 import obscurum.display.DisplayColour;
 import obscurum.display.DisplayTile;
 import obscurum.items.Item;
+import obscurum.util.Rng;
 
 /**
  * This models a bow, which is a ranged weapon.
@@ -50,18 +51,18 @@ public class Bow extends Weapon {
 
   public Bow(int level) {
     super("Bow", ')', Display.GREEN, "A bow.", 2 + level, Item.UNCOMMON,
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), (int)(Math.random() * (3 + level)),
-        (int)(Math.random() * (3 + level)), Weapon.RANGED, 3 + level * 2,
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Rng.current().nextInt(3 + level),
+        Rng.current().nextInt(3 + level), Weapon.RANGED, 3 + level * 2,
         5 + level * 2, 1);
     this.depiction = standardDepiction;
   }
 
   public Bow() {
     super("Bow", ')', Display.GREEN, "A bow.", 3, Item.UNCOMMON,
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), (int)(Math.random() * 3),
-        (int)(Math.random() * 3), Weapon.RANGED, 5, 7, 1);
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Rng.current().nextInt(3),
+        Rng.current().nextInt(3), Weapon.RANGED, 5, 7, 1);
     this.depiction = standardDepiction;
   }
 }
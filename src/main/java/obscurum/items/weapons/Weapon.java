@@ -4,6 +4,7 @@ import java.awt.Color;
 import java.lang.Math;
 import obscurum.display.DisplayTile;
 import obscurum.items.Equipment;
+import obscurum.util.Rng;
 
 /**
  * This models a weapon, which has an attack value and can be equipped in the
@@ -47,7 +48,10 @@ public abstract class Weapon extends Equipment {
   }
 
   public int dealDamage() {
-    return (int)(Math.random() * (maxDamage - minDamage)) + minDamage;
+    if (maxDamage <= minDamage) {
+      return minDamage;
+    }
+    return Rng.current().nextInt(maxDamage - minDamage) + minDamage;
   }
 
   public int getWeaponType() {
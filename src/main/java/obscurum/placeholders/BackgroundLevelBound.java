@@ -8,6 +8,11 @@ import obscurum.environment.background.BackgroundTile;
  * @author Alex Ghita
  */
 public class BackgroundLevelBound extends BackgroundTile {
+  /**
+   * The shared instance, returned for every out of bounds lookup.
+   */
+  public static final BackgroundLevelBound INSTANCE = new BackgroundLevelBound();
+
   /**
    * Class constructor specifying placeholder values.
    */
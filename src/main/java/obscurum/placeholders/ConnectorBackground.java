@@ -9,6 +9,11 @@ import obscurum.environment.background.BackgroundTile;
  * @author Alex Ghita
  */
 public class ConnectorBackground extends BackgroundTile {
+  /**
+   * The shared instance, used while connecting rooms.
+   */
+  public static final ConnectorBackground INSTANCE = new ConnectorBackground();
+
   /**
    * Class constructor specifying placeholder values.
    */
@@ -8,6 +8,11 @@ import obscurum.environment.foreground.ForegroundTile;
  * @author Alex Ghita
  */
 public class ForegroundLevelBound extends ForegroundTile {
+  /**
+   * The shared instance, returned for every out of bounds lookup.
+   */
+  public static final ForegroundLevelBound INSTANCE = new ForegroundLevelBound();
+
   /**
    * Class constructor specifying placeholder values.
    */
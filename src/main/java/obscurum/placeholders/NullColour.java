@@ -9,6 +9,11 @@ import java.awt.Color;
 public class NullColour extends Color {
   private static final long serialVersionUID = 1;
 
+  /**
+   * The shared instance, returned for every out of bounds lookup.
+   */
+  public static final NullColour INSTANCE = new NullColour();
+
   /**
    * Class constructor specifying placeholder values.
    */
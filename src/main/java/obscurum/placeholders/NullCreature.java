@@ -4,12 +4,20 @@ import java.awt.Point;
 import obscurum.creatures.Creature;
 import obscurum.display.Display;
 import obscurum.placeholders.NullLevel;
+import obscurum.util.Rng;
 
 /**
  * This represents a "null creature".
  * @author Alex Ghita
  */
 public class NullCreature extends Creature {
+  /**
+   * The shared instance, used wherever a creature has no target. It is built
+   * from a stream of its own, so that creating it does not draw from the
+   * stream of whichever level happens to use it first.
+   */
+  public static final NullCreature INSTANCE = newInstance();
+
   /**
    * Class constructor specifying placeholder values.
    */
@@ -18,6 +26,15 @@ public class NullCreature extends Creature {
         1, 1, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0);
   }
 
+  private static NullCreature newInstance() {
+    Rng previous = Rng.bind(new Rng(0));
+    try {
+      return new NullCreature();
+    } finally {
+      Rng.bind(previous);
+    }
+  }
+
   @Override
   public void powerUp() {}
 
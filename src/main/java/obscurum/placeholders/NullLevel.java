@@ -1,18 +1,33 @@
 package obscurum.placeholders;
 
 import obscurum.environment.Level;
-import obscurum.environment.background.BackgroundTile;
-import obscurum.environment.foreground.ForegroundTile;
+import obscurum.util.Rng;
 
 /**
  * This class models a null level.
  * @author Alex Ghita
  */
 public class NullLevel extends Level {
+  /**
+   * The shared instance, used wherever a level has no next or previous level.
+   * It is built from a stream of its own, so that creating it does not draw
+   * from the stream of whichever level happens to use it first.
+   */
+  public static final NullLevel INSTANCE = newInstance();
+
   /**
    * Class constructor specifying placeholder values.
    */
   public NullLevel() {
-    super(new ForegroundTile[1][1], new BackgroundTile[1][1]);
+    super(1, 1);
+  }
+
+  private static NullLevel newInstance() {
+    Rng previous = Rng.bind(new Rng(0));
+    try {
+      return new NullLevel();
+    } finally {
+      Rng.bind(previous);
+    }
   }
 }
@@ -10,6 +10,11 @@ import obscurum.environment.background.BackgroundTile;
  * @author Alex Ghita
  */
 public class PathBackground extends BackgroundTile {
+  /**
+   * The shared instance, used while carving paths.
+   */
+  public static final PathBackground INSTANCE = new PathBackground();
+
   /**
    * Class constructor specifying placeholder values.
    */
@@ -2,7 +2,6 @@ package obscurum.screens;
 
 import java.awt.Point;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
 import java.util.List;
 
 import obscurum.creatures.Creature;
@@ -10,6 +9,7 @@ import obscurum.creatures.Player;
 import obscurum.creatures.util.Line;
 import obscurum.display.Display;
 import obscurum.display.DisplayColour;
+import obscurum.display.Overlay;
 import obscurum.display.terminal.AsciiPanel;
 import obscurum.environment.Level;
 import obscurum.placeholders.NullCreature;
@@ -53,20 +53,25 @@ public abstract class AimScreen extends SubScreen {
         topLeft = new Point(PlayScreen.GAME_TL_X + 1, PlayScreen.GAME_TL_Y + 1);
     }
 
+    /**
+     * Nothing to draw on top of the game view, since the aim line is drawn
+     * as part of it, through markOverlay().
+     */
     @Override
-    public void displayOutput(AsciiPanel terminal) {
+    public void displayOutput(AsciiPanel terminal) {}
+
+    /**
+     * Highlights the line from the player to the target.
+     */
+    @Override
+    public void markOverlay(Overlay overlay, Point viewTopLeft) {
         Line trajectory = new Line(playerLocation, targetLocation);
         trajectory.plotLine();
-        ArrayList<Point> points = trajectory.getPoints();
+        int colourId = DisplayColour.MAGENTA.getPaletteId();
 
-        for (Point p : points) {
-            int xOffset = targetLocation.x - p.x;
-            int yOffset = targetLocation.y - p.y;
-            terminal.write(player.getLevel().getDisplayGlyph(p),
-                    screenLocation.x + 1 - xOffset, screenLocation.y + 1 - yOffset,
-                    DisplayColour.fromColor(player.getLevel().getDisplayForegroundColour(p)), DisplayColour.MAGENTA);
+        for (Point p : trajectory.getPoints()) {
+            overlay.mark(p.x - viewTopLeft.x, p.y - viewTopLeft.y, colourId);
         }
-        terminal.repaint();
     }
 
     private void moveTarget(int xOffset, int yOffset) {
@@ -96,7 +101,7 @@ public abstract class AimScreen extends SubScreen {
             player.setTarget(
                     (Creature)(player.getLevel().getForegroundTile(targetLocation)));
         } else {
-            player.setTarget(new NullCreature());
+            player.setTarget(NullCreature.INSTANCE);
         }
     }
 
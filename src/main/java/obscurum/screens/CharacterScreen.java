@@ -69,8 +69,7 @@ public class CharacterScreen extends Screen {
             drawBorders(terminal, new Point(tlX, tlY), EQUIPMENT_SLOT_WIDTH,
                     EQUIPMENT_SLOT_HEIGHT, false, borderColour, Display.BG_WINDOW_FRAME);
 
-            if (!player.getEquipment().getEquipment(i).isOfType(
-                    new NullEquipment())) {
+            if (!(player.getEquipment().getEquipment(i) instanceof NullEquipment)) {
                 Equipment displayItem = player.getEquipment().getEquipment(i);
                 DisplayColour quality = Display.QUALITY_COLOURS[displayItem.getQuality()];
 
@@ -132,7 +131,7 @@ public class CharacterScreen extends Screen {
                 Display.FG_WINDOW_FRAME, Display.BG_WINDOW_FRAME);
         if (highlighted <= Equipment.FEET) {
             Equipment selectedItem = player.getEquipment().getEquipment(highlighted);
-            if (!selectedItem.isOfType(new NullEquipment())) {
+            if (!(selectedItem instanceof NullEquipment)) {
                 String description;
 
                 terminal.write(selectedItem.getName(), SELECTED_ITEM_TL_X + 1,
@@ -293,7 +292,7 @@ public class CharacterScreen extends Screen {
                 return this;
             case KeyEvent.VK_E:
                 Equipment selected = player.getEquipment().getEquipment(highlighted);
-                if (!selected.isOfType(new NullEquipment())) {
+                if (!(selected instanceof NullEquipment)) {
                     player.unequip(highlighted);
                 }
                 return this;
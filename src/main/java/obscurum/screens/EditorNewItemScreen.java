@@ -103,8 +103,6 @@ public class EditorNewItemScreen extends SubScreen {
                 height - 2);
         writeCentre(terminal, "Press [esc] to go back without saving.",
                 height - 1);
-
-        terminal.repaint();
     }
 
     @Override
@@ -88,7 +88,7 @@ public class InventoryScreen extends Screen {
                 DESCRIPTION_WIDTH, DESCRIPTION_HEIGHT, false, Display.FG_WINDOW_FRAME,
                 Display.BG_WINDOW_FRAME);
         // If the item is null, there is no description to print.
-        if (!item.isOfType(new NullItem())) {
+        if (!(item instanceof NullItem)) {
             terminal.writeMultiline(inventory.getSlot(highlighted).toString(),
                     DESCRIPTION_TL_X + 1, DESCRIPTION_TL_Y + 1,
                     DESCRIPTION_TL_X + DESCRIPTION_WIDTH,// + 1,
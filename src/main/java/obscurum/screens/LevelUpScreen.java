@@ -91,7 +91,6 @@ public class LevelUpScreen extends SubScreen {
         writeHorizontalLine(terminal, height - 3);
         writeCentre(terminal, "Press [e] to level up attribute.", height - 2);
         writeCentre(terminal, "Press [esc] to return.", height - 1);
-        terminal.repaint();
     }
 
     @Override
@@ -12,6 +12,7 @@ import obscurum.creatures.Player;
 import obscurum.display.ListEntry;
 import obscurum.display.ScrollList;
 import obscurum.display.terminal.AsciiPanel;
+import obscurum.engine.GameEngine;
 import obscurum.environment.Level;
 
 /**
@@ -108,7 +109,6 @@ public class LootScreen extends SubScreen {
     }
     writeCentre(terminal, "Press [e] to loot.", helpHeight + 1);
     writeCentre(terminal, "Press [esc] to return.", helpHeight + 2);
-    terminal.repaint();
   }
 
   @Override
@@ -125,8 +125,8 @@ public class LootScreen extends SubScreen {
         return this;
       case KeyEvent.VK_E:
         if (corpse.getInventory().countFilledSlots() > 0) {
-          player.loot(
-              corpse.getInventory().getSlot(scrollList.getSelectedIndex()));
+          player.getEngine().step(GameEngine.LOOT,
+              scrollList.getSelectedIndex(), corpse.getLocation());
           updateScrollList();
         }
         return this;
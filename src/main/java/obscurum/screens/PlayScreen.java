@@ -1,6 +1,5 @@
 package obscurum.screens;
 
-import java.awt.Color;
 import java.awt.Point;
 import java.awt.event.KeyEvent;
 import java.lang.Math;
@@ -16,12 +15,13 @@ import obscurum.creatures.ai.PlayerAI;
 import obscurum.creatures.util.Line;
 import obscurum.display.Display;
 import obscurum.display.DisplayColour;
+import obscurum.display.Overlay;
+import obscurum.display.Palette;
 import obscurum.display.terminal.AsciiPanel;
+import obscurum.engine.GameEngine;
+import obscurum.environment.Exploration;
 import obscurum.environment.Level;
-import obscurum.environment.background.*;
-import obscurum.environment.builders.*;
 import obscurum.environment.foreground.*;
-import obscurum.factories.*;
 import obscurum.items.Equipment;
 import obscurum.items.weapons.Weapon;
 import obscurum.placeholders.NullCreature;
@@ -30,9 +30,9 @@ import obscurum.placeholders.NullScreen;
 import obscurum.util.Util;
 
 /**
- * This models the main game screen, which generates new levels, populates and
- * updates them, and is responsible for displaying the game level in which the
- * player currently is.
+ * This models the main game screen, which turns the player's key presses into
+ * actions for the game engine, and is responsible for displaying the game
+ * level in which the player currently is.
  * @author Alex Ghita
  */
 public class PlayScreen extends Screen {
@@ -51,19 +51,40 @@ public class PlayScreen extends Screen {
     public static final int LOG_HEIGHT = Main.SCREEN_HEIGHT_IN_CHARACTERS -
             GAME_HEIGHT + 1;
     public Screen subScreen;
-    private CreatureFactory cf;
-    private FurnitureFactory ff;
+    private final GameEngine engine;
+    // Highlights drawn over the game view this frame, e.g. attack trajectories.
+    private final Overlay overlay = new Overlay(GAME_WIDTH - 2, GAME_HEIGHT - 2);
 
+    /**
+     * Class constructor specifying the world and player of a game, which
+     * carries on with the engine already running it, if there is one.
+     * @param world
+     * @param player
+     */
     public PlayScreen(List<Level> world, Player player) {
-        super(world, player);
-        subScreen = new NullScreen();
+        this(player.getEngine() != null ? player.getEngine() :
+                new GameEngine(world, player));
     }
 
     public PlayScreen() {
-        createWorld(3);
+        this(GameEngine.newGame(3));
+    }
+
+    /**
+     * Class constructor specifying the game this screen displays and
+     * controls.
+     * @param engine
+     */
+    public PlayScreen(GameEngine engine) {
+        super(engine.getWorld(), engine.getPlayer());
+        this.engine = engine;
         subScreen = new NullScreen();
     }
 
+    public GameEngine getEngine() {
+        return engine;
+    }
+
     @Override
     public void displayOutput(AsciiPanel terminal) {
         if (player.isInSubScreen()) {
@@ -132,7 +153,7 @@ public class PlayScreen extends Screen {
 
         // Display target information.
         Creature target = player.getTarget();
-        if (!target.isOfType(new NullCreature()) &&
+        if (!(target instanceof NullCreature) &&
                 (target.isAlive() || ((CorpseAI)target.getAI()).getTurnsLeft() > 0)) {
             terminal.write("Target Stats", STATS_TL_X + (STATS_WIDTH / 2) - 6,
                     STATS_TL_Y + 11);
@@ -173,6 +194,11 @@ public class PlayScreen extends Screen {
         }
         if (player.isInSubScreen()) {
             subScreen = subScreen.respondToUserInput(key);
+            // Closing a sub screen, e.g. after firing a ranged attack, ends the
+            // turn.
+            if (!player.isInSubScreen()) {
+                engine.endTurn();
+            }
             return this;
         } else {
             switch (key.getKeyCode()) {
@@ -180,16 +206,18 @@ public class PlayScreen extends Screen {
                     return new HelpScreen(world, player, HelpScreen.PLAY_HELP);
                 case KeyEvent.VK_ESCAPE:
                     return new ConfirmExitScreen(world, player);
-                case KeyEvent.VK_LEFT: player.moveBy(-1, 0); return this;
-                case KeyEvent.VK_RIGHT: player.moveBy(1, 0); return this;
-                case KeyEvent.VK_UP: player.moveBy(0, -1); return this;
-                case KeyEvent.VK_DOWN: player.moveBy(0, 1); return this;
+                case KeyEvent.VK_LEFT: engine.step(GameEngine.MOVE_LEFT); return this;
+                case KeyEvent.VK_RIGHT: engine.step(GameEngine.MOVE_RIGHT); return this;
+                case KeyEvent.VK_UP: engine.step(GameEngine.MOVE_UP); return this;
+                case KeyEvent.VK_DOWN: engine.step(GameEngine.MOVE_DOWN); return this;
                 case KeyEvent.VK_A:
                     Equipment weapon =
                             player.getEquipment().getEquipment(Equipment.WEAPON);
-                    if (!weapon.isOfType(new NullEquipment()) &&
+                    if (!(weapon instanceof NullEquipment) &&
                             ((Weapon)weapon).getWeaponType() == Weapon.RANGED) {
                         ((PlayerAI)player.getAI()).aim(Player.MAX_RANGE);
+                    } else {
+                        engine.step(GameEngine.WAIT);
                     }
                     return this;
                 case KeyEvent.VK_B:
@@ -216,6 +244,7 @@ public class PlayScreen extends Screen {
                 //   player.getAI().setKnowledgeType(kt);
                 //   return this;
                 default:
+                    engine.step(GameEngine.WAIT);
                     return this;
             }
         }
@@ -236,160 +265,74 @@ public class PlayScreen extends Screen {
         return scrollLocation;
     }
 
-    public void createWorld(int levels) {
-        world = new ArrayList<>(levels);
-        ArrayList<ForegroundTile> foregroundOptions =
-                new ArrayList<ForegroundTile>();
-        ArrayList<BackgroundTile> backgroundOptions =
-                new ArrayList<BackgroundTile>();
-
-        foregroundOptions.add(new Wall());
-        foregroundOptions.add(new Stone());
-        backgroundOptions.add(new Floor());
-        backgroundOptions.add(new Grass());
-
-        ArrayList<String[]> input = readCSV("custom_tiles.csv");
-        for (String[] line : input) {
-            if (line.length == 5) {
-                foregroundOptions.add(new CustomForegroundTile(line[0],
-                        (char)Integer.parseInt(line[1]), new Color(
-                        Integer.parseInt(line[2]), Integer.parseInt(line[3]),
-                        Integer.parseInt(line[4]))));
-            } else {
-                backgroundOptions.add(new CustomBackgroundTile(line[0],
-                        (char)Integer.parseInt(line[1]),
-                        new Color(Integer.parseInt(line[2]), Integer.parseInt(line[3]),
-                                Integer.parseInt(line[4])), new Color(Integer.parseInt(line[5]),
-                        Integer.parseInt(line[6]), Integer.parseInt(line[7]))));
-            }
-        }
-
-        for (int i = 0; i < levels; i++) {
-            ForegroundTile f = Util.pickRandomElement(foregroundOptions);
-            BackgroundTile b = Util.pickRandomElement(backgroundOptions);
-            boolean next = i == levels - 1 ? false : true;
-            boolean prev = i == 0 ? false : true;
-            world.add(Math.random() < 0.5 ?
-                    new DungeonBuilder(91, 31, f, b, next, prev).build(5000, 5, 13, 0.1,
-                            -1) :
-                    new CaveBuilder(91, 31, f, b, next, prev).build());
-            if (prev) {
-                world.get(i).setPrevious(world.get(i - 1));
-                world.get(i - 1).setNext(world.get(i));
-            }
-        }
-
-        for (int l = 0; l < levels; l++) {
-            cf = new CreatureFactory(world.get(l));
-            ff = new FurnitureFactory(world.get(l));
-
-            if (l == 0) {
-                player = cf.newPlayer();
-            }
-            if (l == levels - 1) {
-                ff.newTreasureChest();
-            }
-            for (int i = 0; i < 10; i++) {
-                cf.newGoblin(Math.max(l + 1, (int)(Math.random() * (l + 3))));
-                cf.newZombie(Math.max(l + 1, (int)(Math.random() * (l + 3))));
-            }
-            for (int i = 0; i < 20; i++) {
-                ff.newTorch();
-                ff.newTreasureChest(l + 1);
-                ff.newSpikeTrap();
-            }
-            for (int i = 0; i < 10; i++) {
-                ff.newSpawner(new String[]{"Zombie", "Goblin"},
-                        Math.max(l + 1, (int)(Math.random() * (l + 3))), 5, cf);
-            }
-        }
-        player.setWorld(world);
-    }
-
     public void displayTiles(AsciiPanel terminal, Point topLeft) {
-        ArrayList<Point> attackTrajectories = new ArrayList<Point>();
+        Level level = player.getLevel();
+        Exploration exploration = player.getExploration();
+        boolean omniscient = player.getAI().getKnowledgeType() == CreatureAI.OMNISCIENT;
 
-        if (!player.isInSubScreen()) {
-            player.getLevel().updateCreatures();
-            player.getLevel().updateSpawners();
-
-            if (player.hasAmulet() && !player.hasSpawnedExit()) {
-                Point location;
-                do {
-                    location = world.get(0).getRandomEmptyLocation();
-                } while (world.get(0).countSurroundingForegroundTiles(location,
-                        new EmptyTile()) < 8);
-                world.get(0).setBackgroundTile(location, new ExitPortal(
-                        world.get(0).getBackgroundTile(location)));
-                for (int i = 0; i < world.size(); i++) {
-                    world.get(i).powerUpCreatures();
-                }
-                player.setSpawnedExit(true);
-            }
+        overlay.clear();
+        markAttackTrajectories(topLeft, omniscient);
+        if (player.isInSubScreen()) {
+            player.getSubScreen().markOverlay(overlay, topLeft);
         }
-        if (player.getAI().getKnowledgeType() == CreatureAI.OMNISCIENT) {
-            for (int x = 0; x < GAME_WIDTH - 2; x++) {
-                for (int y = 0; y < GAME_HEIGHT - 2; y++) {
-                    int wx = x + topLeft.x;
-                    int wy = y + topLeft.y;
-
-                    ForegroundTile tile = player.getLevel().getForegroundTile(wx, wy);
-                    if (tile instanceof Creature && !tile.getName().equals("Player") &&
-                            ((Creature)tile).isAlive()) {
-                        Line attackTrajectory = ((Creature)tile).getAttackTrajectory();
-                        if (attackTrajectory != null) {
-                            attackTrajectories.addAll(attackTrajectory.getPoints());
-                        }
-                    }
 
-                    // The + 1 for x and y accounts for the game border.
-                    terminal.write(player.getLevel().getDisplayGlyph(wx, wy), x + 1, y + 1,
-                            DisplayColour.fromColor(player.getLevel().getDisplayForegroundColour(wx, wy)),
-                            DisplayColour.fromColor(player.getLevel().getDisplayBackgroundColour(wx, wy)));
-                }
-            }
-        } else {
-            Level exploration = player.getExploration();
-
-            for (int x = 0; x < GAME_WIDTH - 2; x++) {
-                for (int y = 0; y < GAME_HEIGHT - 2; y++) {
-                    int wx = x + topLeft.x;
-                    int wy = y + topLeft.y;
+        for (int x = 0; x < GAME_WIDTH - 2; x++) {
+            for (int y = 0; y < GAME_HEIGHT - 2; y++) {
+                int wx = x + topLeft.x;
+                int wy = y + topLeft.y;
 
-                    if (player.getAI().canSee(new Point(wx, wy)) ||
-                            player.getLevel().isIlluminated(new Point(wx, wy)) &&
-                                    player.getAI().canSee(new Point(wx, wy), -1)) {
-                        ForegroundTile tile = player.getLevel().getForegroundTile(wx, wy);
-                        if (tile instanceof Creature && !tile.getName().equals("Player") &&
-                                ((Creature)tile).isAlive()) {
-                            Line attackTrajectory = ((Creature)tile).getAttackTrajectory();
-                            if (attackTrajectory != null) {
-                                attackTrajectories.addAll(attackTrajectory.getPoints());
-                            }
-                        }
-                        terminal.write(player.getLevel().getDisplayGlyph(wx, wy), x + 1, y + 1,
-                                DisplayColour.fromColor(player.getLevel().getDisplayForegroundColour(wx, wy)),
-                                DisplayColour.fromColor(player.getLevel().getDisplayBackgroundColour(wx, wy)));
-                    }
-                    else if (player.getAI().getKnowledgeType() == CreatureAI.LEARNING
-                            && exploration.getForegroundTile(wx, wy) != null) {
-                        terminal.write(exploration.getDisplayGlyph(wx, wy), x + 1, y + 1,
-                                DisplayColour.fromColor(exploration.getDisplayForegroundColour(wx, wy).darker().darker().darker()),
-                                DisplayColour.fromColor(exploration.getDisplayBackgroundColour(wx, wy).darker().darker().darker()));
-                    }
+                // The + 1 for x and y accounts for the game border.
+                if (overlay.isMarked(x, y)) {
+                    terminal.write(level.getDisplayGlyph(wx, wy), x + 1, y + 1,
+                            level.getDisplayForegroundColourId(wx, wy), overlay.getColourId(x, y));
+                } else if (omniscient || isShown(wx, wy)) {
+                    terminal.write(level.getDisplayGlyph(wx, wy), x + 1, y + 1,
+                            level.getDisplayForegroundColourId(wx, wy),
+                            level.getDisplayBackgroundColourId(wx, wy));
+                } else if (player.getAI().getKnowledgeType() == CreatureAI.LEARNING
+                        && exploration.isExplored(wx, wy)) {
+                    terminal.write(exploration.getDisplayGlyph(wx, wy), x + 1, y + 1,
+                            Palette.getShade(exploration.getDisplayForegroundColourId(wx, wy), Palette.REMEMBERED),
+                            Palette.getShade(exploration.getDisplayBackgroundColourId(wx, wy), Palette.REMEMBERED));
                 }
             }
         }
+    }
 
-        for (int x = 0; x < GAME_WIDTH - 2; x++) {
-            for (int y = 0; y < GAME_HEIGHT - 2; y++) {
-                int wx = x + topLeft.x;
-                int wy = y + topLeft.y;
+    /**
+     * Checks whether the player can currently see the tile at the given world coordinates, either because it is in
+     * sight or because it is lit and in line of sight.
+     */
+    private boolean isShown(int wx, int wy) {
+        return player.getLevel().isVisibleToPlayer(wx, wy) && (player.getAI().canSee(wx, wy) ||
+                player.getLevel().isIlluminated(wx, wy) && player.getAI().canSee(wx, wy, -1));
+    }
 
-                if (attackTrajectories.contains(new Point(wx, wy)) &&
-                        (player.getAI().getKnowledgeType() == CreatureAI.OMNISCIENT ||
-                                player.getAI().canSee(new Point(wx, wy)))) {
-                    terminal.write(player.getLevel().getDisplayGlyph(wx, wy), x + 1, y + 1, DisplayColour.fromColor(player.getLevel().getDisplayForegroundColour(wx, wy)), DisplayColour.RED);
+    /**
+     * Highlights the parts of the attack trajectories of the creatures shown in the game view which the player can
+     * see.
+     * @param topLeft the world coordinates of the top left corner of the game view
+     * @param omniscient whether the player sees everything
+     */
+    private void markAttackTrajectories(Point topLeft, boolean omniscient) {
+        int attackColourId = DisplayColour.RED.getPaletteId();
+        // Indexed loops, so that no iterator is allocated per frame.
+        ArrayList<Creature> creatures = player.getLevel().getCreatures();
+        for (int i = 0; i < creatures.size(); i++) {
+            Creature c = creatures.get(i);
+            Line attackTrajectory = c.getAttackTrajectory();
+            Point location = c.getLocation();
+            if (attackTrajectory == null || c == player || !c.isAlive() ||
+                    location.x - topLeft.x < 0 || location.x - topLeft.x >= GAME_WIDTH - 2 ||
+                    location.y - topLeft.y < 0 || location.y - topLeft.y >= GAME_HEIGHT - 2 ||
+                    !omniscient && !isShown(location.x, location.y)) {
+                continue;
+            }
+            ArrayList<Point> points = attackTrajectory.getPoints();
+            for (int j = 0; j < points.size(); j++) {
+                Point p = points.get(j);
+                if (omniscient || player.getAI().canSee(p.x, p.y)) {
+                    overlay.mark(p.x - topLeft.x, p.y - topLeft.y, attackColourId);
                 }
             }
         }
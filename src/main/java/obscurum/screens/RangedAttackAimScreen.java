@@ -2,8 +2,8 @@ package obscurum.screens;
 
 import obscurum.creatures.Creature;
 import obscurum.creatures.Player;
+import obscurum.engine.GameEngine;
 import obscurum.environment.Level;
-import obscurum.placeholders.NullCreature;
 
 import java.util.List;
 
@@ -17,8 +17,6 @@ public class RangedAttackAimScreen extends AimScreen {
   }
 
   protected void performAction() {
-    if (!player.getTarget().isOfType(new NullCreature())) {
-      player.attackTarget();
-    }
+    player.getEngine().step(GameEngine.RANGED_ATTACK, targetLocation);
   }
 }
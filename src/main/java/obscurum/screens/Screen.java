@@ -2,7 +2,6 @@ package obscurum.screens;
 
 import java.awt.Point;
 import java.awt.event.KeyEvent;
-import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,6 +13,7 @@ import obscurum.display.Display;
 import obscurum.display.DisplayColour;
 import obscurum.display.terminal.AsciiPanel;
 import obscurum.environment.Level;
+import obscurum.util.Util;
 
 @NoArgsConstructor
 public abstract class Screen {
@@ -95,21 +95,6 @@ public abstract class Screen {
     }
 
     protected ArrayList<String[]> readCSV(String fileName) {
-        ArrayList<String[]> inputData = new ArrayList<String[]>();
-        try {
-            FileReader r = new FileReader("src/main/resources/" + fileName);
-            BufferedReader br = new BufferedReader(r);
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                inputData.add(line.split(","));
-            }
-            br.close();
-            r.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return inputData;
+        return Util.readCSV(fileName);
     }
 }
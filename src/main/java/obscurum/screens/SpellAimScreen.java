@@ -2,9 +2,9 @@ package obscurum.screens;
 
 import obscurum.creatures.Creature;
 import obscurum.creatures.Player;
+import obscurum.engine.GameEngine;
 import obscurum.environment.Level;
 import obscurum.environment.foreground.ForegroundTile;
-import obscurum.placeholders.NullCreature;
 
 import java.util.List;
 
@@ -22,9 +22,6 @@ public class SpellAimScreen extends AimScreen {
   }
 
   protected void performAction() {
-    if (!player.getTarget().isOfType(new NullCreature()) &&
-        player.canCastSpell(spellIndex)) {
-      player.castSpell(spellIndex);
-    }
+    player.getEngine().step(GameEngine.CAST_SPELL, spellIndex, targetLocation);
   }
 }
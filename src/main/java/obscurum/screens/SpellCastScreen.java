@@ -128,7 +128,6 @@ public class SpellCastScreen extends SubScreen {
         writeHorizontalLine(terminal, height - 3);
         writeCentre(terminal, "Press [e] to use spell.", height - 2);
         writeCentre(terminal, "Press [esc] to return.", height - 1);
-        terminal.repaint();
     }
 
     @Override
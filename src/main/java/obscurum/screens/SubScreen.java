@@ -7,6 +7,7 @@ import java.util.List;
 import obscurum.Main;
 import obscurum.creatures.Player;
 import obscurum.display.Display;
+import obscurum.display.Overlay;
 import obscurum.display.terminal.AsciiPanel;
 import obscurum.environment.Level;
 
@@ -41,6 +42,15 @@ public abstract class SubScreen extends Screen {
     return topLeft;
   }
 
+  /**
+   * Highlights cells of the game view, which is drawn underneath the sub
+   * screen. Does nothing unless overridden.
+   * @param overlay the game view's overlay
+   * @param viewTopLeft the world coordinates of the top left corner of the
+   *     game view
+   */
+  public void markOverlay(Overlay overlay, Point viewTopLeft) {}
+
   protected void writeCentre(AsciiPanel terminal, String line, int y) {
     int x;
 
@@ -0,0 +1,81 @@
+package obscurum.util;
+
+/**
+ * This models a partition of the ints from 0 up to a given size into disjoint
+ * sets, which can be merged and told apart in nearly constant time. Each set
+ * is kept as a tree of its members, with the smaller tree hung under the
+ * larger when two are merged, and paths halved as they are walked.
+ * @author Alex Ghita
+ */
+public class DisjointSet {
+  private final int[] parents;
+  private final int[] sizes;
+  private int count;
+
+  /**
+   * Class constructor specifying the number of members, each of which starts
+   * off in a set of its own.
+   * @param size
+   */
+  public DisjointSet(int size) {
+    // Check for illegal arguments.
+    if (size < 0) {
+      throw new IllegalArgumentException("Size " + size +
+          " cannot be negative.");
+    }
+
+    parents = new int[size];
+    sizes = new int[size];
+    for (int i = 0; i < size; i++) {
+      parents[i] = i;
+      sizes[i] = 1;
+    }
+    count = size;
+  }
+
+  /**
+   * Gets the number of sets.
+   * @return
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the representative of the given member's set, which is the same for
+   * every member of the set until it is merged with another.
+   * @param member
+   * @return
+   */
+  public int find(int member) {
+    while (parents[member] != member) {
+      parents[member] = parents[parents[member]];
+      member = parents[member];
+    }
+    return member;
+  }
+
+  /**
+   * Merges the sets of the given members.
+   * @param a
+   * @param b
+   * @return true if the members were in different sets, false otherwise
+   */
+  public boolean union(int a, int b) {
+    int rootA = find(a);
+    int rootB = find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+
+    if (sizes[rootA] < sizes[rootB]) {
+      int swap = rootA;
+      rootA = rootB;
+      rootB = swap;
+    }
+    parents[rootB] = rootA;
+    sizes[rootA] += sizes[rootB];
+    count--;
+    return true;
+  }
+}
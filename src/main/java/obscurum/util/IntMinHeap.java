@@ -0,0 +1,110 @@
+package obscurum.util;
+
+import java.util.Arrays;
+
+/**
+ * This models a binary min-heap of int values ordered by int priorities. It
+ * keeps both in plain arrays, which only grow, so a heap can be cleared and
+ * reused without allocating.
+ * @author Alex Ghita
+ */
+public class IntMinHeap {
+  private int[] values;
+  private int[] priorities;
+  private int size;
+
+  /**
+   * Class constructor specifying the initial capacity.
+   * @param capacity
+   */
+  public IntMinHeap(int capacity) {
+    // Check for illegal arguments.
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity " + capacity +
+          " must be at least 1.");
+    }
+
+    values = new int[capacity];
+    priorities = new int[capacity];
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  /**
+   * Adds a value with the given priority. Lower priorities come out first.
+   * @param value
+   * @param priority
+   */
+  public void add(int value, int priority) {
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size * 2);
+      priorities = Arrays.copyOf(priorities, size * 2);
+    }
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (priorities[parent] <= priority) {
+        break;
+      }
+      values[i] = values[parent];
+      priorities[i] = priorities[parent];
+      i = parent;
+    }
+    values[i] = value;
+    priorities[i] = priority;
+  }
+
+  /**
+   * Gets the priority of the value which would be removed next.
+   * @return
+   */
+  public int peekPriority() {
+    checkNotEmpty();
+    return priorities[0];
+  }
+
+  /**
+   * Removes the value with the lowest priority.
+   * @return
+   */
+  public int remove() {
+    checkNotEmpty();
+    int result = values[0];
+    int value = values[--size];
+    int priority = priorities[size];
+    int i = 0;
+
+    while (2 * i + 1 < size) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+        child++;
+      }
+      if (priority <= priorities[child]) {
+        break;
+      }
+      values[i] = values[child];
+      priorities[i] = priorities[child];
+      i = child;
+    }
+    values[i] = value;
+    priorities[i] = priority;
+    return result;
+  }
+
+  private void checkNotEmpty() {
+    if (size == 0) {
+      throw new IllegalStateException("Heap is empty.");
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package obscurum.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * This models a histogram of latencies in nanoseconds, from which percentiles
+ * can be read back. Latencies below 64ns get a bucket each, and every power of
+ * two above that is split into 32 buckets, so a percentile is never more than
+ * about 3% above the true latency, whatever the scale. Recording is lock-free,
+ * so threads may record into the same histogram at once.
+ * @author Alex Ghita
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+  private final AtomicLongArray counts;
+  private final LongAccumulator max;
+
+  public LatencyHistogram() {
+    counts = new AtomicLongArray(BUCKETS);
+    max = new LongAccumulator(Math::max, 0);
+  }
+
+  /**
+   * Records a latency.
+   * @param nanos the latency in nanoseconds; negative latencies count as 0
+   */
+  public void record(long nanos) {
+    nanos = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(nanos));
+    max.accumulate(nanos);
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   * @return
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Gets the latency below which the given fraction of the recorded
+   * latencies fall.
+   * @param fraction a number between 0 and 1, e.g. 0.99 for the 99th
+   *     percentile
+   * @return the latency in nanoseconds, rounded up to the top of its bucket,
+   *     or 0 if nothing was recorded
+   */
+  public long getPercentile(double fraction) {
+    // Check for illegal arguments.
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("Fraction " + fraction +
+          " must be between 0 and 1.");
+    }
+
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(fraction * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(getMax(), highestValueIn(i));
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Gets the bucket of the given latency. Each bucket above the first
+   * 2 * SUB_BUCKETS keeps the top SUB_BUCKET_BITS + 1 bits of its latencies.
+   * @param nanos
+   * @return
+   */
+  private static int bucketOf(long nanos) {
+    if (nanos < 2 * SUB_BUCKETS) {
+      return (int)nanos;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKETS + (int)(nanos >>> shift);
+  }
+
+  private static long highestValueIn(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long top = bucket - (long)shift * SUB_BUCKETS;
+    return ((top + 1) << shift) - 1;
+  }
+}
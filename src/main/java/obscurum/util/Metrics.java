@@ -0,0 +1,215 @@
+package obscurum.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * This times the phases of a turn, e.g. creature decisions, fields of view
+ * and path finding, as well as level generation and painting. Each timing is
+ * recorded into a latency histogram for its phase, and for its stage or AI
+ * type where it has one, and is also emitted as a Flight Recorder event when
+ * a recording is running.
+ * Timing is switched on by starting the game with -Dobscurum.metrics=true.
+ * The switch is a constant, so when it is off the JIT compiler removes the
+ * timing calls altogether.
+ * Phases are timed as follows:
+ *     long start = Metrics.start();
+ *     ...
+ *     Metrics.end(Metrics.FIELD_OF_VIEW, start);
+ * @author Alex Ghita
+ */
+public final class Metrics {
+  public static final boolean ENABLED = Boolean.getBoolean("obscurum.metrics");
+  public static final int TURN = 0;
+  public static final int DECISION = 1;
+  public static final int FIELD_OF_VIEW = 2;
+  public static final int PATH = 3;
+  public static final int SPAWN = 4;
+  public static final int GENERATION = 5;
+  public static final int PAINT = 6;
+  private static final String[] PHASE_NAMES = {"turn", "decision",
+      "field of view", "path", "spawn", "generation", "paint"};
+  private static final LatencyHistogram[] PHASES =
+      new LatencyHistogram[PHASE_NAMES.length];
+  // Histograms of each phase's stages or AI types, by name.
+  private static final Map<String, LatencyHistogram> DETAILS =
+      new ConcurrentHashMap<>();
+  // Counts rather than latencies, which the histograms keep just as well.
+  private static final LatencyHistogram PATH_NODES = new LatencyHistogram();
+  private static final LatencyHistogram PATH_LENGTHS = new LatencyHistogram();
+
+  static {
+    for (int i = 0; i < PHASES.length; i++) {
+      PHASES[i] = new LatencyHistogram();
+    }
+  }
+
+  private Metrics() {}
+
+  /**
+   * Starts timing a phase.
+   * @return the start time, to be passed on to end(), or 0 if timing is off
+   */
+  public static long start() {
+    return ENABLED ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Stops timing a phase.
+   * @param phase one of the phase constants
+   * @param start the time returned by start()
+   */
+  public static void end(int phase, long start) {
+    if (ENABLED) {
+      record(phase, null, true, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Stops timing a phase carried out by the given type, e.g. the decision of
+   * a creature AI, which is also recorded under the type's name.
+   * @param phase one of the phase constants
+   * @param type
+   * @param start the time returned by start()
+   */
+  public static void end(int phase, Class<?> type, long start) {
+    if (ENABLED) {
+      record(phase, type.getSimpleName(), true, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Stops timing a stage of a phase, e.g. the rooms of a dungeon being
+   * generated. Stages are only recorded under their own name, since the
+   * phase as a whole is timed separately.
+   * @param phase one of the phase constants
+   * @param stage
+   * @param start the time returned by start()
+   */
+  public static void endStage(int phase, String stage, long start) {
+    if (ENABLED) {
+      record(phase, stage, false, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Stops timing a path search.
+   * @param start the time returned by start()
+   * @param nodesExpanded the number of tiles taken off the search's frontier
+   * @param pathLength the number of steps found, or 0 if none were
+   */
+  public static void endPath(long start, int nodesExpanded, int pathLength) {
+    if (!ENABLED) {
+      return;
+    }
+    long duration = System.nanoTime() - start;
+    PHASES[PATH].record(duration);
+    PATH_NODES.record(nodesExpanded);
+    PATH_LENGTHS.record(pathLength);
+
+    PathEvent event = new PathEvent();
+    if (event.shouldCommit()) {
+      event.elapsed = duration;
+      event.nodesExpanded = nodesExpanded;
+      event.pathLength = pathLength;
+      event.commit();
+    }
+  }
+
+  private static void record(int phase, String detail, boolean isWhole,
+      long duration) {
+    if (isWhole) {
+      PHASES[phase].record(duration);
+    }
+    if (detail != null) {
+      DETAILS.computeIfAbsent(PHASE_NAMES[phase] + ": " + detail,
+          k -> new LatencyHistogram()).record(duration);
+    }
+
+    PhaseEvent event = new PhaseEvent();
+    if (event.shouldCommit()) {
+      event.elapsed = duration;
+      event.phase = PHASE_NAMES[phase];
+      event.detail = detail;
+      event.commit();
+    }
+  }
+
+  /**
+   * Gets a table of the count, median, 99th percentile and maximum of every
+   * phase, stage and AI type timed so far, with latencies in microseconds.
+   * The path rows at the end count tiles and steps instead.
+   * @return the table, or an empty string if timing is off
+   */
+  public static String getSummary() {
+    if (!ENABLED) {
+      return "";
+    }
+    StringBuilder summary = new StringBuilder(String.format(
+        "%-32s %10s %10s %10s %10s%n", "phase", "count", "p50 us", "p99 us",
+        "max us"));
+    for (int i = 0; i < PHASES.length; i++) {
+      appendRow(summary, PHASE_NAMES[i], PHASES[i], 1000);
+    }
+    for (Map.Entry<String, LatencyHistogram> entry :
+        new TreeMap<>(DETAILS).entrySet()) {
+      appendRow(summary, entry.getKey(), entry.getValue(), 1000);
+    }
+    appendRow(summary, "path: nodes expanded", PATH_NODES, 1);
+    appendRow(summary, "path: length", PATH_LENGTHS, 1);
+    return summary.toString();
+  }
+
+  private static void appendRow(StringBuilder summary, String name,
+      LatencyHistogram histogram, double scale) {
+    if (histogram.getCount() == 0) {
+      return;
+    }
+    summary.append(String.format("%-32s %10d %10.1f %10.1f %10.1f%n", name,
+        histogram.getCount(), histogram.getPercentile(0.5) / scale,
+        histogram.getPercentile(0.99) / scale, histogram.getMax() / scale));
+  }
+
+  @Name("obscurum.Phase")
+  @Label("Phase")
+  @Description("A timed phase of a turn, of level generation or of painting")
+  @Category("Obscurum")
+  @StackTrace(false)
+  private static final class PhaseEvent extends Event {
+    @Timespan(Timespan.NANOSECONDS)
+    @Label("Elapsed")
+    long elapsed;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Detail")
+    @Description("The stage, or the type that carried out the phase, if any")
+    String detail;
+  }
+
+  @Name("obscurum.Path")
+  @Label("Path")
+  @Description("A path search")
+  @Category("Obscurum")
+  @StackTrace(false)
+  private static final class PathEvent extends Event {
+    @Timespan(Timespan.NANOSECONDS)
+    @Label("Elapsed")
+    long elapsed;
+
+    @Label("Nodes Expanded")
+    int nodesExpanded;
+
+    @Label("Path Length")
+    int pathLength;
+  }
+}
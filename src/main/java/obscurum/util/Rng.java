@@ -0,0 +1,128 @@
+package obscurum.util;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This models a stream of random numbers, from which independent streams can
+ * be split off. A game is seeded once, and its levels, builders and creatures
+ * each draw from their own stream split from that seed, so the same seed
+ * plays out the same game, however the work is shared out between threads.
+ * Code which has no stream of its own, e.g. item generation, draws from the
+ * stream bound to the calling thread. Threads start off with no stream bound,
+ * so that drawing from outside a game, where the result could not be
+ * reproduced, fails rather than going unnoticed.
+ * A stream is not thread-safe, and should only be drawn from by one thread at
+ * a time.
+ * @author Alex Ghita
+ */
+public class Rng {
+  private static final ThreadLocal<Rng> CURRENT = new ThreadLocal<Rng>();
+  private final SplittableRandom random;
+
+  /**
+   * Class constructor specifying the seed.
+   * @param seed
+   */
+  public Rng(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  private Rng(SplittableRandom random) {
+    this.random = random;
+  }
+
+  /**
+   * Creates a stream from an unpredictable seed, e.g. for a new game whose
+   * seed was not chosen.
+   * @return
+   */
+  public static Rng unseeded() {
+    return new Rng(new SplittableRandom());
+  }
+
+  /**
+   * Gets the stream bound to the calling thread.
+   * @return
+   * @throws IllegalStateException if no stream is bound
+   */
+  public static Rng current() {
+    Rng rng = CURRENT.get();
+    if (rng == null) {
+      throw new IllegalStateException(
+          "No random stream is bound to thread " +
+          Thread.currentThread().getName() + ".");
+    }
+    return rng;
+  }
+
+  /**
+   * Binds the given stream to the calling thread, so that code which has no
+   * stream of its own draws from it.
+   * @param rng the stream, or null to unbind the current one
+   * @return the stream bound until now, which should be bound again once
+   *         done, or null if there was none
+   */
+  public static Rng bind(Rng rng) {
+    Rng previous = CURRENT.get();
+    if (rng == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(rng);
+    }
+    return previous;
+  }
+
+  /**
+   * Splits off a new stream, which is independent of this one from then on.
+   * @return
+   */
+  public Rng split() {
+    return new Rng(random.split());
+  }
+
+  /**
+   * Gets a double between 0 (inclusive) and 1 (exclusive).
+   * @return
+   */
+  public double nextDouble() {
+    return random.nextDouble();
+  }
+
+  /**
+   * Gets an int between 0 (inclusive) and the given bound (exclusive).
+   * @param bound
+   * @return
+   */
+  public int nextInt(int bound) {
+    // Check for illegal arguments.
+    if (bound < 1) {
+      throw new IllegalArgumentException("Bound " + bound +
+          " must be at least 1.");
+    }
+
+    return random.nextInt(bound);
+  }
+
+  public boolean nextBoolean() {
+    return random.nextBoolean();
+  }
+
+  public long nextLong() {
+    return random.nextLong();
+  }
+
+  /**
+   * Picks an element of the given list, with equal chance.
+   * @param list
+   * @return
+   */
+  public <E> E pick(List<E> list) {
+    // Check for illegal arguments.
+    if (list == null || list.isEmpty()) {
+      throw new IllegalArgumentException("List cannot be empty.");
+    }
+
+    return list.get(random.nextInt(list.size()));
+  }
+}
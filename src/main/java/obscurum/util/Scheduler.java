@@ -0,0 +1,203 @@
+package obscurum.util;
+
+import java.util.Arrays;
+
+/**
+ * This models a clock and the events due on it, kept in a binary heap ordered
+ * by due time. Events due at the same time run in the order in which they
+ * were scheduled. Each event remembers its place in the heap, so it can be
+ * cancelled or moved in logarithmic time, and since events are reused rather
+ * than created every time, an actor which is rescheduled after each of its
+ * actions costs nothing while it waits.
+ * @author Alex Ghita
+ */
+public class Scheduler {
+  private long now;
+  private long nextOrder;
+  private Event[] heap;
+  private int size;
+
+  public Scheduler() {
+    now = 0;
+    nextOrder = 0;
+    heap = new Event[16];
+    size = 0;
+  }
+
+  /**
+   * Gets the current time, in ticks.
+   * @return
+   */
+  public long getTime() {
+    return now;
+  }
+
+  /**
+   * Gets the number of events waiting to run.
+   * @return
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the time at which the next event is due.
+   * @return the due time in ticks, or Long.MAX_VALUE if nothing is scheduled
+   */
+  public long getNextTime() {
+    return size == 0 ? Long.MAX_VALUE : heap[0].time;
+  }
+
+  /**
+   * Schedules the given event to run after the given delay, moving it if it
+   * is already scheduled, either here or on another scheduler.
+   * @param event
+   * @param delay the delay in ticks
+   */
+  public void schedule(Event event, long delay) {
+    // Check for illegal arguments.
+    if (event == null) {
+      throw new IllegalArgumentException("Event cannot be null.");
+    }
+    if (delay < 0) {
+      throw new IllegalArgumentException("Delay " + delay +
+          " cannot be negative.");
+    }
+
+    if (event.owner != null) {
+      event.owner.cancel(event);
+    }
+    event.time = now + delay;
+    event.order = nextOrder++;
+    event.owner = this;
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    heap[size] = event;
+    event.index = size++;
+    siftUp(event.index);
+  }
+
+  /**
+   * Removes the given event, if it is scheduled here.
+   * @param event
+   */
+  public void cancel(Event event) {
+    if (event.owner != this) {
+      return;
+    }
+    int i = event.index;
+    Event last = heap[--size];
+    heap[size] = null;
+    event.owner = null;
+    event.index = -1;
+    if (i == size) {
+      return;
+    }
+    heap[i] = last;
+    last.index = i;
+    siftUp(i);
+    siftDown(last.index);
+  }
+
+  /**
+   * Moves the clock forward by the given number of ticks, running every event
+   * that falls due on the way. The clock shows each event's due time while it
+   * runs, and events may schedule or cancel others, including themselves.
+   * @param ticks
+   */
+  public void advance(long ticks) {
+    // Check for illegal arguments.
+    if (ticks < 0) {
+      throw new IllegalArgumentException("Ticks " + ticks +
+          " cannot be negative.");
+    }
+
+    long end = now + ticks;
+    while (size > 0 && heap[0].time <= end) {
+      Event event = heap[0];
+      cancel(event);
+      now = event.time;
+      event.action.run();
+    }
+    now = end;
+  }
+
+  private void siftUp(int i) {
+    Event event = heap[i];
+    while (i > 0) {
+      int parent = (i - 1) / 2;
+      if (!heap[parent].isAfter(event)) {
+        break;
+      }
+      heap[i] = heap[parent];
+      heap[i].index = i;
+      i = parent;
+    }
+    heap[i] = event;
+    event.index = i;
+  }
+
+  private void siftDown(int i) {
+    Event event = heap[i];
+    while (2 * i + 1 < size) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child].isAfter(heap[child + 1])) {
+        child++;
+      }
+      if (!event.isAfter(heap[child])) {
+        break;
+      }
+      heap[i] = heap[child];
+      heap[i].index = i;
+      i = child;
+    }
+    heap[i] = event;
+    event.index = i;
+  }
+
+  /**
+   * This models something that can be scheduled to run, e.g. a creature's
+   * next action or a timer. An event is scheduled on at most one scheduler
+   * at a time.
+   */
+  public static final class Event {
+    private final Runnable action;
+    private Scheduler owner;
+    private long time;
+    private long order;
+    private int index;
+
+    /**
+     * Class constructor specifying what happens when the event runs.
+     * @param action
+     */
+    public Event(Runnable action) {
+      // Check for illegal arguments.
+      if (action == null) {
+        throw new IllegalArgumentException("Action cannot be null.");
+      }
+
+      this.action = action;
+      owner = null;
+      index = -1;
+    }
+
+    public boolean isScheduled() {
+      return owner != null;
+    }
+
+    /**
+     * Gets the time at which the event is due.
+     * @return the due time in ticks, which is only meaningful while the event
+     *     is scheduled
+     */
+    public long getTime() {
+      return time;
+    }
+
+    private boolean isAfter(Event other) {
+      return time > other.time || time == other.time && order > other.order;
+    }
+  }
+}
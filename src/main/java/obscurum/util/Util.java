@@ -1,5 +1,7 @@
 package obscurum.util;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
 import java.lang.Math;
 import java.util.ArrayList;
 
@@ -20,14 +22,30 @@ public class Util {
   }
 
   public static <E> E pickRandomElement(ArrayList<E> list) {
-    double chance = 1.0 / list.size();
-    double result = Math.random();
+    return Rng.current().pick(list);
+  }
+
+  /**
+   * Reads a comma separated file from the resources folder.
+   * @param fileName
+   * @return the fields of each line, or no lines if the file cannot be read
+   */
+  public static ArrayList<String[]> readCSV(String fileName) {
+    ArrayList<String[]> inputData = new ArrayList<String[]>();
+    try {
+      FileReader r = new FileReader("src/main/resources/" + fileName);
+      BufferedReader br = new BufferedReader(r);
+      String line;
 
-    for (int i = 0; i < list.size(); i++) {
-      if (result < chance * (i + 1)) {
-        return list.get(i);
+      while ((line = br.readLine()) != null) {
+        inputData.add(line.split(","));
       }
+      br.close();
+      r.close();
+    } catch (Exception e) {
+      e.printStackTrace();
     }
-    return list.get(list.size() - 1);
+
+    return inputData;
   }
 }
@@ -0,0 +1,130 @@
+package obscurum.creatures.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import obscurum.environment.Level;
+import obscurum.environment.background.BackgroundTile;
+import obscurum.environment.background.Floor;
+import obscurum.environment.foreground.EmptyTile;
+import obscurum.environment.foreground.ForegroundTile;
+import obscurum.environment.foreground.Wall;
+import obscurum.util.Rng;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the values of chasing and fleeing maps on a small fixed level, with
+ * a pocket that cannot be reached from the rest of it.
+ * @author Alex Ghita
+ */
+class DistanceMapTest {
+  private static final String[] ROWS = {
+      "#########",
+      "#...#..##",
+      "#.#.#.#.#",
+      "#.....#.#",
+      "#########"};
+  private static final int X = DistanceMap.UNREACHABLE;
+  private static final int[][] CHASE = {
+      {X, X, X, X, X, X, X, X, X},
+      {X, 0, 1, 2, X, 8, 9, X, X},
+      {X, 1, X, 3, X, 7, X, X, X},
+      {X, 2, 3, 4, 5, 6, X, X, X},
+      {X, X, X, X, X, X, X, X, X}};
+  // Every tile settles one step above its neighbour furthest from the goal,
+  // from the end of the corridor at -108 back to the goal.
+  private static final int[][] FLEE = {
+      {X, X, X, X, X, X, X, X, X},
+      {X, -18, -28, -38, X, -98, -108, X, X},
+      {X, -28, X, -48, X, -88, X, X, X},
+      {X, -38, -48, -58, -68, -78, X, X, X},
+      {X, X, X, X, X, X, X, X, X}};
+  private Level level;
+  private Rng previous;
+
+  @BeforeEach
+  void setUp() {
+    ForegroundTile[][] foreground =
+        new ForegroundTile[ROWS[0].length()][ROWS.length];
+    BackgroundTile[][] background =
+        new BackgroundTile[ROWS[0].length()][ROWS.length];
+
+    for (int x = 0; x < foreground.length; x++) {
+      for (int y = 0; y < foreground[x].length; y++) {
+        foreground[x][y] = ROWS[y].charAt(x) == '#' ? new Wall() :
+            EmptyTile.INSTANCE;
+        background[x][y] = new Floor();
+      }
+    }
+    previous = Rng.bind(new Rng(0));
+    level = new Level(foreground, background);
+  }
+
+  @AfterEach
+  void tearDown() {
+    Rng.bind(previous);
+  }
+
+  @Test
+  void chasingMapHoldsWalkingDistances() {
+    DistanceMap chase = new DistanceMap();
+
+    chase.computeChase(level, 1, 1);
+    assertValues(CHASE, chase);
+  }
+
+  @Test
+  void fleeingMapSettlesAwayFromTheGoal() {
+    DistanceMap chase = new DistanceMap();
+    DistanceMap flee = new DistanceMap();
+
+    chase.computeChase(level, 1, 1);
+    flee.computeFlee(chase);
+    assertValues(FLEE, flee);
+  }
+
+  @Test
+  void stepsFollowTheLowestNeighbour() {
+    DistanceMap chase = new DistanceMap();
+    DistanceMap flee = new DistanceMap();
+
+    chase.computeChase(level, 1, 1);
+    flee.computeFlee(chase);
+    assertEquals(Level.pack(5, 1), chase.getNextStep(6, 1));
+    long tied = chase.getNextStep(3, 3);
+    assertTrue(tied == Level.pack(2, 3) || tied == Level.pack(3, 2));
+    assertEquals(Level.pack(4, 3), flee.getNextStep(3, 3));
+    assertEquals(Level.pack(1, 1), chase.getNextStep(1, 1));
+  }
+
+  @Test
+  void mapsAreRebuiltWhenWalkableTilesChange() {
+    DistanceMap chase = new DistanceMap();
+    DistanceMap flee = new DistanceMap();
+
+    chase.computeChase(level, 1, 1);
+    flee.computeFlee(chase);
+    level.setForegroundTile(4, 3, new Wall());
+    chase.computeChase(level, 1, 1);
+    flee.computeFlee(chase);
+    assertEquals(X, chase.getValue(4, 3));
+    assertEquals(X, chase.getValue(6, 1));
+    assertEquals(4, chase.getValue(3, 3));
+    assertEquals(X, flee.getValue(6, 1));
+    assertEquals(-48, flee.getValue(3, 3));
+    assertEquals(-8, flee.getValue(1, 1));
+  }
+
+  private static void assertValues(int[][] expected, DistanceMap map) {
+    for (int y = 0; y < expected.length; y++) {
+      int[] row = new int[expected[y].length];
+      for (int x = 0; x < row.length; x++) {
+        row[x] = map.getValue(x, y);
+      }
+      assertArrayEquals(expected[y], row, "Row " + y + ".");
+    }
+  }
+}
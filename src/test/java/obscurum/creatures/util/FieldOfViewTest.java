@@ -0,0 +1,141 @@
+package obscurum.creatures.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import obscurum.creatures.Player;
+import obscurum.environment.Level;
+import obscurum.environment.background.Floor;
+import obscurum.environment.builders.CaveBuilder;
+import obscurum.environment.foreground.Wall;
+import obscurum.factories.CreatureFactory;
+import obscurum.util.Rng;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the fields of view computed on a fixed-seed cave.
+ * @author Alex Ghita
+ */
+class FieldOfViewTest {
+  private static final long SEED = 43;
+  private Level level;
+  private ArrayList<int[]> floors;
+
+  @BeforeEach
+  void setUp() {
+    Rng previous = Rng.bind(new Rng(SEED));
+    try {
+      level = new CaveBuilder(91, 31, new Wall(), new Floor(), false, false)
+          .build();
+    } finally {
+      Rng.bind(previous);
+    }
+    floors = new ArrayList<int[]>();
+    for (int x = 0; x < level.getWidth(); x++) {
+      for (int y = 0; y < level.getHeight(); y++) {
+        if (!level.isOpaque(x, y)) {
+          floors.add(new int[]{x, y});
+        }
+      }
+    }
+  }
+
+  @Test
+  void shadowcastingIsSymmetricWithoutLimit() {
+    assertSymmetric(-1);
+  }
+
+  @Test
+  void shadowcastingIsSymmetricWithinRadius() {
+    assertSymmetric(5);
+  }
+
+  @Test
+  void limitedSightStopsAtRadius() {
+    FieldOfView fieldOfView = new FieldOfView(FieldOfView.SHADOWCASTING);
+
+    for (int[] origin : floors) {
+      fieldOfView.compute(level, origin[0], origin[1], 5);
+      assertTrue(fieldOfView.isVisible(origin[0], origin[1]));
+      for (int x = 0; x < level.getWidth(); x++) {
+        for (int y = 0; y < level.getHeight(); y++) {
+          int dx = x - origin[0];
+          int dy = y - origin[1];
+          if (dx * dx + dy * dy > 25) {
+            assertFalse(fieldOfView.isVisible(x, y));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void sharedStampsAreRecomputedAfterOtherUse() {
+    FieldOfView first = new FieldOfView(FieldOfView.SHADOWCASTING, true);
+    FieldOfView second = new FieldOfView(FieldOfView.SHADOWCASTING, true);
+    FieldOfView own = new FieldOfView(FieldOfView.SHADOWCASTING);
+    int[] a = floors.get(0);
+    int[] b = floors.get(floors.size() - 1);
+
+    own.compute(level, a[0], a[1], -1);
+    first.compute(level, a[0], a[1], -1);
+    second.compute(level, b[0], b[1], -1);
+    first.compute(level, a[0], a[1], -1);
+    for (int x = 0; x < level.getWidth(); x++) {
+      for (int y = 0; y < level.getHeight(); y++) {
+        assertEquals(own.isVisible(x, y), first.isVisible(x, y));
+      }
+    }
+  }
+
+  @Test
+  void playerViewUsesThePlayersMode() {
+    Player player;
+    Rng previous = Rng.bind(new Rng(SEED));
+    try {
+      player = new CreatureFactory(level).newPlayer();
+    } finally {
+      Rng.bind(previous);
+    }
+    FieldOfView expected = new FieldOfView(FieldOfView.BRESENHAM);
+    Point origin = player.getLocation();
+
+    player.getAI().setFieldOfViewMode(FieldOfView.BRESENHAM);
+    expected.compute(level, origin.x, origin.y, -1);
+    for (int x = 0; x < level.getWidth(); x++) {
+      for (int y = 0; y < level.getHeight(); y++) {
+        assertEquals(expected.isVisible(x, y), level.isVisibleToPlayer(x, y));
+      }
+    }
+  }
+
+  /**
+   * Checks that every floor tile sees every other one exactly when it is seen
+   * back.
+   * @param radius
+   */
+  private void assertSymmetric(int radius) {
+    FieldOfView fieldOfView = new FieldOfView(FieldOfView.SHADOWCASTING);
+    boolean[][] sees = new boolean[floors.size()][floors.size()];
+
+    for (int i = 0; i < floors.size(); i++) {
+      fieldOfView.compute(level, floors.get(i)[0], floors.get(i)[1], radius);
+      for (int j = 0; j < floors.size(); j++) {
+        sees[i][j] = fieldOfView.isVisible(floors.get(j)[0], floors.get(j)[1]);
+      }
+    }
+    for (int i = 0; i < floors.size(); i++) {
+      for (int j = i + 1; j < floors.size(); j++) {
+        if (sees[i][j] != sees[j][i]) {
+          assertEquals(sees[i][j], sees[j][i], "Sight between (" +
+              floors.get(i)[0] + ", " + floors.get(i)[1] + ") and (" +
+              floors.get(j)[0] + ", " + floors.get(j)[1] + ").");
+        }
+      }
+    }
+  }
+}
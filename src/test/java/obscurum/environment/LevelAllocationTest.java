@@ -0,0 +1,67 @@
+package obscurum.environment;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import obscurum.creatures.Player;
+import obscurum.engine.GameEngine;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that creature turns stay close to allocation-free once warmed up, by
+ * counting the bytes allocated while a fixed-seed level plays a set number of
+ * turns.
+ * @author Alex Ghita
+ */
+class LevelAllocationTest {
+  private static final long SEED = 43;
+  private static final int WARM_UP_TURNS = 500;
+  private static final int MEASURED_TURNS = 1000;
+  // What is left are the points of attempted moves, path frontiers growing
+  // and the odd creature spawned, which come to about 2.3 KB a turn.
+  private static final long BYTES_PER_TURN = 4 * 1024;
+
+  @Test
+  void updateCreaturesStaysWithinAllocationBudget() {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    GameEngine engine = GameEngine.newGame(1, SEED);
+    Player player = engine.getPlayer();
+    Level level = player.getLevel();
+
+    player.setToGodMode();
+    for (int i = 0; i < WARM_UP_TURNS; i++) {
+      level.updateCreatures();
+    }
+
+    // Decisions may be taken on pool threads, so count every thread, which
+    // have all been started by the end of the warm-up.
+    long[] ids = threads.getAllThreadIds();
+    long[] before = threads.getThreadAllocatedBytes(ids);
+    for (int i = 0; i < MEASURED_TURNS; i++) {
+      level.updateCreatures();
+    }
+    long[] after = threads.getThreadAllocatedBytes(ids);
+
+    long bytesPerTurn = allocatedBetween(before, after) / MEASURED_TURNS;
+    assertTrue(bytesPerTurn <= BYTES_PER_TURN, "Allocated " + bytesPerTurn +
+        " bytes per turn, more than the budget of " + BYTES_PER_TURN + ".");
+  }
+
+  /**
+   * Adds up how much each thread allocated between two counts, skipping
+   * threads which died in between.
+   * @param before
+   * @param after
+   * @return
+   */
+  private static long allocatedBetween(long[] before, long[] after) {
+    long bytes = 0;
+    for (int i = 0; i < before.length; i++) {
+      if (before[i] >= 0 && after[i] >= 0) {
+        bytes += after[i] - before[i];
+      }
+    }
+    return bytes;
+  }
+}
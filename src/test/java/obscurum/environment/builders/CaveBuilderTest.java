@@ -0,0 +1,191 @@
+package obscurum.environment.builders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import obscurum.environment.Level;
+import obscurum.environment.background.Floor;
+import obscurum.environment.foreground.Wall;
+import obscurum.util.Rng;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the bitboard cave automaton builds the same caves, seed for
+ * seed, as the cell by cell automaton it replaced, on boards whose widths are
+ * and are not multiples of the 64 cells in a word, and that the caves are a
+ * single connected region once their pockets are filled in.
+ * @author Alex Ghita
+ */
+class CaveBuilderTest {
+  private static final long[] SEEDS = {1, 43, 2021};
+  private static final int[][] SIZES = {
+      {31, 31}, {63, 31}, {64, 40}, {65, 31}, {91, 31}, {128, 33}, {200, 57}};
+
+  @Test
+  void matchesCellByCellAutomatonWithDefaults() {
+    for (long seed : SEEDS) {
+      for (int[] size : SIZES) {
+        assertMatches(seed, size[0], size[1], 4, 3, 0.3, 20);
+      }
+    }
+  }
+
+  @Test
+  void matchesCellByCellAutomatonWithOtherRules() {
+    for (long seed : SEEDS) {
+      for (int[] size : SIZES) {
+        assertMatches(seed, size[0], size[1], 3, 2, 0.45, 5);
+        assertMatches(seed, size[0], size[1], 5, 4, 0.55, 1);
+        assertMatches(seed, size[0], size[1], 4, 3, 0.3, 0);
+      }
+    }
+  }
+
+  @Test
+  void cavesAreConnected() {
+    for (long seed = 0; seed < 20; seed++) {
+      for (int[] size : SIZES) {
+        Level level;
+        Rng previous = Rng.bind(new Rng(seed));
+        try {
+          level = new CaveBuilder(size[0], size[1], new Wall(), new Floor(),
+              true, true).build();
+        } finally {
+          Rng.bind(previous);
+        }
+        DungeonBuilderTest.assertConnected(level, seed);
+      }
+    }
+  }
+
+  private void assertMatches(long seed, int width, int height, int birthLimit,
+      int deathLimit, double carveChance, int numberOfSteps) {
+    Level level;
+    Rng previous = Rng.bind(new Rng(seed));
+    try {
+      level = new CaveBuilder(width, height, new Wall(), new Floor(), false,
+          false).build(birthLimit, deathLimit, carveChance, numberOfSteps);
+    } finally {
+      Rng.bind(previous);
+    }
+    // The builder's stream is the first one split from the bound stream.
+    boolean[][] expected = buildReference(new Rng(seed).split(), width,
+        height, birthLimit, deathLimit, carveChance, numberOfSteps);
+
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        assertEquals(expected[x][y], level.getForegroundTile(x, y)
+            instanceof Wall, "Tile (" + x + ", " + y + ") of the " + width +
+            "x" + height + " cave from seed " + seed + ".");
+      }
+    }
+  }
+
+  /**
+   * Builds the walls of a cave one cell at a time, as the builder did before
+   * it kept the board as bits, and then fills in every region but the
+   * largest one.
+   * @return whether each tile is a wall
+   */
+  private static boolean[][] buildReference(Rng random, int width, int height,
+      int birthLimit, int deathLimit, double carveChance, int numberOfSteps) {
+    boolean[][] board = new boolean[width][height];
+
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        board[x][y] = random.nextDouble() < carveChance;
+      }
+    }
+    for (int p = 0; p < numberOfSteps; p++) {
+      boolean[][] newBoard = new boolean[width][height];
+      for (int x = 0; x < width; x++) {
+        for (int y = 0; y < height; y++) {
+          int walls = 0;
+          for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+              int tx = x + i;
+              int ty = y + j;
+              if (i == 0 && j == 0) {
+                continue;
+              }
+              if (tx < 0 || ty < 0 || tx >= width || ty >= height ||
+                  board[tx][ty]) {
+                walls++;
+              }
+            }
+          }
+          newBoard[x][y] = board[x][y] ? walls >= deathLimit :
+              walls > birthLimit;
+        }
+      }
+      board = newBoard;
+    }
+    for (int x = 0; x < width; x++) {
+      board[x][0] = board[x][height - 1] = true;
+    }
+    for (int y = 0; y < height; y++) {
+      board[0][y] = board[width - 1][y] = true;
+    }
+
+    fillPockets(board, width, height);
+    return board;
+  }
+
+  /**
+   * Labels the open regions in the order a scan by columns first meets them,
+   * and walls in all but the largest, keeping the first of equally large
+   * ones to be counted up to that size.
+   */
+  private static void fillPockets(boolean[][] board, int width, int height) {
+    int[][] regions = new int[width][height];
+    int[] sizes = new int[width * height];
+    int[] fringe = new int[width * height];
+    int count = 0;
+    int largest = 0;
+
+    for (int[] column : regions) {
+      Arrays.fill(column, -1);
+    }
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (board[x][y] || regions[x][y] != -1) {
+          continue;
+        }
+        int head = 0;
+        int tail = 0;
+        regions[x][y] = count;
+        fringe[tail++] = x * height + y;
+        while (head < tail) {
+          int cx = fringe[head] / height;
+          int cy = fringe[head++] % height;
+          int[][] offsets = {{-1, 0}, {0, -1}, {0, 1}, {1, 0}};
+          for (int[] offset : offsets) {
+            int tx = cx + offset[0];
+            int ty = cy + offset[1];
+            if (tx >= 0 && ty >= 0 && tx < width && ty < height &&
+                !board[tx][ty] && regions[tx][ty] == -1) {
+              regions[tx][ty] = count;
+              fringe[tail++] = tx * height + ty;
+            }
+          }
+        }
+        count++;
+      }
+    }
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        int region = regions[x][y];
+        if (region >= 0 && ++sizes[region] > sizes[largest]) {
+          largest = region;
+        }
+      }
+    }
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        if (regions[x][y] >= 0 && regions[x][y] != largest) {
+          board[x][y] = true;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package obscurum.environment.builders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import obscurum.environment.Level;
+import obscurum.environment.background.Floor;
+import obscurum.environment.foreground.Wall;
+import obscurum.util.Rng;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every dungeon is a single connected region, so that the
+ * ladders and everything placed on it can be reached from anywhere.
+ * @author Alex Ghita
+ */
+class DungeonBuilderTest {
+  private static final int[][] SIZES = {{31, 31}, {91, 31}, {65, 41}, {129, 97}};
+
+  @Test
+  void defaultDungeonsAreConnected() {
+    for (long seed = 0; seed < 20; seed++) {
+      for (int[] size : SIZES) {
+        Level level = build(seed, size[0], size[1], 5000, 5, 13, 0.1, -1);
+        assertConnected(level, seed);
+      }
+    }
+  }
+
+  @Test
+  void dungeonsWithoutLoopsOrTrimmingAreConnected() {
+    for (long seed = 0; seed < 20; seed++) {
+      for (int[] size : SIZES) {
+        assertConnected(build(seed, size[0], size[1], 200, 3, 7, 0, 0), seed);
+        assertConnected(build(seed, size[0], size[1], 5000, 5, 9, 1, 10),
+            seed);
+      }
+    }
+  }
+
+  private static Level build(long seed, int width, int height, int attempts,
+      int minRoomSize, int maxRoomSize, double carveChance, int maxTrims) {
+    Rng previous = Rng.bind(new Rng(seed));
+    try {
+      return new DungeonBuilder(width, height, new Wall(), new Floor(), true,
+          true).build(attempts, minRoomSize, maxRoomSize, carveChance,
+          maxTrims);
+    } finally {
+      Rng.bind(previous);
+    }
+  }
+
+  /**
+   * Checks that every walkable tile is in the same region, and that the
+   * ladders can be reached from one another. Cave tests use this too.
+   * @param level
+   * @param seed
+   */
+  static void assertConnected(Level level, long seed) {
+    int region = -1;
+
+    for (int x = 0; x < level.getWidth(); x++) {
+      for (int y = 0; y < level.getHeight(); y++) {
+        if (!level.isWalkable(x, y)) {
+          continue;
+        }
+        if (region == -1) {
+          region = level.getRegion(x, y);
+        }
+        assertEquals(region, level.getRegion(x, y), "Tile (" + x + ", " + y +
+            ") of the " + level.getWidth() + "x" + level.getHeight() +
+            " level from seed " + seed + ".");
+      }
+    }
+    assertTrue(region >= 0, "The level from seed " + seed +
+        " has no walkable tile.");
+    Point next = level.getNextLocation();
+    Point previous = level.getPreviousLocation();
+    assertTrue(level.isReachable(next, previous), "Ladders of the level " +
+        "from seed " + seed + ".");
+  }
+}
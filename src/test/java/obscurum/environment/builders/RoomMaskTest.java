@@ -0,0 +1,66 @@
+package obscurum.environment.builders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the room bitmask against a plain grid of cells, for spans that start,
+ * end and cross the boundaries between the 64-cell words of a row.
+ * @author Alex Ghita
+ */
+class RoomMaskTest {
+  private static final int[] WIDTHS = {31, 63, 64, 65, 128, 200};
+  private static final int HEIGHT = 9;
+
+  @Test
+  void spansAroundWordBoundaries() {
+    RoomMask mask = new RoomMask(200, 1);
+
+    mask.mark(0, 60, 63);
+    assertTrue(mask.intersects(0, 63, 64));
+    assertTrue(mask.intersects(0, 0, 60));
+    assertFalse(mask.intersects(0, 0, 59));
+    assertFalse(mask.intersects(0, 64, 199));
+
+    mask.mark(0, 127, 128);
+    assertTrue(mask.intersects(0, 64, 127));
+    assertTrue(mask.intersects(0, 128, 128));
+    assertFalse(mask.intersects(0, 64, 126));
+    assertFalse(mask.intersects(0, 129, 199));
+  }
+
+  @Test
+  void matchesGridUnderRandomRooms() {
+    SplittableRandom random = new SplittableRandom(23);
+
+    for (int width : WIDTHS) {
+      RoomMask mask = new RoomMask(width, HEIGHT);
+      boolean[][] grid = new boolean[width][HEIGHT];
+
+      for (int i = 0; i < 2000; i++) {
+        int y = random.nextInt(HEIGHT);
+        int fromX = random.nextInt(width);
+        int toX = fromX + random.nextInt(Math.min(width - fromX, 80));
+
+        boolean expected = false;
+        for (int x = fromX; x <= toX; x++) {
+          expected |= grid[x][y];
+        }
+        assertEquals(expected, mask.intersects(y, fromX, toX), "Cells " +
+            fromX + " to " + toX + " of row " + y + ", " + width + " wide.");
+
+        // Mark a few of the spans tested, so the board fills up slowly.
+        if (random.nextInt(8) == 0) {
+          mask.mark(y, fromX, toX);
+          for (int x = fromX; x <= toX; x++) {
+            grid[x][y] = true;
+          }
+        }
+      }
+    }
+  }
+}
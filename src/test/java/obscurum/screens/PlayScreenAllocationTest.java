@@ -0,0 +1,80 @@
+package obscurum.screens;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import obscurum.Main;
+import obscurum.display.terminal.AsciiPanel;
+import obscurum.engine.GameEngine;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that drawing the play screen of a fixed-seed game allocates nothing
+ * for the cells of the game view once warmed up, so that what a frame costs
+ * does not grow with the size of the view.
+ * @author Alex Ghita
+ */
+class PlayScreenAllocationTest {
+  private static final long SEED = 43;
+  private static final int WARM_UP_FRAMES = 2000;
+  private static final int MEASURED_FRAMES = 1000;
+  // The stats panel and combat log are built as strings every frame, which
+  // come to a few hundred bytes whatever is on the game view.
+  private static final long BYTES_PER_FRAME = 1024;
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+  private AsciiPanel terminal;
+  private PlayScreen screen;
+
+  @BeforeAll
+  static void setHeadless() {
+    System.setProperty("java.awt.headless", "true");
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    terminal = Main.constructTerminal();
+    screen = new PlayScreen(GameEngine.newGame(1, SEED));
+  }
+
+  @Test
+  void displayTilesAllocatesNothing() {
+    Point topLeft = screen.getScrollLocation();
+
+    for (int i = 0; i < WARM_UP_FRAMES; i++) {
+      screen.displayTiles(terminal, topLeft);
+    }
+
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < MEASURED_FRAMES; i++) {
+      screen.displayTiles(terminal, topLeft);
+    }
+    long after = threads.getCurrentThreadAllocatedBytes();
+
+    assertEquals(0, (after - before) / MEASURED_FRAMES,
+        "Bytes allocated per frame of the game view.");
+  }
+
+  @Test
+  void displayOutputStaysWithinAllocationBudget() {
+    for (int i = 0; i < WARM_UP_FRAMES; i++) {
+      screen.displayOutput(terminal);
+    }
+
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < MEASURED_FRAMES; i++) {
+      screen.displayOutput(terminal);
+    }
+    long after = threads.getCurrentThreadAllocatedBytes();
+
+    long bytesPerFrame = (after - before) / MEASURED_FRAMES;
+    assertTrue(bytesPerFrame <= BYTES_PER_FRAME, "Allocated " +
+        bytesPerFrame + " bytes per frame, more than the budget of " +
+        BYTES_PER_FRAME + ".");
+  }
+}
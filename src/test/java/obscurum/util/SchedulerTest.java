@@ -0,0 +1,149 @@
+package obscurum.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the scheduler runs events in order of due time, breaking ties
+ * in the order they were scheduled, and that cancelled and moved events run
+ * only where they now belong.
+ * @author Alex Ghita
+ */
+class SchedulerTest {
+  private Scheduler scheduler;
+  private List<Integer> ran;
+
+  @BeforeEach
+  void setUp() {
+    scheduler = new Scheduler();
+    ran = new ArrayList<Integer>();
+  }
+
+  private Scheduler.Event newEvent(int id) {
+    return new Scheduler.Event(() -> ran.add(id));
+  }
+
+  @Test
+  void runsEventsByDueTimeThenByScheduleOrder() {
+    scheduler.schedule(newEvent(0), 30);
+    scheduler.schedule(newEvent(1), 10);
+    scheduler.schedule(newEvent(2), 20);
+    scheduler.schedule(newEvent(3), 10);
+    scheduler.schedule(newEvent(4), 0);
+
+    scheduler.advance(100);
+
+    assertEquals(List.of(4, 1, 3, 2, 0), ran);
+    assertEquals(100, scheduler.getTime());
+    assertEquals(0, scheduler.size());
+  }
+
+  @Test
+  void runsOnlyEventsDueWithinTheAdvance() {
+    List<Long> times = new ArrayList<Long>();
+    scheduler.schedule(new Scheduler.Event(
+        () -> times.add(scheduler.getTime())), 5);
+    scheduler.schedule(newEvent(1), 15);
+
+    scheduler.advance(10);
+
+    assertEquals(List.of(5L), times);
+    assertEquals(10, scheduler.getTime());
+    assertEquals(15, scheduler.getNextTime());
+  }
+
+  @Test
+  void cancelledEventsDoNotRun() {
+    Scheduler.Event[] events = new Scheduler.Event[8];
+    for (int i = 0; i < events.length; i++) {
+      events[i] = newEvent(i);
+      scheduler.schedule(events[i], 10 + i % 3);
+    }
+
+    scheduler.cancel(events[0]);
+    scheduler.cancel(events[5]);
+    scheduler.cancel(events[7]);
+    scheduler.cancel(events[7]);
+    scheduler.advance(20);
+
+    assertFalse(events[0].isScheduled());
+    assertEquals(List.of(3, 6, 1, 4, 2), ran);
+  }
+
+  @Test
+  void reschedulingMovesAnEventAndMakesItLastAmongTies() {
+    Scheduler.Event first = newEvent(0);
+    scheduler.schedule(first, 10);
+    scheduler.schedule(newEvent(1), 10);
+    scheduler.schedule(first, 10);
+
+    Scheduler other = new Scheduler();
+    Scheduler.Event moved = newEvent(2);
+    other.schedule(moved, 5);
+    scheduler.schedule(moved, 20);
+
+    assertEquals(0, other.size());
+    scheduler.advance(20);
+    assertEquals(List.of(1, 0, 2), ran);
+  }
+
+  @Test
+  void eventsMayRescheduleAndCancelOthersWhileRunning() {
+    Scheduler.Event victim = newEvent(9);
+    Scheduler.Event[] repeating = new Scheduler.Event[1];
+    repeating[0] = new Scheduler.Event(() -> {
+      ran.add((int)scheduler.getTime());
+      if (scheduler.getTime() < 30) {
+        scheduler.schedule(repeating[0], 10);
+      } else {
+        scheduler.cancel(victim);
+      }
+    });
+    scheduler.schedule(repeating[0], 10);
+    scheduler.schedule(victim, 35);
+
+    scheduler.advance(100);
+
+    assertEquals(List.of(10, 20, 30), ran);
+    assertFalse(repeating[0].isScheduled());
+  }
+
+  @Test
+  void matchesASortedOrderUnderRandomCancellation() {
+    SplittableRandom random = new SplittableRandom(11);
+    int n = 500;
+    Scheduler.Event[] events = new Scheduler.Event[n];
+    long[] times = new long[n];
+    boolean[] cancelled = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      events[i] = newEvent(i);
+      times[i] = random.nextInt(50);
+      scheduler.schedule(events[i], times[i]);
+    }
+    for (int i = 0; i < n / 4; i++) {
+      int j = random.nextInt(n);
+      cancelled[j] = true;
+      scheduler.cancel(events[j]);
+    }
+
+    List<Integer> expected = new ArrayList<Integer>();
+    for (long t = 0; t < 50; t++) {
+      for (int i = 0; i < n; i++) {
+        if (times[i] == t && !cancelled[i]) {
+          expected.add(i);
+        }
+      }
+    }
+
+    scheduler.advance(50);
+
+    assertEquals(expected, ran);
+    assertEquals(0, scheduler.size());
+  }
+}